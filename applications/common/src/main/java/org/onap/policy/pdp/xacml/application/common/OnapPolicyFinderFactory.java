@@ -20,23 +20,28 @@
 
 package org.onap.policy.pdp.xacml.application.common;
 
+import com.att.research.xacml.api.Identifier;
 import com.att.research.xacml.std.IdentifierImpl;
 import com.att.research.xacml.std.StdStatusCode;
 import com.att.research.xacml.std.StdVersion;
 import com.att.research.xacml.std.dom.DOMStructureException;
 import com.att.research.xacml.util.FactoryException;
 import com.att.research.xacml.util.XACMLProperties;
+import com.att.research.xacmlatt.pdp.eval.EvaluationContext;
 import com.att.research.xacmlatt.pdp.policy.CombiningAlgorithm;
 import com.att.research.xacmlatt.pdp.policy.CombiningAlgorithmFactory;
 import com.att.research.xacmlatt.pdp.policy.Policy;
 import com.att.research.xacmlatt.pdp.policy.PolicyDef;
 import com.att.research.xacmlatt.pdp.policy.PolicyFinder;
 import com.att.research.xacmlatt.pdp.policy.PolicyFinderFactory;
+import com.att.research.xacmlatt.pdp.policy.PolicyFinderResult;
 import com.att.research.xacmlatt.pdp.policy.PolicySet;
 import com.att.research.xacmlatt.pdp.policy.PolicySetChild;
 import com.att.research.xacmlatt.pdp.policy.Target;
+import com.att.research.xacmlatt.pdp.policy.dom.DOMPolicy;
 import com.att.research.xacmlatt.pdp.policy.dom.DOMPolicyDef;
 import com.att.research.xacmlatt.pdp.std.StdPolicyFinder;
+import com.att.research.xacmlatt.pdp.std.StdPolicyFinderResult;
 import com.att.research.xacmlatt.pdp.util.ATTPDPProperties;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
@@ -47,14 +52,27 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.dom.DOMResult;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ObjectFactory;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 /**
  * Implements ONAP specific ability to find Policies for XACML PDP engine.
@@ -66,10 +84,33 @@ public class OnapPolicyFinderFactory extends PolicyFinderFactory {
 
     public static final String  PROP_FILE       = ".file";
     public static final String  PROP_URL        = ".url";
+    //
+    // When true, translated policies are handed to the engine in memory rather
+    // than being parsed back from their policy file.
+    //
+    public static final String  PROP_IN_MEMORY  = "xacml.onap.policies.inMemory";
+    //
+    // How in memory policies are persisted to disk: sync (default), async or none
+    //
+    public static final String  PROP_PERSIST    = "xacml.onap.policies.persist";
+    //
+    // Comma separated ids of the attributes the combined root policies are
+    // indexed on, see OnapPolicyIndex.
+    //
+    public static final String  PROP_INDEX      = "xacml.onap.policies.indexAttributes";
 
     private static Logger logger                           = LoggerFactory.getLogger(OnapPolicyFinderFactory.class);
+    //
+    // Every policy load/unload creates a brand new engine, and hence a new instance
+    // of this factory. Rather than re-parsing every root policy file each time, keep
+    // the parsed PolicyDef objects around keyed by the absolute file name. An entry is
+    // only re-used if the file has not been modified since it was parsed.
+    //
+    private static final Map<String, CachedPolicyDef> policyDefCache = new ConcurrentHashMap<>();
+    private static final JAXBContext policyContext = createPolicyContext();
     private List<PolicyDef> rootPolicies;
     private List<PolicyDef> referencedPolicies;
+    private OnapPolicyIndex policyIndex         = null;
     private boolean needsInit                   = true;
 
     private Properties properties;
@@ -137,6 +178,15 @@ public class OnapPolicyFinderFactory extends PolicyFinderFactory {
 
     protected PolicyDef loadPolicyFileDef(String propLocation) {
         File fileLocation   = new File(propLocation);
+        //
+        // Policies registered in memory do not need the file, it may
+        // not even have been written yet.
+        //
+        CachedPolicyDef registered = policyDefCache.get(fileLocation.getAbsolutePath());
+        if (registered != null && registered.inMemory) {
+            logger.debug("Using in memory policy {}", fileLocation);
+            return registered.policyDef;
+        }
         if (!fileLocation.exists()) {
             logger.error("Policy file {} does not exist.", fileLocation.getAbsolutePath());
             return null;
@@ -145,10 +195,22 @@ public class OnapPolicyFinderFactory extends PolicyFinderFactory {
             logger.error("Policy file {} cannot be read.", fileLocation.getAbsolutePath());
             return null;
         }
+        //
+        // Have we already parsed this file?
+        //
+        String cacheKey = fileLocation.getAbsolutePath();
+        CachedPolicyDef cached = policyDefCache.get(cacheKey);
+        if (cached != null && cached.isCurrent(fileLocation)) {
+            logger.debug("Using cached policy file {}", fileLocation);
+            return cached.policyDef;
+        }
         try {
             logger.info("Loading policy file {}", fileLocation);
+            long lastModified = fileLocation.lastModified();
+            long length = fileLocation.length();
             PolicyDef policyDef = DOMPolicyDef.load(fileLocation);
             if (policyDef != null) {
+                policyDefCache.put(cacheKey, new CachedPolicyDef(lastModified, length, policyDef, false));
                 return policyDef;
             }
             return new Policy(StdStatusCode.STATUS_CODE_SYNTAX_ERROR, "DOM Could not load policy");
@@ -257,6 +319,15 @@ public class OnapPolicyFinderFactory extends PolicyFinderFactory {
                     //
                     this.rootPolicies = new ArrayList<>();
                     this.rootPolicies.add(root);
+                    //
+                    // Index them, if asked to
+                    //
+                    List<Identifier> indexIds = new ArrayList<>();
+                    Splitter.on(',').trimResults().omitEmptyStrings().split(properties.getProperty(PROP_INDEX, ""))
+                        .forEach(id -> indexIds.add(new IdentifierImpl(id)));
+                    if (! indexIds.isEmpty()) {
+                        this.policyIndex = new OnapPolicyIndex(root, indexIds);
+                    }
                 } catch (Exception e) {
                     logger.error("Failed to load Combining Algorithm Factory: {}", e.getLocalizedMessage());
                 }
@@ -271,17 +342,120 @@ public class OnapPolicyFinderFactory extends PolicyFinderFactory {
         }
     }
 
+    /**
+     * Converts a translated policy straight into the engine's PolicyDef, without
+     * going through a policy file.
+     *
+     * @param policy PolicyType object
+     * @return PolicyDef for the engine
+     * @throws ToscaPolicyConversionException If the policy cannot be converted
+     */
+    public static PolicyDef newPolicyDef(PolicyType policy) throws ToscaPolicyConversionException {
+        try {
+            //
+            // Marshal into a DOM tree and let the engine build its
+            // policy from that.
+            //
+            DOMResult result = new DOMResult();
+            Marshaller marshaller = policyContext.createMarshaller();
+            marshaller.marshal(new ObjectFactory().createPolicy(policy), result);
+            Node root = ((Document) result.getNode()).getDocumentElement();
+            return DOMPolicy.newInstance(root, null, null);
+        } catch (JAXBException | DOMStructureException e) {
+            throw new ToscaPolicyConversionException("Failed to convert policy " + policy.getPolicyId(), e);
+        }
+    }
+
+    /**
+     * Registers an in memory policy for the given file, which will be used by the
+     * engine regardless of whether the file exists or not.
+     *
+     * @param policyFile Path to the policy file the policy is known by
+     * @param policyDef PolicyDef object
+     */
+    public static void registerPolicyDef(Path policyFile, PolicyDef policyDef) {
+        policyDefCache.put(policyFile.toFile().getAbsolutePath(), new CachedPolicyDef(-1, -1, policyDef, true));
+    }
+
+    /**
+     * Removes any parsed policy for the given file from the cache. Should be called
+     * whenever a policy file is deleted or about to be re-written.
+     *
+     * @param policyFile Path to the policy file
+     */
+    public static void evictPolicyFileDef(Path policyFile) {
+        if (policyDefCache.remove(policyFile.toFile().getAbsolutePath()) != null) {
+            logger.info("Evicted cached policy file {}", policyFile);
+        }
+    }
+
+    /**
+     * Returns the number of parsed policy files currently being cached.
+     *
+     * @return number of cached policies
+     */
+    public static int getCachedPolicyCount() {
+        return policyDefCache.size();
+    }
+
     @Override
     public PolicyFinder getPolicyFinder() throws FactoryException {
         //
         // Force using any properties that were passed upon construction
         //
-        return new StdPolicyFinder(this.rootPolicies, this.referencedPolicies, this.properties);
+        return this.getPolicyFinder(this.properties);
     }
 
     @Override
     public PolicyFinder getPolicyFinder(Properties properties) throws FactoryException {
+        if (this.policyIndex != null) {
+            return new IndexedPolicyFinder(this.policyIndex, this.rootPolicies, this.referencedPolicies, properties);
+        }
         return new StdPolicyFinder(this.rootPolicies, this.referencedPolicies, properties);
     }
 
+    private static JAXBContext createPolicyContext() {
+        try {
+            return JAXBContext.newInstance(PolicyType.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to create JAXB context for policies", e);
+        }
+    }
+
+    private static class IndexedPolicyFinder extends StdPolicyFinder {
+        private final OnapPolicyIndex policyIndex;
+
+        private IndexedPolicyFinder(OnapPolicyIndex policyIndex, List<PolicyDef> rootPolicies,
+                List<PolicyDef> referencedPolicies, Properties properties) {
+            super(rootPolicies, referencedPolicies, properties);
+            this.policyIndex = policyIndex;
+        }
+
+        @Override
+        public PolicyFinderResult<PolicyDef> getRootPolicyDef(EvaluationContext evaluationContext) {
+            //
+            // The combined root always matches, it has an empty target
+            //
+            return new StdPolicyFinderResult<>(this.policyIndex.select(evaluationContext.getRequest()));
+        }
+    }
+
+    private static class CachedPolicyDef {
+        private final long lastModified;
+        private final long length;
+        private final PolicyDef policyDef;
+        private final boolean inMemory;
+
+        private CachedPolicyDef(long lastModified, long length, PolicyDef policyDef, boolean inMemory) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.policyDef = policyDef;
+            this.inMemory = inMemory;
+        }
+
+        private boolean isCurrent(File file) {
+            return this.lastModified == file.lastModified() && this.length == file.length();
+        }
+    }
+
 }
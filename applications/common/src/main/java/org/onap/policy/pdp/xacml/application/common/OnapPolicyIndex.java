@@ -0,0 +1,233 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common;
+
+import com.att.research.xacml.api.Attribute;
+import com.att.research.xacml.api.AttributeValue;
+import com.att.research.xacml.api.Identifier;
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.RequestAttributes;
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacmlatt.pdp.policy.AllOf;
+import com.att.research.xacmlatt.pdp.policy.AnyOf;
+import com.att.research.xacmlatt.pdp.policy.Match;
+import com.att.research.xacmlatt.pdp.policy.PolicyDef;
+import com.att.research.xacmlatt.pdp.policy.PolicySet;
+import com.att.research.xacmlatt.pdp.policy.Target;
+import com.att.research.xacmlatt.pdp.policy.expressions.AttributeDesignator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the root policies combined into one policy set, on the values their targets
+ * require for some attributes. For a request, only the policies whose targets can match
+ * its values of those attributes are put in the policy set the engine evaluates.
+ *
+ * <p>A policy is indexed on a target match that compares the attribute with a string, and
+ * that the whole target depends on (ie. the only AllOf of an AnyOf). Anything else is
+ * left to the engine, the selection only ever leaves out policies that would have been
+ * not applicable. So the decision is the same for any combining algorithm that ignores
+ * not applicable policies, such as deny-overrides or deny-unless-permit.
+ *
+ * <p>The indexed attributes have to be in the request, a value a PIP would return
+ * for them is not looked at.
+ *
+ */
+public class OnapPolicyIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OnapPolicyIndex.class);
+    //
+    // The policy sets for the candidate selections seen so far, bounded as
+    // there can be as many selections as combinations of indexed values.
+    //
+    private static final int MAX_SELECTIONS = 1000;
+
+    private final PolicySet root;
+    private final List<PolicyDef> policies = new ArrayList<>();
+    private final Map<Pair<Identifier, Identifier>, AttributeIndex> indexes = new LinkedHashMap<>();
+    private final Map<BitSet, PolicySet> selections = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor, indexes the children of the root policy set.
+     *
+     * @param root Policy set combining the root policies
+     * @param attributeIds Ids of the attributes to index on
+     */
+    public OnapPolicyIndex(PolicySet root, Collection<Identifier> attributeIds) {
+        this.root = root;
+        root.getChildren().forEachRemaining(child -> this.policies.add((PolicyDef) child));
+        for (int index = 0; index < this.policies.size(); index++) {
+            Target target = this.policies.get(index).getTarget();
+            if (target != null) {
+                this.indexTarget(index, target, attributeIds);
+            }
+        }
+        //
+        // A policy without a value for an attribute is a candidate whatever the request has
+        //
+        for (AttributeIndex attributeIndex : this.indexes.values()) {
+            attributeIndex.unconstrained.set(0, this.policies.size());
+            attributeIndex.unconstrained.andNot(attributeIndex.constrained);
+        }
+        LOGGER.info("Indexed {} policies on {}", this.policies.size(), this.indexes.keySet());
+    }
+
+    /**
+     * Returns the policy set with the policies that may apply to the request.
+     *
+     * @param request Request being evaluated
+     * @return PolicySet object
+     */
+    public PolicySet select(Request request) {
+        if (this.indexes.isEmpty()) {
+            return this.root;
+        }
+        BitSet candidates = new BitSet(this.policies.size());
+        candidates.set(0, this.policies.size());
+        for (AttributeIndex attributeIndex : this.indexes.values()) {
+            candidates.and(attributeIndex.candidates(request));
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        if (candidates.cardinality() == this.policies.size()) {
+            return this.root;
+        }
+        PolicySet selection = this.selections.get(candidates);
+        if (selection == null) {
+            selection = this.createSelection(candidates);
+            if (this.selections.size() < MAX_SELECTIONS) {
+                this.selections.put(candidates, selection);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the number of policies that were indexed.
+     *
+     * @return number of policies
+     */
+    public int size() {
+        return this.policies.size();
+    }
+
+    private PolicySet createSelection(BitSet candidates) {
+        //
+        // Same as the root, with only the candidates in their original order
+        //
+        PolicySet selection = new PolicySet();
+        selection.setIdentifier(this.root.getIdentifier());
+        selection.setVersion(this.root.getVersion());
+        selection.setTarget(this.root.getTarget());
+        selection.setPolicyCombiningAlgorithm(this.root.getPolicyCombiningAlgorithm());
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            selection.addChild(this.policies.get(index));
+        }
+        return selection;
+    }
+
+    private void indexTarget(int policy, Target target, Collection<Identifier> attributeIds) {
+        for (Iterator<AnyOf> anyOfs = target.getAnyOfs(); anyOfs != null && anyOfs.hasNext();) {
+            Iterator<AllOf> allOfs = anyOfs.next().getAllOfs();
+            if (allOfs == null || ! allOfs.hasNext()) {
+                continue;
+            }
+            AllOf allOf = allOfs.next();
+            if (allOfs.hasNext()) {
+                //
+                // Any one of several AllOfs may match, the policy is not indexed on them
+                //
+                continue;
+            }
+            for (Iterator<Match> matches = allOf.getMatches(); matches != null && matches.hasNext();) {
+                this.indexMatch(policy, matches.next(), attributeIds);
+            }
+        }
+    }
+
+    private void indexMatch(int policy, Match match, Collection<Identifier> attributeIds) {
+        if (! XACML3.ID_FUNCTION_STRING_EQUAL.equals(match.getMatchId())
+                || ! (match.getAttributeRetrievalBase() instanceof AttributeDesignator)
+                || match.getAttributeValue() == null
+                || ! XACML3.ID_DATATYPE_STRING.equals(match.getAttributeValue().getDataTypeId())) {
+            return;
+        }
+        AttributeDesignator designator = (AttributeDesignator) match.getAttributeRetrievalBase();
+        //
+        // A missing attribute must leave the policy not applicable rather than
+        // indeterminate, and attributes from any issuer must match.
+        //
+        if (! attributeIds.contains(designator.getAttributeId()) || designator.getIssuer() != null
+                || Boolean.TRUE.equals(designator.getMustBePresent())) {
+            return;
+        }
+        AttributeIndex attributeIndex = this.indexes.computeIfAbsent(
+            Pair.of(designator.getCategory(), designator.getAttributeId()),
+            key -> new AttributeIndex(key.getLeft(), key.getRight()));
+        attributeIndex.constrained.set(policy);
+        attributeIndex.byValue.computeIfAbsent(match.getAttributeValue().getValue().toString(),
+            key -> new BitSet()).set(policy);
+    }
+
+    private static class AttributeIndex {
+        private final Identifier category;
+        private final Identifier attributeId;
+        private final Map<String, BitSet> byValue = new HashMap<>();
+        private final BitSet constrained = new BitSet();
+        private final BitSet unconstrained = new BitSet();
+
+        private AttributeIndex(Identifier category, Identifier attributeId) {
+            this.category = category;
+            this.attributeId = attributeId;
+        }
+
+        private BitSet candidates(Request request) {
+            BitSet candidates = (BitSet) this.unconstrained.clone();
+            Iterator<RequestAttributes> categories = request.getRequestAttributes(this.category);
+            while (categories != null && categories.hasNext()) {
+                Iterator<Attribute> attributes = categories.next().getAttributes(this.attributeId);
+                while (attributes != null && attributes.hasNext()) {
+                    for (AttributeValue<?> value : attributes.next().getValues()) {
+                        BitSet policies = XACML3.ID_DATATYPE_STRING.equals(value.getDataTypeId())
+                                ? this.byValue.get(value.getValue().toString()) : null;
+                        if (policies != null) {
+                            candidates.or(policies);
+                        }
+                    }
+                }
+            }
+            return candidates;
+        }
+    }
+}
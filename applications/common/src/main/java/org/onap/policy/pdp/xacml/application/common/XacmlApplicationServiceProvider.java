@@ -95,6 +95,24 @@ public interface XacmlApplicationServiceProvider {
      */
     boolean          unloadPolicy(ToscaPolicy toscaPolicy) throws XacmlApplicationException;
 
+    /**
+     * Load a batch of Tosca Policies. The application should only
+     * rebuild its decision engine once for the whole batch.
+     *
+     * @param toscaPolicies List of policies
+     * @return List of the policies that were successfully loaded
+     */
+    List<ToscaPolicy> loadPolicies(List<ToscaPolicy> toscaPolicies) throws XacmlApplicationException;
+
+    /**
+     * unload a batch of Tosca Policies. The application should only
+     * rebuild its decision engine once for the whole batch.
+     *
+     * @param toscaPolicies List of policies
+     * @return List of the policies that were successfully unloaded
+     */
+    List<ToscaPolicy> unloadPolicies(List<ToscaPolicy> toscaPolicies) throws XacmlApplicationException;
+
     /**
      * Makes a decision given the incoming request and returns a response.
      *
@@ -103,4 +121,13 @@ public interface XacmlApplicationServiceProvider {
      */
     Pair<DecisionResponse, Response>       makeDecision(DecisionRequest request);
 
+    /**
+     * Makes the decisions for a batch of requests. The whole batch should be
+     * decided against the same set of policies.
+     *
+     * @param requests List of incoming DecisionRequest objects
+     * @return List of the responses, in the order of the requests
+     */
+    List<Pair<DecisionResponse, Response>> makeDecisions(List<DecisionRequest> requests);
+
 }
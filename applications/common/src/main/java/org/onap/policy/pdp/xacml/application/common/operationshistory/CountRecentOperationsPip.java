@@ -28,16 +28,26 @@ import com.att.research.xacml.api.pip.PIPResponse;
 import com.att.research.xacml.std.pip.StdMutablePIPResponse;
 import com.att.research.xacml.std.pip.StdPIPResponse;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.persistence.Persistence;
+import javax.persistence.EntityManagerFactory;
 
 import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 import org.onap.policy.pdp.xacml.application.common.std.StdOnapPip;
@@ -47,8 +57,36 @@ import org.slf4j.LoggerFactory;
 
 public class CountRecentOperationsPip extends StdOnapPip {
     public static final String ISSUER_NAME = "count-recent-operations";
+    public static final String PROP_CACHE_TTL = ISSUER_NAME + ".cache.ttl";
+    public static final String PROP_CACHE_MAX_SIZE = ISSUER_NAME + ".cache.maxSize";
+    public static final long DEFAULT_CACHE_MAX_SIZE = 10000;
+    public static final String PROP_BACKEND = ISSUER_NAME + ".backend";
+    public static final String BACKEND_DATABASE = "database";
+    public static final String BACKEND_MEMORY = "memory";
+    public static final String PROP_MEMORY_BUCKET = ISSUER_NAME + ".memory.bucket";
+    public static final String PROP_MEMORY_RETENTION = ISSUER_NAME + ".memory.retention";
+    public static final String PROP_MEMORY_POLL = ISSUER_NAME + ".memory.poll";
+    public static final long DEFAULT_MEMORY_BUCKET = 10000;
+    public static final long DEFAULT_MEMORY_RETENTION = 3600000;
+    public static final long DEFAULT_MEMORY_POLL = 1000;
     private static Logger logger = LoggerFactory.getLogger(CountRecentOperationsPip.class);
 
+    //
+    // The PIP is created again every time an application builds a new
+    // engine, so the counts are kept for all the instances.
+    //
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+
+    //
+    // One in-memory counter per operations history, it keeps polling
+    // while the PIP instances come and go.
+    //
+    private static final Map<EntityManagerFactory, RecentOperationsCounter> counters = new HashMap<>();
+
+    private Cache<List<Object>, Long> countCache;
+    private RecentOperationsCounter counter;
+
     public CountRecentOperationsPip() {
         super();
     }
@@ -62,31 +100,64 @@ public class CountRecentOperationsPip extends StdOnapPip {
     public void configure(String id, Properties properties) throws PIPException {
         super.configure(id, properties);
         //
-        // Create our entity manager
+        // Cache the counts for a short time, no caching if there is no ttl
         //
-        em = null;
+        countCache = null;
         try {
-            //
-            // In case there are any overloaded properties for the JPA
-            //
-            Properties emProperties = new Properties();
-            emProperties.putAll(properties);
-
-            //
-            // Need to decode the password before creating the EntityManager
-            //
-            String decodedPassword = new String(Base64.getDecoder()
-                    .decode(emProperties.getProperty("javax.persistence.jdbc.password")));
-            emProperties.setProperty("javax.persistence.jdbc.password", decodedPassword);
+            long ttl = Long.parseLong(properties.getProperty(PROP_CACHE_TTL, "0"));
+            long maxSize = Long.parseLong(properties.getProperty(PROP_CACHE_MAX_SIZE,
+                    Long.toString(DEFAULT_CACHE_MAX_SIZE)));
+            if (ttl > 0 && maxSize > 0) {
+                countCache = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                        .maximumSize(maxSize).build();
+            }
+        } catch (NumberFormatException e) {
+            logger.error("Invalid operations count cache properties, caching is disabled", e);
+        }
+        //
+        // Create our entity manager factory
+        //
+        configureEntityManagerFactory(ISSUER_NAME, properties);
+        configureQueries(ISSUER_NAME, properties);
+        //
+        // Optionally count from memory rather than querying for every request
+        //
+        counter = null;
+        if (emf != null && BACKEND_MEMORY.equalsIgnoreCase(properties.getProperty(PROP_BACKEND, BACKEND_DATABASE))) {
+            try {
+                counter = getCounter(emf,
+                        Long.parseLong(properties.getProperty(PROP_MEMORY_BUCKET,
+                                Long.toString(DEFAULT_MEMORY_BUCKET))),
+                        Long.parseLong(properties.getProperty(PROP_MEMORY_RETENTION,
+                                Long.toString(DEFAULT_MEMORY_RETENTION))),
+                        Long.parseLong(properties.getProperty(PROP_MEMORY_POLL,
+                                Long.toString(DEFAULT_MEMORY_POLL))));
+            } catch (NumberFormatException e) {
+                logger.error("Invalid in-memory counter properties, using the database", e);
+            }
+        }
+    }
 
+    private static RecentOperationsCounter getCounter(EntityManagerFactory emf, long bucket, long retention,
+            long poll) {
+        synchronized (counters) {
+            RecentOperationsCounter existing = counters.get(emf);
+            if (existing == null) {
+                RecentOperationsCounter newCounter = new RecentOperationsCounter(emf, bucket, retention, poll);
+                newCounter.start();
+                counters.put(emf, newCounter);
+                return newCounter;
+            }
             //
-            // Create the entity manager factory
+            // The counter is shared by every PIP on the same operations history,
+            // it cannot be counting with different settings for each of them.
             //
-            em = Persistence.createEntityManagerFactory(
-                    properties.getProperty(ISSUER_NAME + ".persistenceunit"),
-                    emProperties).createEntityManager();
-        } catch (Exception e) {
-            logger.error("Persistence failed {} operations history db {}", e.getLocalizedMessage(), e);
+            if (! existing.hasSettings(bucket, retention, poll)) {
+                logger.error("In-memory counter already running with other bucket {} retention {} poll {}"
+                        + " settings, using the database", bucket, retention, poll);
+                return null;
+            }
+            return existing;
         }
     }
 
@@ -146,9 +217,12 @@ public class CountRecentOperationsPip extends StdOnapPip {
             return StdPIPResponse.PIP_RESPONSE_EMPTY;
         }
         //
-        // Ok do the database query
+        // Ok get the count, from the cache or the database
         //
-        long operationCount = doDatabaseQuery(actor, operation, target, timeWindowVal, timeWindowScale);
+        long operationCount = getOperationCount(actor, operation, target, timeWindowVal, timeWindowScale);
+        if (operationCount < 0 && isIndeterminateFallback()) {
+            return createFailedResponse("operation count is not available");
+        }
         //
         // Create and return PipResponse
         //
@@ -161,46 +235,112 @@ public class CountRecentOperationsPip extends StdOnapPip {
         return new StdPIPResponse(pipResponse);
     }
 
-    private long doDatabaseQuery(String actor, String operation, String target, int timeWindowVal,
+    /**
+     * Gets the hits on the operation count caches.
+     *
+     * @return Total count added from all the PIP instances
+     */
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Gets the operation counts that were not found in the caches.
+     *
+     * @return Total count added from all the PIP instances
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Gets the number of operations on the target within the time window, the same as the
+     * PIP returns for a request with a "tw:timeWindowVal:timeWindowScale" issuer.
+     *
+     * @param actor Actor
+     * @param operation Operation
+     * @param target Target
+     * @param timeWindowVal Time window value
+     * @param timeWindowScale Time window scale, eg. minute
+     * @return the count or -1 if it could not be determined
+     */
+    public long getOperationCount(String actor, String operation, String target, int timeWindowVal,
             String timeWindowScale) {
-        logger.info("Querying operations history for {} {} {} {} {}",
-                actor, operation, target, timeWindowVal, timeWindowScale);
         //
-        // Only can query if we have an EntityManager
+        // A time window that cannot be computed is a policy error, it is
+        // never handed to the database query.
         //
-        if (em == null) {
-            logger.error("No EntityManager available");
+        Duration window = stringToTimeWindow(timeWindowVal, timeWindowScale);
+        if (window == null) {
             return -1;
         }
         //
+        // The in-memory counter answers when it is loaded and covers the
+        // time window, otherwise go on to the database.
+        //
+        if (counter != null) {
+            long count = counter.count(actor, operation, target, window);
+            if (count >= 0) {
+                return count;
+            }
+        }
+        if (countCache == null) {
+            return doDatabaseQuery(actor, operation, target, timeWindowVal, timeWindowScale, window);
+        }
+        List<Object> key = Arrays.asList(actor, operation, target, timeWindowVal, timeWindowScale.toLowerCase());
+        Long cached = countCache.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        cacheMisses.incrementAndGet();
+        //
+        // Concurrent requests for the same key wait on a single query. Failed
+        // queries are not cached so the next request tries the database again.
+        //
+        try {
+            return countCache.get(key, () -> {
+                long count = doDatabaseQuery(actor, operation, target, timeWindowVal, timeWindowScale, window);
+                if (count < 0) {
+                    throw new PIPException("operations history query failed");
+                }
+                return count;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            logger.debug("Operation count is not cached {}", e.getLocalizedMessage());
+            return -1;
+        }
+    }
+
+    private long doDatabaseQuery(String actor, String operation, String target, int timeWindowVal,
+            String timeWindowScale, Duration window) {
+        logger.info("Querying operations history for {} {} {} {} {}",
+                actor, operation, target, timeWindowVal, timeWindowScale);
+        Timestamp since = Timestamp.from(Instant.now().minus(window));
+        //
         // Do the query
         //
         try {
             //
             // We are expecting a single result
             //
-            return em.createQuery("select count(e) from Dbao e"
-                                  + " where e.outcome<>'Failure_Guard'"
-                                  + " and e.actor= ?1"
-                                  + " and e.operation= ?2"
-                                  + " and e.target= ?3"
-                                  + " and e.endtime between"
-                                  + " ?4 and CURRENT_TIMESTAMP",
-                                  Long.class)
-                .setParameter(1, actor)
+            Long count = runQuery(Arrays.asList(ISSUER_NAME, actor, operation, target, timeWindowVal,
+                    timeWindowScale.toLowerCase()),
+                em -> em.createNamedQuery(Dbao.QUERY_COUNT_RECENT, Long.class)
+                .setHint(QUERY_TIMEOUT_HINT, queryTimeout)
+                .setParameter(1, target)
                 .setParameter(2, operation)
-                .setParameter(3, target)
-                .setParameter(4, Timestamp.from(Instant.now()
-                                                .minus(timeWindowVal,
-                                                       stringToChronoUnit(timeWindowScale))))
-                .getSingleResult();
-        } catch (Exception e) {
-            logger.error("Typed query failed ", e);
+                .setParameter(3, actor)
+                .setParameter(4, since)
+                .getSingleResult());
+            return count == null ? -1 : count;
+        } catch (PIPException e) {
+            logger.error("No operation count {}", e.getLocalizedMessage());
             return -1;
         }
     }
 
-    private ChronoUnit stringToChronoUnit(String scale) {
+    static ChronoUnit stringToChronoUnit(String scale) {
         //
         // Compute the time window
         //
@@ -228,4 +368,27 @@ public class CountRecentOperationsPip extends StdOnapPip {
         return null;
     }
 
+    /**
+     * Computes the length of a time window. Weeks, months and years are their estimated
+     * durations, the same as the in-memory counter uses.
+     *
+     * @param timeWindowVal Time window value
+     * @param timeWindowScale Time window scale, eg. minute
+     * @return the time window or null if the scale is not supported or the window is too long
+     */
+    static Duration stringToTimeWindow(int timeWindowVal, String timeWindowScale) {
+        ChronoUnit unit = timeWindowScale == null ? null : stringToChronoUnit(timeWindowScale);
+        if (unit == null) {
+            return null;
+        }
+        try {
+            Duration window = unit.getDuration().multipliedBy(timeWindowVal);
+            Instant.now().minus(window);
+            return window;
+        } catch (ArithmeticException | DateTimeException e) {
+            logger.error("Unsupported time window {} {}", timeWindowVal, timeWindowScale, e);
+            return null;
+        }
+    }
+
 }
@@ -29,17 +29,58 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 import lombok.Data;
 
 @Entity
-@Table(name = "operationshistory")
+@Table(name = "operationshistory", indexes = {
+    @Index(name = "operationshistory_target_idx", columnList = "target,operation,actor,endtime,outcome"),
+    @Index(name = "operationshistory_clname_idx", columnList = "closedLoopName,target,endtime,outcome"),
+    @Index(name = "operationshistory_endtime_idx", columnList = "endtime")
+})
+@NamedQueries({
+    @NamedQuery(name = Dbao.QUERY_COUNT_RECENT, query = "select count(e) from Dbao e"
+            + " where e.target = ?1 and e.operation = ?2 and e.actor = ?3"
+            + " and e.endtime between ?4 and CURRENT_TIMESTAMP"
+            + " and e.outcome <> 'Failure_Guard'"),
+    @NamedQuery(name = Dbao.QUERY_LAST_OUTCOME, query = "select e.outcome from Dbao e"
+            + " where e.closedLoopName = ?1 and e.target = ?2"
+            + " order by e.endtime desc"),
+    @NamedQuery(name = Dbao.QUERY_RECENT, query = "select e.id, e.actor, e.operation, e.target, e.endtime"
+            + " from Dbao e where e.endtime > ?1 and e.outcome <> 'Failure_Guard'")
+})
+@NamedNativeQuery(name = Dbao.QUERY_GUARD_HISTORY, query = "select"
+        + " (select count(c.id) from operationshistory c"
+        + " where c.target = ?1 and c.operation = ?2 and c.actor = ?3"
+        + " and c.endtime between ?4 and CURRENT_TIMESTAMP"
+        + " and c.outcome <> 'Failure_Guard'),"
+        + " (select o.outcome from operationshistory o"
+        + " where o.closedLoopName = ?5 and o.target = ?1"
+        + " order by o.endtime desc limit 1)")
 @Data
 public class Dbao implements Serializable {
 
     private static final long serialVersionUID = -551420180714993577L;
 
+    //
+    // Each query's columns are in the same order as the index it uses,
+    // equality matches first and then the endtime range. The outcome
+    // is carried in the index so counts do not need to read the rows.
+    //
+    public static final String QUERY_COUNT_RECENT = "Dbao.countRecentOperations";
+    public static final String QUERY_LAST_OUTCOME = "Dbao.getLastOutcome";
+    public static final String QUERY_RECENT = "Dbao.getRecentOperations";
+    //
+    // Both guard lookups for a target in one round trip, the count and
+    // the last outcome subqueries each use their own index
+    //
+    public static final String QUERY_GUARD_HISTORY = "Dbao.getGuardHistory";
+
     @Id
     @GeneratedValue
     @Column(name = "id")
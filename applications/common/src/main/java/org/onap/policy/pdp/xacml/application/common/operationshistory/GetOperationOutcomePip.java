@@ -29,12 +29,9 @@ import com.att.research.xacml.std.pip.StdPIPResponse;
 import com.google.common.base.Strings;
 
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collection;
 import java.util.Properties;
 
-import javax.persistence.Persistence;
-
 import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 import org.onap.policy.pdp.xacml.application.common.std.StdOnapPip;
 import org.slf4j.Logger;
@@ -58,32 +55,10 @@ public class GetOperationOutcomePip extends StdOnapPip {
     public void configure(String id, Properties properties) throws PIPException {
         super.configure(id, properties);
         //
-        // Create our entity manager
+        // Create our entity manager factory
         //
-        em = null;
-        try {
-            //
-            // In case there are any overloaded properties for the JPA
-            //
-            Properties emProperties = new Properties();
-            emProperties.putAll(properties);
-
-            //
-            // Need to decode the password before creating the EntityManager
-            //
-            String decodedPassword = new String(Base64.getDecoder()
-                    .decode(emProperties.getProperty("javax.persistence.jdbc.password")));
-            emProperties.setProperty("javax.persistence.jdbc.password", decodedPassword);
-
-            //
-            // Create the entity manager factory
-            //
-            em = Persistence.createEntityManagerFactory(
-                    properties.getProperty(ISSUER_NAME + ".persistenceunit"),
-                    emProperties).createEntityManager();
-        } catch (Exception e) {
-            logger.error("Persistence failed {} operations history db {}", e.getLocalizedMessage(), e);
-        }
+        configureEntityManagerFactory(ISSUER_NAME, properties);
+        configureQueries(ISSUER_NAME, properties);
     }
 
     /**
@@ -124,7 +99,16 @@ public class GetOperationOutcomePip extends StdOnapPip {
         target = getAttribute(pipFinder, PIP_REQUEST_TARGET);
 
         logger.debug("Going to query DB about: clname={}, target={}", clname, target);
-        String outcome = doDatabaseQuery(clname, target);
+        String outcome;
+        try {
+            outcome = queryOutcome(clname, target);
+        } catch (PIPException e) {
+            logger.error("No operation outcome {}", e.getLocalizedMessage());
+            if (isIndeterminateFallback()) {
+                return createFailedResponse("operation outcome is not available");
+            }
+            outcome = null;
+        }
         logger.debug("Query result is: {}", outcome);
 
         StdMutablePIPResponse pipResponse = new StdMutablePIPResponse();
@@ -136,34 +120,38 @@ public class GetOperationOutcomePip extends StdOnapPip {
         return new StdPIPResponse(pipResponse);
     }
 
+    /**
+     * Gets the outcome of the latest operation of the control loop on the target, the same
+     * as the PIP returns for a request with a "clname:clname" issuer.
+     *
+     * @param clname Control loop name
+     * @param target Target
+     * @return the outcome or null if there is none
+     */
+    public String getOperationOutcome(String clname, String target) {
+        return doDatabaseQuery(clname, target);
+    }
+
     private String doDatabaseQuery(String clname, String target) {
-        logger.info("Querying operations history for {} {}", clname, target);
-        //
-        // Only can query if we have an EntityManager
-        //
-        if (em == null) {
-            logger.error("No EntityManager available");
+        try {
+            return queryOutcome(clname, target);
+        } catch (PIPException e) {
+            logger.error("No operation outcome {}", e.getLocalizedMessage());
             return null;
         }
+    }
+
+    private String queryOutcome(String clname, String target) throws PIPException {
+        logger.info("Querying operations history for {} {}", clname, target);
         //
-        // Do the query
+        // We are expecting a single result
         //
-        try {
-            //
-            // We are expecting a single result
-            //
-            return em.createQuery("select e.outcome from Dbao e"
-                                  + " where e.closedLoopName= ?1"
-                                  + " and e.target= ?2"
-                                  + " order by e.endtime desc",
-                                  String.class)
+        return runQuery(Arrays.asList(ISSUER_NAME, clname, target),
+            em -> em.createNamedQuery(Dbao.QUERY_LAST_OUTCOME, String.class)
+                .setHint(QUERY_TIMEOUT_HINT, queryTimeout)
                 .setParameter(1, clname)
                 .setParameter(2, target)
                 .setMaxResults(1)
-                .getSingleResult();
-        } catch (Exception e) {
-            logger.error("Typed query failed ", e);
-            return null;
-        }
+                .getSingleResult());
     }
 }
@@ -0,0 +1,55 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The operations history a guard request looks up for its target, the number of recent
+ * operations and the outcome of the last operation of a control loop.
+ *
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class GuardHistory {
+
+    /**
+     * Number of operations within the time window, -1 if it was not looked up or the
+     * lookup failed.
+     */
+    private final long operationCount;
+
+    /**
+     * Outcome of the control loop's last operation, null if there is none or it was not
+     * looked up.
+     */
+    private final String operationOutcome;
+
+    /**
+     * True if the lookup failed.
+     */
+    private final boolean failed;
+}
@@ -0,0 +1,278 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.api.pip.PIPException;
+import com.att.research.xacml.api.pip.PIPFinder;
+import com.att.research.xacml.api.pip.PIPRequest;
+import com.att.research.xacml.api.pip.PIPResponse;
+import com.att.research.xacml.std.pip.StdMutablePIPResponse;
+import com.att.research.xacml.std.pip.StdPIPResponse;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
+import org.onap.policy.pdp.xacml.application.common.std.StdOnapPip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves both the operation count and the operation outcome guard attributes, for the same
+ * issuers as CountRecentOperationsPip and GetOperationOutcomePip, so it can be configured in
+ * place of the two. Both are read with a single query, getGuardHistory looks up the count and
+ * the outcome for a target in one round trip.
+ *
+ * <p>The engine hands the PIP its own finder for each decision. The histories are remembered
+ * for the finder, so a decision that needs both the count and the outcome only queries once.
+ *
+ */
+public class OperationsHistoryPip extends StdOnapPip {
+    public static final String ISSUER_NAME = "operations-history";
+    private static Logger logger = LoggerFactory.getLogger(OperationsHistoryPip.class);
+
+    private static final String COUNT_ISSUER = ToscaDictionary.GUARD_ISSUER_PREFIX
+            + CountRecentOperationsPip.ISSUER_NAME + ":tw:";
+    private static final String OUTCOME_ISSUER = ToscaDictionary.GUARD_ISSUER_PREFIX
+            + GetOperationOutcomePip.ISSUER_NAME + ":clname:";
+
+    //
+    // Histories looked up for each decision, by request finder. The finders are
+    // compared by identity and dropped once the decision no longer holds them.
+    //
+    private final Cache<PIPFinder, Map<List<Object>, GuardHistory>> decisions =
+            CacheBuilder.newBuilder().weakKeys().build();
+
+    //
+    // Time window and control loop of the last count and outcome looked up,
+    // the other attribute of a decision is most likely looked up with these
+    //
+    private volatile TimeWindow lastWindow;
+    private volatile String lastClname;
+
+    public OperationsHistoryPip() {
+        super();
+    }
+
+    @Override
+    public Collection<PIPRequest> attributesRequired() {
+        return Arrays.asList(PIP_REQUEST_ACTOR, PIP_REQUEST_RECIPE, PIP_REQUEST_TARGET);
+    }
+
+    @Override
+    public void configure(String id, Properties properties) throws PIPException {
+        super.configure(id, properties);
+        //
+        // Create our entity manager factory
+        //
+        configureEntityManagerFactory(ISSUER_NAME, properties);
+        configureQueries(ISSUER_NAME, properties);
+    }
+
+    /**
+     * getAttributes.
+     *
+     * @param pipRequest the request
+     * @param pipFinder the pip finder
+     * @return PIPResponse
+     */
+    @Override
+    public PIPResponse getAttributes(PIPRequest pipRequest, PIPFinder pipFinder) throws PIPException {
+        logger.debug("getAttributes requesting attribute {} of type {} for issuer {}",
+                pipRequest.getAttributeId(), pipRequest.getDataTypeId(), pipRequest.getIssuer());
+        //
+        // We only respond to the operation count and outcome issuers
+        //
+        String issuer = pipRequest.getIssuer();
+        if (Strings.isNullOrEmpty(issuer)) {
+            logger.debug("issuer is null - returning empty response");
+            return StdPIPResponse.PIP_RESPONSE_EMPTY;
+        }
+        if (ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT.equals(pipRequest.getAttributeId())
+                && issuer.startsWith(COUNT_ISSUER)) {
+            return getOperationCount(pipRequest, pipFinder, issuer.substring(COUNT_ISSUER.length()));
+        }
+        if (ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONOUTCOME.equals(pipRequest.getAttributeId())
+                && issuer.startsWith(OUTCOME_ISSUER)) {
+            return getOperationOutcome(pipRequest, pipFinder, issuer.substring(OUTCOME_ISSUER.length()));
+        }
+        logger.debug("Not an operations history issuer");
+        return StdPIPResponse.PIP_RESPONSE_EMPTY;
+    }
+
+    private PIPResponse getOperationCount(PIPRequest pipRequest, PIPFinder pipFinder, String timeWindow) {
+        //
+        // Parse out the time window eg. 10:minute
+        //
+        String[] parts = timeWindow.split(":");
+        int timeWindowVal;
+        try {
+            timeWindowVal = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid time window {}", timeWindow);
+            return StdPIPResponse.PIP_RESPONSE_EMPTY;
+        }
+        String timeWindowScale = parts.length > 1 ? parts[1] : null;
+        String actor = getAttribute(pipFinder, PIP_REQUEST_ACTOR);
+        String operation = getAttribute(pipFinder, PIP_REQUEST_RECIPE);
+        String target = getAttribute(pipFinder, PIP_REQUEST_TARGET);
+        if (actor == null || operation == null || target == null || timeWindowScale == null) {
+            logger.error("missing attributes return empty");
+            return StdPIPResponse.PIP_RESPONSE_EMPTY;
+        }
+        GuardHistory history = lookupGuardHistory(pipFinder, actor, operation, target,
+                new TimeWindow(timeWindowVal, timeWindowScale), null);
+        if (history.isFailed() && isIndeterminateFallback()) {
+            return createFailedResponse("operation count is not available");
+        }
+        StdMutablePIPResponse pipResponse = new StdMutablePIPResponse();
+        this.addLongAttribute(pipResponse,
+                XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE,
+                ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT,
+                history.getOperationCount(),
+                pipRequest);
+        return new StdPIPResponse(pipResponse);
+    }
+
+    private PIPResponse getOperationOutcome(PIPRequest pipRequest, PIPFinder pipFinder, String clname) {
+        String target = getAttribute(pipFinder, PIP_REQUEST_TARGET);
+        if (target == null) {
+            logger.error("missing target return empty");
+            return StdPIPResponse.PIP_RESPONSE_EMPTY;
+        }
+        GuardHistory history = lookupGuardHistory(pipFinder, getAttribute(pipFinder, PIP_REQUEST_ACTOR),
+                getAttribute(pipFinder, PIP_REQUEST_RECIPE), target, null, clname);
+        if (history.isFailed() && isIndeterminateFallback()) {
+            return createFailedResponse("operation outcome is not available");
+        }
+        StdMutablePIPResponse pipResponse = new StdMutablePIPResponse();
+        this.addStringAttribute(pipResponse,
+                XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE,
+                ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONOUTCOME,
+                history.getOperationOutcome(),
+                pipRequest);
+        return new StdPIPResponse(pipResponse);
+    }
+
+    /**
+     * Looks up either the count, with a time window, or the outcome, with a control loop, for
+     * a decision. The other attribute is looked up along with it, for the last time window or
+     * control loop looked up, and both are remembered for the rest of the decision.
+     */
+    private GuardHistory lookupGuardHistory(PIPFinder pipFinder, String actor, String operation, String target,
+            TimeWindow window, String clname) {
+        List<Object> key = window == null ? Arrays.asList(target, clname)
+                : Arrays.asList(actor, operation, target, window.value, window.scale);
+        Map<List<Object>, GuardHistory> histories =
+                decisions.asMap().computeIfAbsent(pipFinder, finder -> new ConcurrentHashMap<>());
+        GuardHistory history = histories.get(key);
+        if (history != null) {
+            return history;
+        }
+        TimeWindow countWindow = window;
+        String outcomeClname = clname;
+        if (window == null) {
+            countWindow = actor == null || operation == null ? null : lastWindow;
+            lastClname = clname;
+        } else {
+            outcomeClname = lastClname;
+            lastWindow = window;
+        }
+        history = countWindow == null ? getGuardHistory(null, null, target, 0, null, outcomeClname)
+                : getGuardHistory(actor, operation, target, countWindow.value, countWindow.scale, outcomeClname);
+        if (countWindow != null) {
+            histories.put(Arrays.asList(actor, operation, target, countWindow.value, countWindow.scale),
+                    new GuardHistory(history.getOperationCount(), null, history.isFailed()));
+        }
+        if (outcomeClname != null) {
+            histories.put(Arrays.asList(target, outcomeClname),
+                    new GuardHistory(-1, history.getOperationOutcome(), history.isFailed()));
+        }
+        return histories.get(key);
+    }
+
+    /**
+     * Looks up the number of recent operations on the target and the outcome of the control
+     * loop's last operation on it, with a single query. Either one can be left out.
+     *
+     * @param actor Actor, null to leave out the count
+     * @param operation Operation
+     * @param target Target
+     * @param timeWindowVal Time window value
+     * @param timeWindowScale Time window scale eg. minute, null to leave out the count
+     * @param clname Control loop name, null to leave out the outcome
+     * @return GuardHistory object
+     */
+    public GuardHistory getGuardHistory(String actor, String operation, String target, int timeWindowVal,
+            String timeWindowScale, String clname) {
+        Duration window = actor == null || operation == null || timeWindowScale == null ? null
+                : CountRecentOperationsPip.stringToTimeWindow(timeWindowVal, timeWindowScale);
+        logger.info("Querying operations history for {} {} {} {} {} {}",
+                actor, operation, target, timeWindowVal, timeWindowScale, clname);
+        if (window == null && clname == null) {
+            //
+            // The time window is not valid and there is nothing else to look up
+            //
+            return new GuardHistory(-1, null, false);
+        }
+        Timestamp since = Timestamp.from(window == null ? Instant.now() : Instant.now().minus(window));
+        try {
+            Object[] row = runQuery(Arrays.asList(ISSUER_NAME, actor, operation, target, timeWindowVal,
+                    timeWindowScale == null ? null : timeWindowScale.toLowerCase(), clname),
+                em -> (Object[]) em.createNamedQuery(Dbao.QUERY_GUARD_HISTORY)
+                    .setHint(QUERY_TIMEOUT_HINT, queryTimeout)
+                    .setParameter(1, target)
+                    .setParameter(2, operation)
+                    .setParameter(3, actor)
+                    .setParameter(4, since)
+                    .setParameter(5, clname)
+                    .getSingleResult());
+            long count = window != null && row[0] instanceof Number ? ((Number) row[0]).longValue() : -1;
+            return new GuardHistory(count, row[1] == null ? null : row[1].toString(), false);
+        } catch (PIPException e) {
+            logger.error("No operations history {}", e.getLocalizedMessage());
+            return new GuardHistory(-1, null, true);
+        }
+    }
+
+    private static class TimeWindow {
+        private final int value;
+        private final String scale;
+
+        private TimeWindow(int value, String scale) {
+            this.value = value;
+            this.scale = scale;
+        }
+    }
+}
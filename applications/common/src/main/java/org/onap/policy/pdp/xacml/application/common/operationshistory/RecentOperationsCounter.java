@@ -0,0 +1,265 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts recent operations in memory. Each actor, operation and target has a ring of
+ * time buckets holding the number of operations that ended in that bucket. The counters
+ * are loaded from the operations history table when started and then kept up to date by
+ * polling for the rows that ended since the last poll.
+ *
+ * <p>Counts are made from whole buckets, so the oldest bucket in a time window is counted
+ * entirely and a count can include operations that ended up to one bucket before the window.
+ *
+ * <p>The counters only answer while the polls keep succeeding. Once the last successful poll
+ * is a few poll intervals old they may be missing operations, so they stop answering and
+ * the counts are queried from the database until a poll succeeds again.
+ *
+ */
+public class RecentOperationsCounter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecentOperationsCounter.class);
+    private static final int STALE_POLLS = 3;
+
+    private final EntityManagerFactory emf;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long pollMillis;
+    private final long overlapMillis;
+    private final Map<List<String>, Ring> rings = new ConcurrentHashMap<>();
+
+    //
+    // Rows ending within the overlap are read again by the next poll, in case
+    // they were committed after a row that ended later. Their ids are kept so
+    // they are only counted once. Only used by the polling thread.
+    //
+    private final Map<Long, Long> recentIds = new HashMap<>();
+    private long watermark;
+
+    private ScheduledExecutorService poller;
+    //
+    // Time of the last successful poll, 0 until the counters are loaded
+    //
+    private volatile long lastPollMillis = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param emf EntityManagerFactory for the operations history
+     * @param bucketMillis Time covered by each bucket in milliseconds
+     * @param retentionMillis Time covered by the counters in milliseconds
+     * @param pollMillis Time between polls in milliseconds
+     */
+    public RecentOperationsCounter(EntityManagerFactory emf, long bucketMillis, long retentionMillis,
+            long pollMillis) {
+        this.emf = emf;
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount(bucketMillis, retentionMillis);
+        this.pollMillis = pollMillis;
+        this.overlapMillis = Math.max(pollMillis, bucketMillis);
+    }
+
+    /**
+     * Loads the counters and starts polling for new operations.
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RecentOperationsCounter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watermark = System.currentTimeMillis() - bucketMillis * bucketCount;
+        poller.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling.
+     */
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        lastPollMillis = 0;
+    }
+
+    /**
+     * Checks whether the counter has the given settings.
+     *
+     * @param bucketMillis Time covered by each bucket in milliseconds
+     * @param retentionMillis Time covered by the counters in milliseconds
+     * @param pollMillis Time between polls in milliseconds
+     * @return true if the settings are the same as this counter's
+     */
+    public boolean hasSettings(long bucketMillis, long retentionMillis, long pollMillis) {
+        return this.bucketMillis == bucketMillis && this.bucketCount == bucketCount(bucketMillis, retentionMillis)
+                && this.pollMillis == pollMillis;
+    }
+
+    private static int bucketCount(long bucketMillis, long retentionMillis) {
+        return (int) Math.max(1, (retentionMillis + bucketMillis - 1) / bucketMillis);
+    }
+
+    /**
+     * Counts the operations that ended within the time window.
+     *
+     * @param actor Actor
+     * @param operation Operation
+     * @param target Target
+     * @param window Time window
+     * @return the count or -1 if the counters are not loaded, are stale or do not cover the window
+     */
+    public long count(String actor, String operation, String target, Duration window) {
+        if (!isLoaded() || window.toMillis() > bucketMillis * bucketCount) {
+            return -1;
+        }
+        Ring ring = rings.get(Arrays.asList(actor, operation, target));
+        if (ring == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        return ring.sum((now - window.toMillis()) / bucketMillis, now / bucketMillis);
+    }
+
+    /**
+     * Counts an operation that ended at the given time.
+     *
+     * @param actor Actor
+     * @param operation Operation
+     * @param target Target
+     * @param endtime Time the operation ended in milliseconds
+     */
+    public void add(String actor, String operation, String target, long endtime) {
+        rings.computeIfAbsent(Arrays.asList(actor, operation, target), key -> new Ring(bucketCount))
+            .add(endtime / bucketMillis);
+    }
+
+    /**
+     * Checks whether the counters are loaded and the last poll succeeded recently.
+     *
+     * @return true if the counters can be used
+     */
+    public boolean isLoaded() {
+        long last = lastPollMillis;
+        return last > 0 && System.currentTimeMillis() - last <= STALE_POLLS * pollMillis;
+    }
+
+    protected void poll() {
+        EntityManager em = null;
+        try {
+            em = emf.createEntityManager();
+            List<Object[]> rows = em.createNamedQuery(Dbao.QUERY_RECENT, Object[].class)
+                    .setParameter(1, new Date(watermark - overlapMillis))
+                    .getResultList();
+            long newWatermark = watermark;
+            for (Object[] row : rows) {
+                long endtime = ((Date) row[4]).getTime();
+                if (recentIds.put((Long) row[0], endtime) == null) {
+                    add((String) row[1], (String) row[2], (String) row[3], endtime);
+                }
+                newWatermark = Math.max(newWatermark, endtime);
+            }
+            watermark = newWatermark;
+            expire();
+            lastPollMillis = System.currentTimeMillis();
+        } catch (Exception e) {
+            LOGGER.error("Failed to poll operations history", e);
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    private void expire() {
+        long oldest = watermark - overlapMillis;
+        recentIds.values().removeIf(endtime -> endtime <= oldest);
+        long oldestBucket = System.currentTimeMillis() / bucketMillis - bucketCount;
+        Iterator<Ring> iter = rings.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().isExpired(oldestBucket)) {
+                iter.remove();
+            }
+        }
+    }
+
+    private static class Ring {
+        private final long[] buckets;
+        private final long[] counts;
+        private long newest = Long.MIN_VALUE;
+
+        private Ring(int size) {
+            this.buckets = new long[size];
+            this.counts = new long[size];
+            Arrays.fill(this.buckets, Long.MIN_VALUE);
+        }
+
+        private synchronized void add(long bucket) {
+            int index = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (buckets[index] == bucket) {
+                counts[index]++;
+            } else if (buckets[index] < bucket) {
+                //
+                // Reuse the slot of an expired bucket
+                //
+                buckets[index] = bucket;
+                counts[index] = 1;
+            }
+            newest = Math.max(newest, bucket);
+        }
+
+        private synchronized long sum(long from, long to) {
+            long sum = 0;
+            for (int index = 0; index < buckets.length; index++) {
+                if (buckets[index] >= from && buckets[index] <= to) {
+                    sum += counts[index];
+                }
+            }
+            return sum;
+        }
+
+        private synchronized boolean isExpired(long oldestBucket) {
+            return newest < oldestBucket;
+        }
+    }
+}
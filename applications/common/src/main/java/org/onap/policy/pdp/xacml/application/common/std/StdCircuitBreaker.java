@@ -0,0 +1,224 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for the queries a PIP makes. The breaker opens after a number of consecutive
+ * failed or slow queries, and while it is open queries are rejected straight away. Once the
+ * open time is up a single trial query is let through, the breaker closes again if it succeeds
+ * and stays open otherwise.
+ *
+ * <p>Breakers are registered by name so their state outlives the PIP instances, which are
+ * created again for every new engine.
+ *
+ */
+public class StdCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Map<String, StdCircuitBreaker> breakers = new TreeMap<>();
+
+    private final String name;
+    private int threshold;
+    private long openNanos;
+    private long slowNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+
+    private long queryCount = 0;
+    private long failureCount = 0;
+    private long slowCount = 0;
+    private long rejectedCount = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    private StdCircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the breaker registered with the name, creating it if needed, and applies the settings.
+     *
+     * @param name Breaker name
+     * @param threshold Number of consecutive failed or slow queries that open the breaker
+     * @param openMillis Time in milliseconds the breaker stays open
+     * @param slowMillis Queries taking longer than this are counted as slow, 0 for none
+     * @return StdCircuitBreaker object
+     */
+    public static StdCircuitBreaker getInstance(String name, int threshold, long openMillis, long slowMillis) {
+        StdCircuitBreaker breaker;
+        synchronized (breakers) {
+            breaker = breakers.computeIfAbsent(name, StdCircuitBreaker::new);
+        }
+        breaker.configure(threshold, openMillis, slowMillis);
+        return breaker;
+    }
+
+    /**
+     * Returns the registered breakers.
+     *
+     * @return read-only map of breakers by name
+     */
+    public static Map<String, StdCircuitBreaker> getBreakers() {
+        synchronized (breakers) {
+            return Collections.unmodifiableMap(new TreeMap<>(breakers));
+        }
+    }
+
+    private synchronized void configure(int threshold, long openMillis, long slowMillis) {
+        this.threshold = threshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+    }
+
+    /**
+     * Checks whether a query may go ahead.
+     *
+     * @return true if the query may go ahead, false if it is rejected
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            //
+            // Let a single trial query through
+            //
+            state = State.HALF_OPEN;
+            return true;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        rejectedCount++;
+        return false;
+    }
+
+    /**
+     * Records a query that completed.
+     *
+     * @param elapsedNanos Time the query took
+     */
+    public synchronized void recordSuccess(long elapsedNanos) {
+        record(elapsedNanos);
+        if (slowNanos > 0 && elapsedNanos > slowNanos) {
+            slowCount++;
+            trip();
+            return;
+        }
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a query that failed.
+     *
+     * @param elapsedNanos Time the query took
+     */
+    public synchronized void recordFailure(long elapsedNanos) {
+        record(elapsedNanos);
+        failureCount++;
+        trip();
+    }
+
+    /**
+     * Records a query that did not get to the database, eg. it could not be built. It does
+     * not count for or against the breaker, a trial query is just left to the next query.
+     */
+    public synchronized void recordIgnored() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    private void record(long elapsedNanos) {
+        queryCount++;
+        totalNanos += elapsedNanos;
+        maxNanos = Math.max(maxNanos, elapsedNanos);
+    }
+
+    private void trip() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (threshold > 0 && consecutiveFailures >= threshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getQueryCount() {
+        return queryCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    public synchronized long getSlowCount() {
+        return slowCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the average time queries took.
+     *
+     * @return average time in milliseconds
+     */
+    public synchronized double getAverageMillis() {
+        return queryCount == 0 ? 0 : (double) totalNanos / queryCount / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the time all the queries took.
+     *
+     * @return total time in milliseconds
+     */
+    public synchronized double getTotalMillis() {
+        return (double) totalNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the longest time a query took.
+     *
+     * @return maximum time in milliseconds
+     */
+    public synchronized double getMaxMillis() {
+        return (double) maxNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
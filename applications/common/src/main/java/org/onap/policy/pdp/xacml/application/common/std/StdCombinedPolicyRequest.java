@@ -22,20 +22,26 @@
 
 package org.onap.policy.pdp.xacml.application.common.std;
 
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.XACML3;
 import com.att.research.xacml.std.annotations.XACMLAction;
 import com.att.research.xacml.std.annotations.XACMLRequest;
 import com.att.research.xacml.std.annotations.XACMLResource;
 import com.att.research.xacml.std.annotations.XACMLSubject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeSet;
 
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
 import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 
 @Getter
 @Setter
@@ -111,16 +117,48 @@ public class StdCombinedPolicyRequest {
         return request;
     }
 
+    /**
+     * Builds the XACML request for this object. It is the request RequestParser creates from
+     * the annotations, built without reflection.
+     *
+     * @return Request object
+     */
+    public Request toXacmlRequest() {
+        return new StdXacmlRequestBuilder().returnPolicyIdList(true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_NAME, onapName, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_COMPONENT, onapComponent, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_INSTANCE, onapInstance, true)
+                .action(XACML3.ID_ACTION_ACTION_ID, action, false)
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_ID, resource, true)
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_TYPE, resourcePolicyType, true)
+                .build();
+    }
+
+    /**
+     * Creates a normalized key for caching the decision made on this request. The
+     * order of, and duplicates in, the policy ids and types do not change the decision.
+     *
+     * @return key for the decision
+     */
+    public List<Object> createCacheKey() {
+        return Arrays.asList(onapName, onapComponent, onapInstance, action, new TreeSet<>(resource),
+                new TreeSet<>(resourcePolicyType));
+    }
+
     private static StdCombinedPolicyRequest addPolicyIds(StdCombinedPolicyRequest request, Collection<Object> ids) {
         for (Object id : ids) {
-            request.resource.add(id.toString());
+            if (id != null) {
+                request.resource.add(id.toString());
+            }
         }
         return request;
     }
 
     private static StdCombinedPolicyRequest addPolicyTypes(StdCombinedPolicyRequest request, Collection<Object> types) {
         for (Object type : types) {
-            request.resourcePolicyType.add(type.toString());
+            if (type != null) {
+                request.resourcePolicyType.add(type.toString());
+            }
         }
         return request;
     }
@@ -23,15 +23,12 @@
 package org.onap.policy.pdp.xacml.application.common.std;
 
 import com.att.research.xacml.api.AttributeAssignment;
-import com.att.research.xacml.api.DataTypeException;
 import com.att.research.xacml.api.Decision;
 import com.att.research.xacml.api.Obligation;
 import com.att.research.xacml.api.Request;
 import com.att.research.xacml.api.Response;
 import com.att.research.xacml.api.Result;
 import com.att.research.xacml.api.XACML3;
-import com.att.research.xacml.std.annotations.RequestParser;
-import com.google.gson.Gson;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -115,6 +112,7 @@ public class StdCombinedPolicyResultsTranslator implements ToscaPolicyTranslator
             LOGGER.error("Failed to encode policy to json", e);
             throw new ToscaPolicyConversionException(e);
         }
+        StdEncodedPolicy.fromJson(jsonPolicy);
         addObligation(rule, jsonPolicy);
         //
         // Add the rule to the policy
@@ -128,21 +126,17 @@ public class StdCombinedPolicyResultsTranslator implements ToscaPolicyTranslator
 
     @Override
     public Request convertRequest(DecisionRequest request) {
-        LOGGER.info("Converting Request {}", request);
-        try {
-            return RequestParser.parseRequest(StdCombinedPolicyRequest.createInstance(request));
-        } catch (IllegalArgumentException | IllegalAccessException | DataTypeException e) {
-            LOGGER.error("Failed to convert DecisionRequest: {}", e);
-        }
+        LOGGER.debug("Converting Request {}", request);
         //
-        // TODO throw exception
+        // Build the request directly rather than through RequestParser, which
+        // scans the annotations of the request class on every call.
         //
-        return null;
+        return StdCombinedPolicyRequest.createInstance(request).toXacmlRequest();
     }
 
     @Override
     public DecisionResponse convertResponse(Response xacmlResponse) {
-        LOGGER.info("Converting Response {}", xacmlResponse);
+        LOGGER.debug("Converting Response {}", xacmlResponse);
         DecisionResponse decisionResponse = new DecisionResponse();
         //
         // Setup policies
@@ -175,9 +169,9 @@ public class StdCombinedPolicyResultsTranslator implements ToscaPolicyTranslator
 
     protected void scanObligations(Collection<Obligation> obligations, DecisionResponse decisionResponse) {
         for (Obligation obligation : obligations) {
-            LOGGER.info("Obligation: {}", obligation);
+            LOGGER.debug("Obligation: {}", obligation);
             for (AttributeAssignment assignment : obligation.getAttributeAssignments()) {
-                LOGGER.info("Attribute Assignment: {}", assignment);
+                LOGGER.debug("Attribute Assignment: {}", assignment);
                 //
                 // We care about the content attribute
                 //
@@ -187,15 +181,17 @@ public class StdCombinedPolicyResultsTranslator implements ToscaPolicyTranslator
                     // The contents are in Json form
                     //
                     Object stringContents = assignment.getAttributeValue().getValue();
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("DCAE contents: {}{}", System.lineSeparator(), stringContents);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("DCAE contents: {}{}", System.lineSeparator(), stringContents);
                     }
                     //
-                    // Let's parse it into a map using Gson
+                    // Use the map parsed when the policy was converted, only parse
+                    // it here if that was not done by us (eg. loaded from disk).
                     //
-                    Gson gson = new Gson();
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> result = gson.fromJson(stringContents.toString() ,Map.class);
+                    StdEncodedPolicy result = StdEncodedPolicy.fromJson(stringContents.toString());
+                    if (result == null) {
+                        continue;
+                    }
                     //
                     // Find the metadata section
                     //
@@ -0,0 +1,221 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of decisions an application makes at the same time. Decisions over the
+ * limit are rejected straight away, rather than queueing behind the ones already running.
+ *
+ * <p>Given a latency target the limit adapts to how long the decisions take. Each decision
+ * within the target raises the limit by a fraction, about one more decision for every limit
+ * decisions made, while the limit is in use. A decision over the target lowers it by the
+ * backoff ratio, at most once per target period so the decisions that were already running
+ * when the latency went up do not lower it again. The decisions of a batch are each given
+ * their share of the time the batch took.
+ *
+ */
+public class StdConcurrencyLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StdConcurrencyLimiter.class);
+
+    public static final String PROP_LIMIT = "xacml.onap.admission.limit";
+    public static final String PROP_MIN_LIMIT = "xacml.onap.admission.minLimit";
+    public static final String PROP_MAX_LIMIT = "xacml.onap.admission.maxLimit";
+    public static final String PROP_LATENCY_TARGET = "xacml.onap.admission.latencyTargetMillis";
+    public static final String PROP_BACKOFF_RATIO = "xacml.onap.admission.backoffRatio";
+    public static final String PROP_RETRY_AFTER = "xacml.onap.admission.retryAfterSeconds";
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    public static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final String application;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final long retryAfterSeconds;
+
+    private double limit;
+    private int inFlight = 0;
+    private long lastBackoffAt;
+    private long admittedCount = 0;
+    private long rejectedCount = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param application Application name
+     * @param limit Initial limit
+     * @param minLimit Lowest the limit goes
+     * @param maxLimit Highest the limit goes
+     * @param latencyTargetMillis Latency target in milliseconds, 0 to keep the limit fixed
+     * @param backoffRatio The limit is multiplied by this when a decision is over the target
+     * @param retryAfterSeconds Time in seconds rejected clients are told to wait
+     */
+    public StdConcurrencyLimiter(String application, int limit, int minLimit, int maxLimit, long latencyTargetMillis,
+            double backoffRatio, long retryAfterSeconds) {
+        this.application = application;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(limit, this.maxLimit));
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.backoffRatio = backoffRatio;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.lastBackoffAt = System.nanoTime() - this.latencyTargetNanos;
+    }
+
+    /**
+     * Creates the limiter of an application from its properties.
+     *
+     * @param application Application name
+     * @param properties Application properties
+     * @return StdConcurrencyLimiter object or null if the decisions are not limited
+     */
+    public static StdConcurrencyLimiter create(String application, Properties properties) {
+        int limit = Integer.parseInt(properties.getProperty(PROP_LIMIT, "0"));
+        if (limit <= 0) {
+            return null;
+        }
+        StdConcurrencyLimiter limiter = new StdConcurrencyLimiter(application, limit,
+                Integer.parseInt(properties.getProperty(PROP_MIN_LIMIT, Integer.toString(DEFAULT_MIN_LIMIT))),
+                Integer.parseInt(properties.getProperty(PROP_MAX_LIMIT, Integer.toString(limit))),
+                Long.parseLong(properties.getProperty(PROP_LATENCY_TARGET, "0")),
+                Double.parseDouble(properties.getProperty(PROP_BACKOFF_RATIO, Double.toString(DEFAULT_BACKOFF_RATIO))),
+                Long.parseLong(properties.getProperty(PROP_RETRY_AFTER, Long.toString(DEFAULT_RETRY_AFTER_SECONDS))));
+        LOGGER.info("Limiting the {} decisions to {} between {} and {} latency target {}ms", application,
+                limit, limiter.minLimit, limiter.maxLimit, TimeUnit.NANOSECONDS.toMillis(limiter.latencyTargetNanos));
+        return limiter;
+    }
+
+    /**
+     * Admits a decision if the limit allows it. Every decision admitted must be released.
+     *
+     * @return true if the decision is admitted, false if it is rejected
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Admits a batch of decisions if the limit allows all of them, each decision of the batch
+     * counts against the limit. A batch larger than the limit is only admitted when no other
+     * decision is being made. Every batch admitted must be released with the same number of
+     * decisions.
+     *
+     * @param decisions Number of decisions in the batch
+     * @return true if the batch is admitted, false if it is rejected
+     */
+    public synchronized boolean tryAcquire(int decisions) {
+        if (inFlight > 0 && inFlight + decisions > (int) limit) {
+            rejectedCount += decisions;
+            return false;
+        }
+        inFlight += decisions;
+        admittedCount += decisions;
+        return true;
+    }
+
+    /**
+     * Releases a decision that was made, adapting the limit to the time it took.
+     *
+     * @param elapsedNanos Time the decision took
+     */
+    public void release(long elapsedNanos) {
+        release(1, elapsedNanos);
+    }
+
+    /**
+     * Releases a batch of decisions that were made, adapting the limit to the time each
+     * decision took, its share of the time the whole batch took. A large batch taking long
+     * as a whole does not lower the limit when its decisions are within the target.
+     *
+     * @param decisions Number of decisions in the batch
+     * @param elapsedNanos Time the batch took
+     */
+    public synchronized void release(int decisions, long elapsedNanos) {
+        //
+        // Only raise the limit when it is being used, otherwise a quiet
+        // period would raise it without knowing if it can be sustained.
+        //
+        boolean limited = 2 * inFlight >= (int) limit;
+        inFlight -= decisions;
+        if (latencyTargetNanos <= 0) {
+            return;
+        }
+        if (elapsedNanos / Math.max(1, decisions) > latencyTargetNanos) {
+            long now = System.nanoTime();
+            if (now - lastBackoffAt >= latencyTargetNanos) {
+                lastBackoffAt = now;
+                limit = Math.max(minLimit, limit * backoffRatio);
+            }
+        } else if (limited) {
+            limit = Math.min(maxLimit, limit + decisions / limit);
+        }
+    }
+
+    /**
+     * Releases a decision that was admitted but not made, leaving the limit as it is.
+     */
+    public void cancel() {
+        cancel(1);
+    }
+
+    /**
+     * Releases a batch of decisions that was admitted but not made, leaving the limit as it is.
+     *
+     * @param decisions Number of decisions in the batch
+     */
+    public synchronized void cancel(int decisions) {
+        inFlight -= decisions;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,311 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import com.att.research.xacml.api.Response;
+import com.att.research.xacml.api.Result;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.models.decisions.concepts.DecisionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Audit log of the decisions an application makes. The request thread only adds a record of
+ * a sample of the decisions to a bounded queue, without locking, and a background thread
+ * writes them in batches, one Json line per decision, to a file that is rotated once it
+ * grows too big. Records that do not fit in the queue are dropped and counted.
+ *
+ */
+public class StdDecisionAudit {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StdDecisionAudit.class);
+    private static final Gson GSON = new Gson();
+
+    public static final String PROP_FILE = "xacml.onap.audit.file";
+    public static final String PROP_SAMPLE_RATE = "xacml.onap.audit.sampleRate";
+    public static final String PROP_CAPACITY = "xacml.onap.audit.capacity";
+    public static final String PROP_MAX_FILE_SIZE = "xacml.onap.audit.maxFileSize";
+    public static final String PROP_MAX_FILES = "xacml.onap.audit.maxFiles";
+    public static final double DEFAULT_SAMPLE_RATE = 1.0;
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_FILE_SIZE = 10L * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 5;
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String application;
+    private final Path file;
+    private final double sampleRate;
+    private final int capacity;
+    private final long maxFileSize;
+    private final int maxFiles;
+
+    private final Queue<Record> records = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder sampledCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private Writer writer;
+    private long fileSize;
+
+    private StdDecisionAudit(String application, Path file, double sampleRate, int capacity, long maxFileSize,
+            int maxFiles) {
+        this.application = application;
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.capacity = capacity;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.writerThread = new Thread(this::writeRecords, "xacml-decision-audit-" + application);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates the audit log of an application from its properties.
+     *
+     * @param application Application name
+     * @param dataPath Application data path, relative audit files are in this path
+     * @param properties Application properties
+     * @return StdDecisionAudit object or null if the decisions are not audited
+     */
+    public static StdDecisionAudit create(String application, Path dataPath, Properties properties) {
+        String fileName = properties.getProperty(PROP_FILE);
+        double sampleRate = Double.parseDouble(
+                properties.getProperty(PROP_SAMPLE_RATE, Double.toString(DEFAULT_SAMPLE_RATE)));
+        if (fileName == null || fileName.isEmpty() || sampleRate <= 0) {
+            return null;
+        }
+        Path file = Paths.get(fileName);
+        if (! file.isAbsolute()) {
+            file = dataPath.resolve(file);
+        }
+        LOGGER.info("Auditing {} of the {} decisions in {}", sampleRate, application, file);
+        return new StdDecisionAudit(application, file, sampleRate,
+                Integer.parseInt(properties.getProperty(PROP_CAPACITY, Integer.toString(DEFAULT_CAPACITY))),
+                Long.parseLong(properties.getProperty(PROP_MAX_FILE_SIZE, Long.toString(DEFAULT_MAX_FILE_SIZE))),
+                Integer.parseInt(properties.getProperty(PROP_MAX_FILES, Integer.toString(DEFAULT_MAX_FILES))));
+    }
+
+    /**
+     * Adds a decision to the audit log, if it is in the sample and there is room for it.
+     *
+     * @param request Incoming request
+     * @param response Decision response
+     * @param xacmlResponse XACML response, may be null
+     */
+    public void audit(DecisionRequest request, DecisionResponse response, Response xacmlResponse) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        sampledCount.increment();
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            droppedCount.increment();
+            return;
+        }
+        records.add(new Record(System.currentTimeMillis(), request, response, xacmlResponse));
+    }
+
+    /**
+     * Stops the background writer, once it has written the records already queued.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted closing the decision audit", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isRunning() {
+        return writerThread.isAlive();
+    }
+
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    private void writeRecords() {
+        List<Record> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || ! records.isEmpty()) {
+            Record record;
+            while (batch.size() < BATCH_SIZE && (record = records.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            queued.addAndGet(-batch.size());
+            writeBatch(batch);
+            batch.clear();
+        }
+        closeWriter();
+    }
+
+    private void writeBatch(List<Record> batch) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+                fileSize = Files.size(file);
+            }
+            for (Record record : batch) {
+                String line = record.toJson(application);
+                writer.write(line);
+                writer.write(System.lineSeparator());
+                //
+                // Close enough for deciding when to rotate
+                //
+                fileSize += line.length() + 1L;
+            }
+            writer.flush();
+            writtenCount.add(batch.size());
+            if (fileSize >= maxFileSize) {
+                rotate();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to write {} decision audit records to {}", batch.size(), file, e);
+            droppedCount.add(batch.size());
+            closeWriter();
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeWriter();
+        //
+        // file.1 is the most recent, the oldest is deleted
+        //
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int index = maxFiles - 1; index >= 1; index--) {
+            if (Files.exists(rotated(index))) {
+                Files.move(rotated(index), rotated(index + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close decision audit file {}", file, e);
+        }
+        writer = null;
+    }
+
+    private static class Record {
+        private final long timestamp;
+        private final DecisionRequest request;
+        private final DecisionResponse response;
+        private final Response xacmlResponse;
+
+        private Record(long timestamp, DecisionRequest request, DecisionResponse response, Response xacmlResponse) {
+            this.timestamp = timestamp;
+            this.request = request;
+            this.response = response;
+            this.xacmlResponse = xacmlResponse;
+        }
+
+        private String toJson(String application) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("timestamp", timestamp);
+            line.put("application", application);
+            line.put("requestId", request.getRequestId());
+            line.put("onapName", request.getOnapName());
+            line.put("onapComponent", request.getOnapComponent());
+            line.put("action", request.getAction());
+            line.put("resource", request.getResource());
+            if (xacmlResponse != null) {
+                List<String> decisions = new ArrayList<>();
+                for (Result result : xacmlResponse.getResults()) {
+                    decisions.add(String.valueOf(result.getDecision()));
+                }
+                line.put("decisions", decisions);
+            }
+            if (response != null) {
+                line.put("status", response.getStatus());
+                line.put("message", response.getMessage());
+                if (response.getPolicies() != null) {
+                    line.put("policies", new ArrayList<>(response.getPolicies().keySet()));
+                }
+            }
+            return GSON.toJson(line);
+        }
+    }
+}
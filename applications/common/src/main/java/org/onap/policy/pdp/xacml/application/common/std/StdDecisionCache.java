@@ -0,0 +1,134 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import com.att.research.xacml.api.Response;
+import com.att.research.xacml.std.StdResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.onap.policy.models.decisions.concepts.DecisionResponse;
+
+/**
+ * Size bounded cache of decisions. Each decision is stored along with the generation
+ * of the policy set it was made against, a decision made against any other generation
+ * is treated as a miss.
+ *
+ * <p>The cache keeps its own copy of each decision and hands out a new copy on every hit,
+ * so a caller changing the response it was given does not change what later hits see.
+ * Only the maps of the response are copied, the policy contents in them are read-only.
+ *
+ */
+public class StdDecisionCache {
+
+    public static final String PROP_MAX_SIZE = "xacml.onap.decisionCache.maxSize";
+    public static final long DEFAULT_MAX_SIZE = 1000;
+
+    private final Cache<Object, CachedDecision> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize Maximum number of decisions to keep
+     */
+    public StdDecisionCache(long maxSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * Returns the cached decision.
+     *
+     * @param key Normalized request key
+     * @param generation Current policy set generation
+     * @return the decision or null if there is no decision for the current generation
+     */
+    public Pair<DecisionResponse, Response> get(Object key, long generation) {
+        CachedDecision cached = this.cache.getIfPresent(key);
+        if (cached == null || cached.generation != generation) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return Pair.of(copy(cached.response), cached.xacmlResponse);
+    }
+
+    /**
+     * Caches the decision.
+     *
+     * @param key Normalized request key
+     * @param generation Policy set generation the decision was made against
+     * @param decision the decision
+     */
+    public void put(Object key, long generation, Pair<DecisionResponse, Response> decision) {
+        this.cache.put(key, new CachedDecision(generation, copy(decision.getKey()),
+                new StdResponse(decision.getValue().getResults())));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    private static DecisionResponse copy(DecisionResponse response) {
+        DecisionResponse copy = new DecisionResponse();
+        copy.setStatus(response.getStatus());
+        copy.setMessage(response.getMessage());
+        copy.setAdvice(copy(response.getAdvice()));
+        copy.setObligations(copy(response.getObligations()));
+        copy.setPolicies(copy(response.getPolicies()));
+        return copy;
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> map) {
+        return map == null ? null : new HashMap<>(map);
+    }
+
+    private static class CachedDecision {
+        private final long generation;
+        private final DecisionResponse response;
+        //
+        // Read-only copy of the results
+        //
+        private final Response xacmlResponse;
+
+        private CachedDecision(long generation, DecisionResponse response, Response xacmlResponse) {
+            this.generation = generation;
+            this.response = response;
+            this.xacmlResponse = xacmlResponse;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ForwardingMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Policy contents returned in a DecisionResponse. It is the read-only map parsed from the
+ * Json stored in the policy's obligation, and also keeps the contents encoded as Json once,
+ * so a response can be written out without walking and serializing them again. The maps and lists nested
+ * in the contents are read-only as well, the same contents are shared by every decision.
+ *
+ */
+public class StdEncodedPolicy extends ForwardingMap<String, Object> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StdEncodedPolicy.class);
+    private static final Gson GSON = new Gson();
+    private static final long MAX_PARSED_POLICIES = 10000;
+    //
+    // The Json stored in an obligation never changes for a deployed policy,
+    // so it is parsed once when the policy is converted and the same contents
+    // are handed out by every translator. Keyed by the Json itself.
+    //
+    private static final Cache<String, StdEncodedPolicy> parsedPolicies =
+            CacheBuilder.newBuilder().maximumSize(MAX_PARSED_POLICIES).build();
+
+    private final String encoded;
+    private final Map<String, Object> contents;
+
+    @SuppressWarnings("unchecked")
+    private StdEncodedPolicy(String encoded, Map<String, Object> contents) {
+        this.encoded = encoded;
+        this.contents = (Map<String, Object>) unmodifiable(contents);
+    }
+
+    /**
+     * Returns the parsed policy contents, parsing them only the first time they are seen.
+     *
+     * @param json Policy contents in Json form
+     * @return StdEncodedPolicy object or null if the Json cannot be parsed
+     */
+    public static StdEncodedPolicy fromJson(String json) {
+        StdEncodedPolicy result = parsedPolicies.getIfPresent(json);
+        if (result == null) {
+            result = parse(json);
+            if (result != null) {
+                parsedPolicies.put(json, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses the policy contents.
+     *
+     * @param json Policy contents in Json form
+     * @return StdEncodedPolicy object or null if the Json is not an object
+     */
+    @SuppressWarnings("unchecked")
+    public static StdEncodedPolicy parse(String json) {
+        try {
+            JsonElement tree = new JsonParser().parse(json);
+            if (! tree.isJsonObject()) {
+                return null;
+            }
+            return new StdEncodedPolicy(GSON.toJson(tree), GSON.fromJson(tree, Map.class));
+        } catch (JsonParseException e) {
+            LOGGER.error("Failed to parse policy contents", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the policy contents encoded as compact Json, the same string every time.
+     *
+     * @return Json string
+     */
+    public String getEncoded() {
+        return encoded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object unmodifiable(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                map.put(entry.getKey(), unmodifiable(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<Object>) value).size());
+            for (Object element : (List<Object>) value) {
+                list.add(unmodifiable(element));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        return value;
+    }
+
+    @Override
+    protected Map<String, Object> delegate() {
+        return contents;
+    }
+}
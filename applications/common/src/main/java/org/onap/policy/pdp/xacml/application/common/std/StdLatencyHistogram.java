@@ -0,0 +1,246 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram over a sliding window. Times are recorded in nanoseconds into buckets
+ * whose width grows with the time, so each bucket is within an eighth of the times it
+ * holds. The window is split into slices, the oldest slice is cleared and used again once
+ * its time is up, so the percentiles only cover roughly the last window of times.
+ *
+ * <p>Recording a time does not lock, it only increments the bucket count and updates the
+ * maximum of the current slice. The number and sum of all the times recorded are kept as
+ * well, for monitoring systems that work out their own rates.
+ *
+ */
+public class StdLatencyHistogram {
+
+    public static final String PROP_WINDOW = "xacml.onap.latency.windowMillis";
+    public static final long DEFAULT_WINDOW_MILLIS = 60000;
+
+    private static final int SLICES = 6;
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    //
+    // Times from 2^37 nanoseconds, a little over two minutes, all go in the last bucket
+    //
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+    private static final long MAX_TRACKED = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final long sliceNanos;
+    private final Slice[] slices = new Slice[SLICES];
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param windowMillis Time in milliseconds the percentiles cover
+     */
+    public StdLatencyHistogram(long windowMillis) {
+        this.sliceNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMillis) / SLICES);
+        for (int index = 0; index < SLICES; index++) {
+            this.slices[index] = new Slice();
+        }
+    }
+
+    /**
+     * Records a time.
+     *
+     * @param elapsedNanos Time in nanoseconds
+     */
+    public void record(long elapsedNanos) {
+        long epoch = Math.floorDiv(System.nanoTime(), sliceNanos);
+        Slice slice = slices[(int) Math.floorMod(epoch, (long) SLICES)];
+        if (slice.epoch != epoch) {
+            slice.rotate(epoch);
+        }
+        long value = Math.max(0, elapsedNanos);
+        slice.counts.incrementAndGet(bucket(value));
+        slice.max.accumulateAndGet(value, Math::max);
+        totalCount.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Clears all the recorded times.
+     */
+    public void reset() {
+        for (Slice slice : slices) {
+            slice.rotate(Long.MIN_VALUE);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+    }
+
+    /**
+     * Returns the number of times recorded since the histogram was created or reset.
+     *
+     * @return count of times
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the sum of the times recorded since the histogram was created or reset.
+     *
+     * @return sum in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Reads the percentiles of the times recorded in the window.
+     *
+     * @return Summary object
+     */
+    public Summary getSummary() {
+        long epoch = Math.floorDiv(System.nanoTime(), sliceNanos);
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (Slice slice : slices) {
+            long sliceEpoch = slice.epoch;
+            if (sliceEpoch <= epoch - SLICES || sliceEpoch > epoch) {
+                continue;
+            }
+            for (int index = 0; index < BUCKETS; index++) {
+                long count = slice.counts.get(index);
+                counts[index] += count;
+                total += count;
+            }
+            max = Math.max(max, slice.max.get());
+        }
+        return new Summary(total, valueAt(counts, total, 0.5, max), valueAt(counts, total, 0.9, max),
+                valueAt(counts, total, 0.99, max), valueAt(counts, total, 0.999, max), max);
+    }
+
+    private static long valueAt(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                //
+                // The highest time the bucket holds, no more than the highest recorded
+                //
+                return Math.min(lowerBound(index + 1) - 1, max);
+            }
+        }
+        return max;
+    }
+
+    static int bucket(long value) {
+        long tracked = Math.max(0, Math.min(value, MAX_TRACKED));
+        if (tracked < SUB_COUNT) {
+            return (int) tracked;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(tracked) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((tracked >>> shift) & (SUB_COUNT - 1));
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        return (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+    }
+
+    private static class Slice {
+        private volatile long epoch = Long.MIN_VALUE;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        private synchronized void rotate(long newEpoch) {
+            if (epoch == newEpoch) {
+                return;
+            }
+            for (int index = 0; index < BUCKETS; index++) {
+                counts.set(index, 0);
+            }
+            max.set(0);
+            //
+            // Set last, other threads recording in this slice wait
+            // in here until it has been cleared.
+            //
+            epoch = newEpoch;
+        }
+    }
+
+    /**
+     * Percentiles of the recorded times, in nanoseconds.
+     */
+    public static class Summary {
+        private final long count;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        private Summary(long count, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package org.onap.policy.pdp.xacml.application.common.std;
 
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.XACML3;
 import com.att.research.xacml.std.annotations.XACMLAction;
 import com.att.research.xacml.std.annotations.XACMLRequest;
 import com.att.research.xacml.std.annotations.XACMLResource;
@@ -37,6 +39,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 
 @Getter
 @Setter
@@ -123,10 +126,29 @@ public class StdMatchablePolicyRequest {
         return request;
     }
 
+    /**
+     * Builds the XACML request for this object. It is the request RequestParser creates from
+     * the annotations, built without reflection.
+     *
+     * @return Request object
+     */
+    public Request toXacmlRequest() {
+        return new StdXacmlRequestBuilder().returnPolicyIdList(true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_NAME, onapName, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_COMPONENT, onapComponent, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_INSTANCE, onapInstance, true)
+                .action(XACML3.ID_ACTION_ACTION_ID, action, false)
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_SCOPE_PROPERTY, policyScopes, true)
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_TYPE_PROPERTY, policyTypes, true)
+                .build();
+    }
+
     private static StdMatchablePolicyRequest addPolicyScopes(StdMatchablePolicyRequest request,
             Collection<Object> scopes) {
         for (Object scope : scopes) {
-            request.policyScopes.add(scope.toString());
+            if (scope != null) {
+                request.policyScopes.add(scope.toString());
+            }
         }
         return request;
     }
@@ -134,7 +156,9 @@ public class StdMatchablePolicyRequest {
     private static StdMatchablePolicyRequest addPolicyTypes(StdMatchablePolicyRequest request,
             Collection<Object> types) {
         for (Object type : types) {
-            request.policyTypes.add(type.toString());
+            if (type != null) {
+                request.policyTypes.add(type.toString());
+            }
         }
         return request;
     }
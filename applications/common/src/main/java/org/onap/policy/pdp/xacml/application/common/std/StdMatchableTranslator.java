@@ -23,7 +23,6 @@
 package org.onap.policy.pdp.xacml.application.common.std;
 
 import com.att.research.xacml.api.AttributeAssignment;
-import com.att.research.xacml.api.DataTypeException;
 import com.att.research.xacml.api.Decision;
 import com.att.research.xacml.api.Identifier;
 import com.att.research.xacml.api.Obligation;
@@ -31,8 +30,6 @@ import com.att.research.xacml.api.Request;
 import com.att.research.xacml.api.Response;
 import com.att.research.xacml.api.Result;
 import com.att.research.xacml.api.XACML3;
-import com.att.research.xacml.std.annotations.RequestParser;
-import com.google.gson.Gson;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -75,21 +72,17 @@ public class StdMatchableTranslator implements ToscaPolicyTranslator {
 
     @Override
     public Request convertRequest(DecisionRequest request) {
-        LOGGER.info("Converting Request {}", request);
-        try {
-            return RequestParser.parseRequest(StdMatchablePolicyRequest.createInstance(request));
-        } catch (IllegalArgumentException | IllegalAccessException | DataTypeException e) {
-            LOGGER.error("Failed to convert DecisionRequest: {}", e);
-        }
+        LOGGER.debug("Converting Request {}", request);
         //
-        // TODO throw exception
+        // Build the request directly rather than through RequestParser, which
+        // scans the annotations of the request class on every call.
         //
-        return null;
+        return StdMatchablePolicyRequest.createInstance(request).toXacmlRequest();
     }
 
     @Override
     public DecisionResponse convertResponse(Response xacmlResponse) {
-        LOGGER.info("Converting Response {}", xacmlResponse);
+        LOGGER.debug("Converting Response {}", xacmlResponse);
         DecisionResponse decisionResponse = new DecisionResponse();
         //
         // Setup policies
@@ -122,9 +115,9 @@ public class StdMatchableTranslator implements ToscaPolicyTranslator {
 
     protected void scanObligations(Collection<Obligation> obligations, DecisionResponse decisionResponse) {
         for (Obligation obligation : obligations) {
-            LOGGER.info("Obligation: {}", obligation);
+            LOGGER.debug("Obligation: {}", obligation);
             for (AttributeAssignment assignment : obligation.getAttributeAssignments()) {
-                LOGGER.info("Attribute Assignment: {}", assignment);
+                LOGGER.debug("Attribute Assignment: {}", assignment);
                 //
                 // We care about the content attribute
                 //
@@ -134,15 +127,16 @@ public class StdMatchableTranslator implements ToscaPolicyTranslator {
                     // The contents are in Json form
                     //
                     Object stringContents = assignment.getAttributeValue().getValue();
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("Policy contents: {}{}", System.lineSeparator(), stringContents);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Policy contents: {}{}", System.lineSeparator(), stringContents);
                     }
                     //
-                    // Let's parse it into a map using Gson
+                    // Use the contents parsed when the policy was converted
                     //
-                    Gson gson = new Gson();
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> result = gson.fromJson(stringContents.toString() ,Map.class);
+                    StdEncodedPolicy result = StdEncodedPolicy.fromJson(stringContents.toString());
+                    if (result == null) {
+                        continue;
+                    }
                     //
                     // Find the metadata section
                     //
@@ -206,6 +200,7 @@ public class StdMatchableTranslator implements ToscaPolicyTranslator {
         } catch (CoderException e) {
             throw new ToscaPolicyConversionException("Failed to encode policy to json", e);
         }
+        StdEncodedPolicy.fromJson(jsonPolicy);
         addObligation(rule, jsonPolicy);
         //
         // Add the rule to the policy
@@ -29,18 +29,36 @@ import com.att.research.xacml.api.pip.PIPFinder;
 import com.att.research.xacml.api.pip.PIPRequest;
 import com.att.research.xacml.api.pip.PIPResponse;
 import com.att.research.xacml.std.StdMutableAttribute;
+import com.att.research.xacml.std.StdStatus;
+import com.att.research.xacml.std.StdStatusCode;
 import com.att.research.xacml.std.datatypes.DataTypes;
 import com.att.research.xacml.std.pip.StdMutablePIPResponse;
 import com.att.research.xacml.std.pip.StdPIPRequest;
+import com.att.research.xacml.std.pip.StdPIPResponse;
 import com.att.research.xacml.std.pip.engines.StdConfigurableEngine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.function.Function;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceException;
+import javax.persistence.Persistence;
 
 import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 import org.slf4j.Logger;
@@ -65,8 +83,55 @@ public abstract class StdOnapPip extends StdConfigurableEngine {
             ToscaDictionary.ID_RESOURCE_GUARD_TARGETID,
             XACML3.ID_DATATYPE_STRING);
 
+    public static final String PROP_SUFFIX_PERSISTENCE_UNIT = ".persistenceunit";
+    public static final String PROP_SUFFIX_POOL_SIZE = ".pool.size";
+    public static final int DEFAULT_POOL_SIZE = 8;
+    public static final String PROP_SUFFIX_QUERY_TIMEOUT = ".query.timeout";
+    public static final String PROP_SUFFIX_BREAKER_THRESHOLD = ".breaker.threshold";
+    public static final String PROP_SUFFIX_BREAKER_OPEN = ".breaker.open";
+    public static final String PROP_SUFFIX_BREAKER_SLOW = ".breaker.slow";
+    public static final String PROP_SUFFIX_FALLBACK = ".fallback";
+    public static final String FALLBACK_NONE = "none";
+    public static final String FALLBACK_CACHED = "cached";
+    public static final String FALLBACK_INDETERMINATE = "indeterminate";
+    public static final long DEFAULT_BREAKER_OPEN = 30000;
+
+    protected static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private static final String PROP_JDBC_PASSWORD = "javax.persistence.jdbc.password";
+    private static final String PROP_POOL_MIN = "eclipselink.connection-pool.default.min";
+    private static final String PROP_POOL_MAX = "eclipselink.connection-pool.default.max";
+
+    //
+    // PIPs are configured again for every new engine, the factories and
+    // their connection pools are shared by all the instances using the
+    // same persistence unit and properties. A factory is closed when the
+    // last PIP using it is shut down. The key holds a hash of the password.
+    //
+    private static final Map<List<Object>, SharedFactory> factories = new HashMap<>();
+
+    //
+    // PIPs configured by the current thread, while an application builds its engine
+    //
+    private static final ThreadLocal<List<StdOnapPip>> configuredPips = new ThreadLocal<>();
+
+    //
+    // Last value each query returned, for the cached fallback
+    //
+    private static final Cache<List<Object>, Object> lastValues =
+            CacheBuilder.newBuilder().maximumSize(10000).build();
+
+    //
+    // Time the queries made by the current thread took, for the decision latencies
+    //
+    private static final ThreadLocal<long[]> lookupNanos = ThreadLocal.withInitial(() -> new long[1]);
+
     protected Properties properties;
-    protected EntityManager em;
+    protected EntityManagerFactory emf;
+    protected int queryTimeout = 0;
+    protected String fallback = FALLBACK_NONE;
+    protected StdCircuitBreaker breaker;
+    private List<Object> factoryKey;
 
     public StdOnapPip() {
         super();
@@ -82,6 +147,220 @@ public abstract class StdOnapPip extends StdConfigurableEngine {
         super.configure(id, properties);
         logger.info("Configuring historyDb PIP {}", properties);
         this.properties = properties;
+        List<StdOnapPip> pips = configuredPips.get();
+        if (pips != null) {
+            pips.add(this);
+        }
+    }
+
+    /**
+     * Starts collecting the PIPs the current thread configures. An application calls this
+     * before building an engine, so it can shut down the engine's PIPs once it is replaced.
+     */
+    public static void startCollecting() {
+        configuredPips.set(new ArrayList<>());
+    }
+
+    /**
+     * Stops collecting the PIPs the current thread configures.
+     *
+     * @return the PIPs configured since {@link #startCollecting()}
+     */
+    public static List<StdOnapPip> stopCollecting() {
+        List<StdOnapPip> pips = configuredPips.get();
+        configuredPips.remove();
+        return pips == null ? Collections.emptyList() : pips;
+    }
+
+    /**
+     * Shuts down the PIP. The entity manager factory is closed when no other PIP uses it.
+     */
+    public void shutdown() {
+        releaseEntityManagerFactory();
+    }
+
+    /**
+     * Configures the entity manager factory for the PIP. The factory is thread-safe and
+     * holds a pool of connections, an EntityManager should be created from it for each query
+     * and closed afterwards.
+     *
+     * @param issuerName Name prefixing the PIP's persistence properties
+     * @param properties Properties
+     */
+    protected void configureEntityManagerFactory(String issuerName, Properties properties) {
+        releaseEntityManagerFactory();
+        emf = null;
+        try {
+            String persistenceUnit = properties.getProperty(issuerName + PROP_SUFFIX_PERSISTENCE_UNIT);
+            int poolSize = Integer.parseInt(properties.getProperty(issuerName + PROP_SUFFIX_POOL_SIZE,
+                    Integer.toString(DEFAULT_POOL_SIZE)));
+            //
+            // In case there are any overloaded properties for the JPA
+            //
+            Properties emProperties = new Properties();
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith("javax.persistence.") || name.startsWith("eclipselink.")) {
+                    emProperties.setProperty(name, properties.getProperty(name));
+                }
+            }
+            //
+            // Need to decode the password before creating the EntityManagerFactory
+            //
+            String decodedPassword = new String(Base64.getDecoder()
+                    .decode(emProperties.getProperty(PROP_JDBC_PASSWORD)));
+            emProperties.setProperty(PROP_JDBC_PASSWORD, decodedPassword);
+            emProperties.setProperty(PROP_POOL_MIN, Integer.toString(poolSize));
+            emProperties.setProperty(PROP_POOL_MAX, Integer.toString(poolSize));
+            Properties keyProperties = new Properties();
+            keyProperties.putAll(emProperties);
+            keyProperties.setProperty(PROP_JDBC_PASSWORD,
+                    Hashing.sha256().hashString(decodedPassword, StandardCharsets.UTF_8).toString());
+            List<Object> key = Arrays.asList(persistenceUnit, keyProperties);
+            synchronized (factories) {
+                SharedFactory factory = factories.get(key);
+                if (factory == null || !factory.emf.isOpen()) {
+                    factory = new SharedFactory(Persistence.createEntityManagerFactory(persistenceUnit,
+                            emProperties));
+                    factories.put(key, factory);
+                }
+                factory.references++;
+                emf = factory.emf;
+                factoryKey = key;
+            }
+        } catch (Exception e) {
+            logger.error("Persistence failed {} operations history db {}", e.getLocalizedMessage(), e);
+        }
+    }
+
+    private void releaseEntityManagerFactory() {
+        synchronized (factories) {
+            SharedFactory factory = factoryKey == null ? null : factories.get(factoryKey);
+            if (factory != null && factory.emf == emf && --factory.references <= 0) {
+                factories.remove(factoryKey);
+                factory.emf.close();
+                logger.info("Closed the entity manager factory for {}", factoryKey.get(0));
+            }
+            factoryKey = null;
+        }
+    }
+
+    /**
+     * Configures the query timeout, circuit breaker and fallback for the PIP's queries. The
+     * timeout and breaker times are in milliseconds, a timeout or threshold of 0 turns them off.
+     *
+     * @param issuerName Name prefixing the PIP's query properties
+     * @param properties Properties
+     */
+    protected void configureQueries(String issuerName, Properties properties) {
+        try {
+            queryTimeout = Integer.parseInt(properties.getProperty(issuerName + PROP_SUFFIX_QUERY_TIMEOUT, "0"));
+            int threshold = Integer.parseInt(properties.getProperty(issuerName + PROP_SUFFIX_BREAKER_THRESHOLD, "0"));
+            long open = Long.parseLong(properties.getProperty(issuerName + PROP_SUFFIX_BREAKER_OPEN,
+                    Long.toString(DEFAULT_BREAKER_OPEN)));
+            long slow = Long.parseLong(properties.getProperty(issuerName + PROP_SUFFIX_BREAKER_SLOW,
+                    Integer.toString(queryTimeout)));
+            breaker = StdCircuitBreaker.getInstance(issuerName, threshold, open, slow);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid query properties for {}", issuerName, e);
+        }
+        fallback = properties.getProperty(issuerName + PROP_SUFFIX_FALLBACK, FALLBACK_NONE).toLowerCase();
+    }
+
+    /**
+     * Returns the time the queries made by the current thread took since the last call,
+     * and starts counting again from 0.
+     *
+     * @return time in nanoseconds
+     */
+    public static long takeLookupNanos() {
+        long[] nanos = lookupNanos.get();
+        long taken = nanos[0];
+        nanos[0] = 0;
+        return taken;
+    }
+
+    /**
+     * Runs a query with its own EntityManager, through the circuit breaker. When the query
+     * fails or is rejected, the last value for the key is returned if the fallback is cached.
+     *
+     * @param key Key identifying the query and its parameters
+     * @param query Function running the query, it should set the query timeout hint
+     * @return the query result, null if the query found no result
+     * @throws PIPException if the query failed or was rejected and there is no fallback value
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T runQuery(List<Object> key, Function<EntityManager, T> query) throws PIPException {
+        if (emf == null || !emf.isOpen()) {
+            logger.error("No EntityManagerFactory available");
+            return (T) fallbackValue(key, "no persistence");
+        }
+        if (breaker != null && ! breaker.allowRequest()) {
+            logger.warn("Circuit breaker {} is open, not querying", breaker.getName());
+            return (T) fallbackValue(key, "circuit breaker is open");
+        }
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try {
+            T result;
+            try {
+                result = query.apply(em);
+            } catch (NoResultException e) {
+                result = null;
+            }
+            if (breaker != null) {
+                breaker.recordSuccess(System.nanoTime() - start);
+            }
+            if (result != null) {
+                lastValues.put(key, result);
+            }
+            return result;
+        } catch (PersistenceException e) {
+            //
+            // Only the database failing or timing out counts against the breaker
+            //
+            logger.error("Typed query failed ", e);
+            if (breaker != null) {
+                breaker.recordFailure(System.nanoTime() - start);
+            }
+            return (T) fallbackValue(key, "query failed");
+        } catch (RuntimeException e) {
+            //
+            // Anything else is a problem with the query itself, not with the
+            // database, and must not open the breaker shared by every lookup.
+            //
+            logger.error("Typed query could not be made ", e);
+            if (breaker != null) {
+                breaker.recordIgnored();
+            }
+            return (T) fallbackValue(key, "query could not be made");
+        } finally {
+            em.close();
+            lookupNanos.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    private Object fallbackValue(List<Object> key, String reason) throws PIPException {
+        Object value = FALLBACK_CACHED.equals(fallback) ? lastValues.getIfPresent(key) : null;
+        if (value == null) {
+            throw new PIPException(reason);
+        }
+        logger.warn("Using the last value for {}, {}", key, reason);
+        return value;
+    }
+
+    protected boolean isIndeterminateFallback() {
+        return FALLBACK_INDETERMINATE.equals(fallback);
+    }
+
+    /**
+     * Creates the error response for a query that could not be answered, for the
+     * indeterminate fallback.
+     *
+     * @param reason Reason the query was not answered
+     * @return PIPResponse object
+     */
+    protected PIPResponse createFailedResponse(String reason) {
+        return new StdPIPResponse(new StdStatus(StdStatusCode.STATUS_CODE_PROCESSING_ERROR, reason));
     }
 
     protected String getAttribute(PIPFinder pipFinder, PIPRequest pipRequest) {
@@ -179,4 +458,12 @@ public abstract class StdOnapPip extends StdConfigurableEngine {
         }
     }
 
+    private static class SharedFactory {
+        private final EntityManagerFactory emf;
+        private int references = 0;
+
+        private SharedFactory(EntityManagerFactory emf) {
+            this.emf = emf;
+        }
+    }
 }
@@ -22,11 +22,18 @@
 
 package org.onap.policy.pdp.xacml.application.common.std;
 
+import com.att.research.xacml.api.Decision;
 import com.att.research.xacml.api.Request;
 import com.att.research.xacml.api.Response;
+import com.att.research.xacml.api.Result;
 import com.att.research.xacml.api.pdp.PDPEngine;
 import com.att.research.xacml.api.pdp.PDPEngineFactory;
 import com.att.research.xacml.api.pdp.PDPException;
+import com.att.research.xacml.std.StdMutableRequest;
+import com.att.research.xacml.std.StdMutableResponse;
+import com.att.research.xacml.std.StdMutableResult;
+import com.att.research.xacml.std.StdStatus;
+import com.att.research.xacml.std.StdStatusCode;
 import com.att.research.xacml.util.FactoryException;
 import com.att.research.xacml.util.XACMLPolicyWriter;
 
@@ -36,11 +43,23 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
 
@@ -49,6 +68,7 @@ import org.onap.policy.models.decisions.concepts.DecisionRequest;
 import org.onap.policy.models.decisions.concepts.DecisionResponse;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyTypeIdentifier;
+import org.onap.policy.pdp.xacml.application.common.OnapPolicyFinderFactory;
 import org.onap.policy.pdp.xacml.application.common.ToscaPolicyConversionException;
 import org.onap.policy.pdp.xacml.application.common.ToscaPolicyTranslator;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationException;
@@ -59,10 +79,77 @@ import org.slf4j.LoggerFactory;
 
 public abstract class StdXacmlApplicationServiceProvider implements XacmlApplicationServiceProvider {
 
+    public static final String STAGE_CONVERT_REQUEST = "convertRequest";
+    public static final String STAGE_DECIDE = "decide";
+    public static final String STAGE_PIP = "pip";
+    public static final String STAGE_CONVERT_RESPONSE = "convertResponse";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(StdXacmlApplicationServiceProvider.class);
+    //
+    // Bounded pool shared by all the applications for converting and writing
+    // policies during a (bulk) load.
+    //
+    private static final ForkJoinPool CONVERSION_POOL =
+            new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    //
+    // Single writer so asynchronous writes and deletes of the same policy
+    // file happen in the order they were requested.
+    //
+    private static final ExecutorService PERSISTENCE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "xacml-policy-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //
+    // Shared by all the applications for evaluating the requests of a
+    // decision batch in parallel. Evaluations may block on PIP lookups.
+    // Once the queue is full the thread of the batch decides the request
+    // itself, which holds back the batch until the pool catches up.
+    //
+    private static final int DECISION_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor DECISION_EXECUTOR = new ThreadPoolExecutor(DECISION_THREADS,
+            DECISION_THREADS, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16 * DECISION_THREADS),
+            runnable -> {
+                Thread thread = new Thread(runnable, "xacml-decision");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    private static final String PERSIST_ASYNC = "async";
+    private static final String PERSIST_NONE = "none";
     private Path pathForData = null;
     private Properties pdpProperties = null;
-    private PDPEngine pdpEngine = null;
+    private boolean inMemoryPolicies = false;
+    private String persistPolicies = null;
+    //
+    // The engine is read-only during a decision, so it is published through
+    // a volatile reference. Decisions grab the current snapshot without any
+    // locking while load/unload (which are synchronized) swap in a new one.
+    //
+    private volatile PDPEngine pdpEngine = null;
+    //
+    // The PIPs the current engine configured, they are shut down once it is replaced
+    //
+    private List<StdOnapPip> enginePips = Collections.emptyList();
+    //
+    // Bumped every time a new engine is published, ie. whenever the
+    // policy set changes. Cached decisions from older generations are stale.
+    //
+    private volatile long policyGeneration = 0;
+    private StdDecisionCache decisionCache = null;
+    private StdDecisionAudit decisionAudit = null;
+    private StdConcurrencyLimiter concurrencyLimiter = null;
+    //
+    // Decision latencies of each stage. The pip stage is the time the PIP
+    // queries took while converting and deciding, for the decisions that
+    // made any, so it overlaps the other stages.
+    //
+    private Map<String, StdLatencyHistogram> latencies = createLatencies(StdLatencyHistogram.DEFAULT_WINDOW_MILLIS);
+    //
+    // How long building the engines took, including the first decision
+    //
+    private volatile long engineBuildCount = 0;
+    private volatile long engineBuildNanos = 0;
+    private volatile long lastEngineBuildNanos = 0;
     private Map<ToscaPolicy, Path> mapLoadedPolicies = new HashMap<>();
 
     public StdXacmlApplicationServiceProvider() {
@@ -112,11 +199,49 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
             throw new XacmlApplicationException("Failed to load xacml.propertis", e);
         }
         //
+        // Are policies handed to the engine in memory, and how are they persisted?
+        //
+        this.inMemoryPolicies = Boolean.parseBoolean(
+                pdpProperties.getProperty(OnapPolicyFinderFactory.PROP_IN_MEMORY, "false"));
+        this.persistPolicies = pdpProperties.getProperty(OnapPolicyFinderFactory.PROP_PERSIST, "sync");
+        LOGGER.info("In memory policies {} persist {}", this.inMemoryPolicies, this.persistPolicies);
+        //
+        // Decisions are only cached by applications that supply a cache key,
+        // a maximum size of 0 turns the cache off.
+        //
+        long cacheSize = Long.parseLong(pdpProperties.getProperty(StdDecisionCache.PROP_MAX_SIZE,
+                Long.toString(StdDecisionCache.DEFAULT_MAX_SIZE)));
+        this.decisionCache = cacheSize > 0 ? new StdDecisionCache(cacheSize) : null;
+        //
+        // Decisions are only audited when the application is given an audit file,
+        // the audit of a previous initialization writes what it has queued first
+        //
+        closeDecisionAudit();
+        this.decisionAudit = StdDecisionAudit.create(this.applicationName(), pathForData, pdpProperties);
+        //
+        // Concurrent decisions are only limited when the application is given a limit
+        //
+        this.concurrencyLimiter = StdConcurrencyLimiter.create(this.applicationName(), pdpProperties);
+        //
+        // Decision latencies are kept over a sliding window
+        //
+        this.latencies = createLatencies(Long.parseLong(pdpProperties.getProperty(StdLatencyHistogram.PROP_WINDOW,
+                Long.toString(StdLatencyHistogram.DEFAULT_WINDOW_MILLIS))));
+        //
         // Create an engine
         //
         createEngine(pdpProperties);
     }
 
+    /**
+     * Releases the resources of the application, once the PDP no longer takes decisions.
+     */
+    public synchronized void shutdown() {
+        closeDecisionAudit();
+        shutdownPips(this.enginePips);
+        this.enginePips = Collections.emptyList();
+    }
+
     @Override
     public List<ToscaPolicyTypeIdentifier> supportedPolicyTypes() {
         throw new UnsupportedOperationException("Please override and implement supportedPolicyTypes");
@@ -129,86 +254,47 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
 
     @Override
     public synchronized boolean loadPolicy(ToscaPolicy toscaPolicy) {
-        try {
-            //
-            // Convert the policies first
-            //
-            PolicyType xacmlPolicy = this.getTranslator(toscaPolicy.getType())
-                .convertPolicy(toscaPolicy);
-            if (xacmlPolicy == null) {
-                throw new ToscaPolicyConversionException("Failed to convert policy");
-            }
-            //
-            // Create a copy of the properties object
-            //
-            Properties newProperties = this.getProperties();
-            //
-            // Construct the filename
-            //
-            Path refPath = XacmlPolicyUtils.constructUniquePolicyFilename(xacmlPolicy, this.getDataPath());
-            //
-            // Write the policy to disk
-            // Maybe check for an error
-            //
-            XACMLPolicyWriter.writePolicyFile(refPath, xacmlPolicy);
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Xacml Policy is {}{}", System.lineSeparator(), new String(Files.readAllBytes(refPath)));
-            }
-            //
-            // Add root policy to properties object
-            //
-            XacmlPolicyUtils.addRootPolicy(newProperties, refPath);
-            //
-            // Write the properties to disk
-            //
-            XacmlPolicyUtils.storeXacmlProperties(newProperties,
-                    XacmlPolicyUtils.getPropertiesPath(this.getDataPath()));
-            //
-            // Reload the engine
-            //
-            this.createEngine(newProperties);
-            //
-            // Save the properties
-            //
-            this.pdpProperties = newProperties;
-            //
-            // Save in our map
-            //
-            this.mapLoadedPolicies.put(toscaPolicy, refPath);
-        } catch (IOException | ToscaPolicyConversionException e) {
-            LOGGER.error("Failed to loadPolicies {}", e);
-            return false;
-        }
-        return true;
+        return ! this.loadPolicies(Collections.singletonList(toscaPolicy)).isEmpty();
     }
 
     @Override
-    public synchronized boolean unloadPolicy(ToscaPolicy toscaPolicy) throws XacmlApplicationException {
-        //
-        // Find it in our map
-        //
-        Path refPolicy = this.mapLoadedPolicies.get(toscaPolicy);
-        if (refPolicy == null) {
-            LOGGER.error("Failed to find ToscaPolicy {} in our map size {}", toscaPolicy.getMetadata(),
-                    this.mapLoadedPolicies.size());
-            return false;
-        }
+    public synchronized List<ToscaPolicy> loadPolicies(List<ToscaPolicy> toscaPolicies) {
         //
         // Create a copy of the properties object
         //
         Properties newProperties = this.getProperties();
         //
-        // Remove it from the properties
+        // Conversions are independent of each other, so fan out the
+        // conversion and writing of each policy to disk. NOTE: the workers
+        // must not call any synchronized methods, we are holding the monitor.
         //
-        XacmlPolicyUtils.removeRootPolicy(newProperties, refPolicy);
+        Path dataPath = this.getDataPath();
+        Map<ToscaPolicy, ForkJoinTask<Path>> conversions = new LinkedHashMap<>();
+        for (ToscaPolicy toscaPolicy : toscaPolicies) {
+            conversions.put(toscaPolicy, CONVERSION_POOL.submit(() -> this.writePolicy(toscaPolicy, dataPath)));
+        }
         //
-        // We can delete the file
+        // Join them all, remembering the ones that succeeded. Adding the root
+        // policies stays sequential, it generates the property names.
         //
-        try {
-            Files.delete(refPolicy);
-        } catch (IOException e) {
-            LOGGER.error("Failed to delete policy {} from disk {}", toscaPolicy.getMetadata(),
-                    refPolicy.toAbsolutePath().toString(), e);
+        Map<ToscaPolicy, Path> writtenPolicies = new LinkedHashMap<>();
+        for (Entry<ToscaPolicy, ForkJoinTask<Path>> conversion : conversions.entrySet()) {
+            try {
+                Path refPath = conversion.getValue().get();
+                //
+                // Add root policy to properties object
+                //
+                XacmlPolicyUtils.addRootPolicy(newProperties, refPath);
+                writtenPolicies.put(conversion.getKey(), refPath);
+            } catch (ExecutionException e) {
+                LOGGER.error("Failed to load policy {}", conversion.getKey().getMetadata(), e.getCause());
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted loading policy {}", conversion.getKey().getMetadata(), e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writtenPolicies.isEmpty()) {
+            return Collections.emptyList();
         }
         //
         // Write the properties to disk
@@ -218,9 +304,20 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
                     XacmlPolicyUtils.getPropertiesPath(this.getDataPath()));
         } catch (IOException e) {
             LOGGER.error("Failed to save the properties to disk {}", newProperties, e);
+            //
+            // None of the batch is loaded, so remove what was written for it.
+            // A file that an already loaded policy refers to stays put.
+            //
+            for (Entry<ToscaPolicy, Path> written : writtenPolicies.entrySet()) {
+                if (! this.mapLoadedPolicies.containsValue(written.getValue())) {
+                    OnapPolicyFinderFactory.evictPolicyFileDef(written.getValue());
+                    this.deletePolicyFile(written.getKey(), written.getValue());
+                }
+            }
+            return Collections.emptyList();
         }
         //
-        // Reload the engine
+        // Reload the engine, only once for the whole batch
         //
         this.createEngine(newProperties);
         //
@@ -230,22 +327,96 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
         //
         // Save in our map
         //
-        if (this.mapLoadedPolicies.remove(toscaPolicy) == null) {
-            LOGGER.error("Failed to remove toscaPolicy {} from internal map size {}", toscaPolicy.getMetadata(),
-                    this.mapLoadedPolicies.size());
+        this.mapLoadedPolicies.putAll(writtenPolicies);
+        return new ArrayList<>(writtenPolicies.keySet());
+    }
+
+    @Override
+    public synchronized boolean unloadPolicy(ToscaPolicy toscaPolicy) throws XacmlApplicationException {
+        return ! this.unloadPolicies(Collections.singletonList(toscaPolicy)).isEmpty();
+    }
+
+    @Override
+    public synchronized List<ToscaPolicy> unloadPolicies(List<ToscaPolicy> toscaPolicies)
+            throws XacmlApplicationException {
+        //
+        // Create a copy of the properties object
+        //
+        Properties newProperties = this.getProperties();
+        List<ToscaPolicy> removedPolicies = new ArrayList<>();
+        for (ToscaPolicy toscaPolicy : toscaPolicies) {
+            //
+            // Find it in our map
+            //
+            Path refPolicy = this.mapLoadedPolicies.get(toscaPolicy);
+            if (refPolicy == null) {
+                LOGGER.error("Failed to find ToscaPolicy {} in our map size {}", toscaPolicy.getMetadata(),
+                        this.mapLoadedPolicies.size());
+                continue;
+            }
+            //
+            // Remove it from the properties
+            //
+            XacmlPolicyUtils.removeRootPolicy(newProperties, refPolicy);
+            //
+            // We can delete the file, and forget the parsed version of it
+            //
+            OnapPolicyFinderFactory.evictPolicyFileDef(refPolicy);
+            this.deletePolicyFile(toscaPolicy, refPolicy);
+            removedPolicies.add(toscaPolicy);
+        }
+        if (removedPolicies.isEmpty()) {
+            return removedPolicies;
         }
         //
-        // Not sure if any of the errors above warrant returning false
+        // Write the properties to disk
         //
-        return true;
+        try {
+            XacmlPolicyUtils.storeXacmlProperties(newProperties,
+                    XacmlPolicyUtils.getPropertiesPath(this.getDataPath()));
+        } catch (IOException e) {
+            LOGGER.error("Failed to save the properties to disk {}", newProperties, e);
+        }
+        //
+        // Reload the engine, only once for the whole batch
+        //
+        this.createEngine(newProperties);
+        //
+        // Save the properties
+        //
+        this.pdpProperties = newProperties;
+        //
+        // Remove from our map
+        //
+        for (ToscaPolicy toscaPolicy : removedPolicies) {
+            this.mapLoadedPolicies.remove(toscaPolicy);
+        }
+        return removedPolicies;
     }
 
     @Override
     public Pair<DecisionResponse, Response> makeDecision(DecisionRequest request) {
         //
-        // Convert to a XacmlRequest
+        // Read the generation before deciding, a decision made while a new
+        // engine is being published is then stored against the old generation.
+        //
+        long generation = this.policyGeneration;
+        StdDecisionCache cache = this.decisionCache;
+        Object cacheKey = cache == null ? null : this.getDecisionCacheKey(request);
+        if (cacheKey != null) {
+            Pair<DecisionResponse, Response> cached = cache.get(cacheKey, generation);
+            if (cached != null) {
+                this.audit(request, cached);
+                return cached;
+            }
+        }
         //
-        Request xacmlRequest = this.getTranslator().convertRequest(request);
+        // Convert to a XacmlRequest, the PIP queries are counted from here
+        //
+        StdOnapPip.takeLookupNanos();
+        long timeStart = System.nanoTime();
+        Request xacmlRequest = this.convertRequest(request);
+        this.latencies.get(STAGE_CONVERT_REQUEST).record(System.nanoTime() - timeStart);
         //
         // Now get a decision
         //
@@ -253,7 +424,382 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
         //
         // Convert to a DecisionResponse
         //
-        return Pair.of(this.getTranslator().convertResponse(xacmlResponse), xacmlResponse);
+        Pair<DecisionResponse, Response> decision = this.convertResponse(xacmlResponse);
+        if (cacheKey != null && isCacheable(xacmlResponse)) {
+            cache.put(cacheKey, generation, decision);
+        }
+        this.audit(request, decision);
+        return decision;
+    }
+
+    @Override
+    public List<Pair<DecisionResponse, Response>> makeDecisions(List<DecisionRequest> requests) {
+        //
+        // One snapshot for the whole batch, read in the same order as a
+        // single decision does.
+        //
+        long generation = this.policyGeneration;
+        PDPEngine engine = this.pdpEngine;
+        StdDecisionCache cache = this.decisionCache;
+        List<Pair<DecisionResponse, Response>> decisions = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        List<Integer> pending = new ArrayList<>();
+        List<Object> cacheKeys = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        for (int index = 0; index < requests.size(); index++) {
+            Object cacheKey = cache == null ? null : this.getDecisionCacheKey(requests.get(index));
+            Pair<DecisionResponse, Response> cached = cacheKey == null ? null : cache.get(cacheKey, generation);
+            if (cached != null) {
+                decisions.set(index, cached);
+            } else {
+                cacheKeys.set(index, cacheKey);
+                pending.add(index);
+            }
+        }
+        if (pending.isEmpty()) {
+            this.audit(requests, decisions);
+            return decisions;
+        }
+        //
+        // Convert the rest together, the application can then share
+        // the work that is common to the requests of the batch.
+        //
+        List<DecisionRequest> pendingRequests = new ArrayList<>(pending.size());
+        pending.forEach(index -> pendingRequests.add(requests.get(index)));
+        StdOnapPip.takeLookupNanos();
+        long timeStart = System.nanoTime();
+        List<Request> xacmlRequests = this.convertRequests(pendingRequests);
+        //
+        // Each request is recorded with its share of the batch conversion,
+        // and of the PIP queries made for the whole batch while converting.
+        //
+        long convertNanos = (System.nanoTime() - timeStart) / xacmlRequests.size();
+        long lookupNanos = StdOnapPip.takeLookupNanos() / xacmlRequests.size();
+        for (int index = 0; index < xacmlRequests.size(); index++) {
+            this.latencies.get(STAGE_CONVERT_REQUEST).record(convertNanos);
+            if (lookupNanos > 0) {
+                this.latencies.get(STAGE_PIP).record(lookupNanos);
+            }
+        }
+        //
+        // Decide all but the first request in the background
+        //
+        List<Future<Response>> futures = new ArrayList<>();
+        for (Request xacmlRequest : xacmlRequests.subList(1, xacmlRequests.size())) {
+            futures.add(DECISION_EXECUTOR.submit(() -> this.xacmlDecision(engine, xacmlRequest)));
+        }
+        List<Response> xacmlResponses = new ArrayList<>(xacmlRequests.size());
+        xacmlResponses.add(this.xacmlDecision(engine, xacmlRequests.get(0)));
+        for (Future<Response> future : futures) {
+            xacmlResponses.add(joinDecision(future));
+        }
+        //
+        // Convert to DecisionResponses, in the order of the requests
+        //
+        for (int pendingIndex = 0; pendingIndex < pending.size(); pendingIndex++) {
+            int index = pending.get(pendingIndex);
+            Response xacmlResponse = xacmlResponses.get(pendingIndex);
+            Pair<DecisionResponse, Response> decision = this.convertResponse(xacmlResponse);
+            if (cacheKeys.get(index) != null && isCacheable(xacmlResponse)) {
+                cache.put(cacheKeys.get(index), generation, decision);
+            }
+            decisions.set(index, decision);
+        }
+        this.audit(requests, decisions);
+        return decisions;
+    }
+
+    private void closeDecisionAudit() {
+        StdDecisionAudit audit = this.decisionAudit;
+        this.decisionAudit = null;
+        if (audit != null) {
+            audit.close();
+        }
+    }
+
+    private void audit(DecisionRequest request, Pair<DecisionResponse, Response> decision) {
+        StdDecisionAudit audit = this.decisionAudit;
+        if (audit != null) {
+            audit.audit(request, decision.getKey(), decision.getValue());
+        }
+    }
+
+    private void audit(List<DecisionRequest> requests, List<Pair<DecisionResponse, Response>> decisions) {
+        for (int index = 0; index < requests.size(); index++) {
+            this.audit(requests.get(index), decisions.get(index));
+        }
+    }
+
+    private Pair<DecisionResponse, Response> convertResponse(Response xacmlResponse) {
+        long timeStart = System.nanoTime();
+        DecisionResponse response = this.getTranslator().convertResponse(xacmlResponse);
+        this.latencies.get(STAGE_CONVERT_RESPONSE).record(System.nanoTime() - timeStart);
+        return Pair.of(response, xacmlResponse);
+    }
+
+    private static Response joinDecision(Future<Response> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            //
+            // Same as a failure of a single decision, it is thrown to the caller
+            //
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            LOGGER.error("Xacml PDP Engine failed", e.getCause());
+            return failedDecision("Xacml PDP Engine failed " + e.getCause());
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted waiting for a decision", e);
+            Thread.currentThread().interrupt();
+            return failedDecision("Interrupted waiting for the decision");
+        }
+    }
+
+    /**
+     * Creates the Indeterminate response for a decision of a batch that failed, so the other
+     * decisions of the batch are still returned.
+     *
+     * @param reason Reason the decision failed
+     * @return Response object
+     */
+    private static Response failedDecision(String reason) {
+        return new StdMutableResponse(new StdMutableResult(Decision.INDETERMINATE,
+                new StdStatus(StdStatusCode.STATUS_CODE_PROCESSING_ERROR, reason)));
+    }
+
+    private static boolean isCacheable(Response xacmlResponse) {
+        if (xacmlResponse == null) {
+            return false;
+        }
+        //
+        // A decision that failed to be made may succeed the next time
+        //
+        for (Result result : xacmlResponse.getResults()) {
+            if (result.getStatus() != null
+                    && StdStatusCode.STATUS_CODE_PROCESSING_ERROR.equals(result.getStatus().getStatusCode())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the decision latency histograms.
+     *
+     * @return read-only map of histograms by decision stage
+     */
+    public Map<String, StdLatencyHistogram> getLatencyHistograms() {
+        return this.latencies;
+    }
+
+    /**
+     * Returns the number of engines built.
+     *
+     * @return count of engines
+     */
+    public long getEngineBuildCount() {
+        return this.engineBuildCount;
+    }
+
+    /**
+     * Returns the time building all the engines took.
+     *
+     * @return time in nanoseconds
+     */
+    public long getEngineBuildNanos() {
+        return this.engineBuildNanos;
+    }
+
+    /**
+     * Returns the time building the current engine took.
+     *
+     * @return time in nanoseconds
+     */
+    public long getLastEngineBuildNanos() {
+        return this.lastEngineBuildNanos;
+    }
+
+    /**
+     * Returns the number of threads in the pool deciding the requests of batches.
+     *
+     * @return count of threads
+     */
+    public static int getDecisionPoolSize() {
+        return DECISION_EXECUTOR.getPoolSize();
+    }
+
+    /**
+     * Returns the number of threads in the decision pool that are deciding a request.
+     *
+     * @return approximate count of threads
+     */
+    public static int getDecisionPoolActiveCount() {
+        return DECISION_EXECUTOR.getActiveCount();
+    }
+
+    /**
+     * Returns the number of requests waiting for a thread of the decision pool.
+     *
+     * @return count of requests
+     */
+    public static int getDecisionPoolQueueSize() {
+        return DECISION_EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Returns the number of requests that can wait for a thread of the decision pool, the
+     * requests of a batch beyond that are decided by the thread of the batch.
+     *
+     * @return count of requests
+     */
+    public static int getDecisionPoolQueueCapacity() {
+        return DECISION_EXECUTOR.getQueue().size() + DECISION_EXECUTOR.getQueue().remainingCapacity();
+    }
+
+    /**
+     * Returns the decision audit log, null if decisions are not audited.
+     *
+     * @return StdDecisionAudit object
+     */
+    public StdDecisionAudit getDecisionAudit() {
+        return this.decisionAudit;
+    }
+
+    /**
+     * Returns the limiter of concurrent decisions, null if decisions are not limited.
+     *
+     * @return StdConcurrencyLimiter object
+     */
+    public StdConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Returns the decision cache, null if decisions are not cached.
+     *
+     * @return StdDecisionCache object
+     */
+    public StdDecisionCache getDecisionCache() {
+        return this.decisionCache;
+    }
+
+    /**
+     * Converts the incoming request to a XACML request using the application's translator.
+     * Applications can override this to add attributes to the request.
+     *
+     * @param request Incoming request
+     * @return Request object
+     */
+    protected Request convertRequest(DecisionRequest request) {
+        return this.getTranslator().convertRequest(request);
+    }
+
+    /**
+     * Converts the requests of a batch. By default each request is converted on its own,
+     * applications can override this to share work across the batch.
+     *
+     * @param requests Incoming requests
+     * @return List of Request objects, in the order of the incoming requests
+     */
+    protected List<Request> convertRequests(List<DecisionRequest> requests) {
+        List<Request> xacmlRequests = new ArrayList<>(requests.size());
+        for (DecisionRequest request : requests) {
+            xacmlRequests.add(this.convertRequest(request));
+        }
+        return xacmlRequests;
+    }
+
+    /**
+     * Applications whose decisions only depend on the request and the deployed
+     * policies override this to return a normalized key for the request. By
+     * default decisions are not cached.
+     *
+     * @param request Incoming request
+     * @return key with proper equals and hashCode, or null to not cache the decision
+     */
+    protected Object getDecisionCacheKey(DecisionRequest request) {
+        return null;
+    }
+
+    /**
+     * Converts the policy and writes it to disk in the data path.
+     *
+     * @param toscaPolicy Incoming policy
+     * @param dataPath Path to write the policy to
+     * @return Path to the written XACML policy file
+     * @throws ToscaPolicyConversionException If the policy cannot be converted
+     * @throws IOException If the file cannot be written
+     */
+    protected Path writePolicy(ToscaPolicy toscaPolicy, Path dataPath)
+            throws ToscaPolicyConversionException, IOException {
+        //
+        // Convert the policies first
+        //
+        PolicyType xacmlPolicy = this.getTranslator(toscaPolicy.getType())
+            .convertPolicy(toscaPolicy);
+        if (xacmlPolicy == null) {
+            throw new ToscaPolicyConversionException("Failed to convert policy");
+        }
+        //
+        // Construct the filename
+        //
+        Path refPath = XacmlPolicyUtils.constructUniquePolicyFilename(xacmlPolicy, dataPath);
+        if (this.inMemoryPolicies) {
+            //
+            // Hand the policy straight to the engine, the file
+            // is then only needed for persistence.
+            //
+            OnapPolicyFinderFactory.registerPolicyDef(refPath, OnapPolicyFinderFactory.newPolicyDef(xacmlPolicy));
+            LOGGER.info("Xacml Policy {} loaded in memory as {}", xacmlPolicy.getPolicyId(), refPath);
+            this.persistPolicyFile(refPath, xacmlPolicy);
+            return refPath;
+        }
+        //
+        // Make sure a stale parse of a previous version of this file
+        // is not picked up when the engine is re-created.
+        //
+        OnapPolicyFinderFactory.evictPolicyFileDef(refPath);
+        //
+        // Write the policy to disk
+        // Maybe check for an error
+        //
+        XACMLPolicyWriter.writePolicyFile(refPath, xacmlPolicy);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Xacml Policy is {}{}", System.lineSeparator(), new String(Files.readAllBytes(refPath)));
+        }
+        return refPath;
+    }
+
+    private void persistPolicyFile(Path refPath, PolicyType xacmlPolicy) {
+        if (PERSIST_NONE.equals(this.persistPolicies)) {
+            return;
+        }
+        if (PERSIST_ASYNC.equals(this.persistPolicies)) {
+            PERSISTENCE_EXECUTOR.execute(() -> XACMLPolicyWriter.writePolicyFile(refPath, xacmlPolicy));
+            return;
+        }
+        XACMLPolicyWriter.writePolicyFile(refPath, xacmlPolicy);
+    }
+
+    private void deletePolicyFile(ToscaPolicy toscaPolicy, Path refPolicy) {
+        if (this.inMemoryPolicies && PERSIST_NONE.equals(this.persistPolicies)) {
+            return;
+        }
+        Runnable delete = () -> {
+            try {
+                Files.delete(refPolicy);
+            } catch (IOException e) {
+                LOGGER.error("Failed to delete policy {} from disk {}", toscaPolicy.getMetadata(),
+                        refPolicy.toAbsolutePath().toString(), e);
+            }
+        };
+        if (this.inMemoryPolicies && PERSIST_ASYNC.equals(this.persistPolicies)) {
+            //
+            // Must queue up behind any pending write of the file
+            //
+            PERSISTENCE_EXECUTOR.execute(delete);
+        } else {
+            delete.run();
+        }
     }
 
     protected abstract ToscaPolicyTranslator getTranslator(String type);
@@ -262,7 +808,7 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
         return this.getTranslator("");
     }
 
-    protected synchronized PDPEngine getEngine() {
+    protected PDPEngine getEngine() {
         return this.pdpEngine;
     }
 
@@ -318,24 +864,91 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
         //
         // Now initialize the XACML PDP Engine
         //
+        long timeStart = System.nanoTime();
+        PDPEngine engine = null;
+        List<StdOnapPip> pips;
+        //
+        // The PIPs are configured when the engine makes its first decision
+        //
+        StdOnapPip.startCollecting();
         try {
             PDPEngineFactory factory = PDPEngineFactory.newInstance();
-            PDPEngine engine = factory.newEngine(properties);
-            if (engine != null) {
-                this.pdpEngine = engine;
+            PDPEngine newEngine = factory.newEngine(properties);
+            if (newEngine != null) {
+                //
+                // The engine only finds its policies upon the first decision. Do
+                // that now, before it is published and before any policy it
+                // refers to can be unloaded from memory or disk.
+                //
+                warmEngine(newEngine);
+                engine = newEngine;
             }
         } catch (FactoryException e) {
             LOGGER.error("Failed to create XACML PDP Engine {}", e);
+        } finally {
+            pips = StdOnapPip.stopCollecting();
+            if (engine == null) {
+                shutdownPips(pips);
+            }
+        }
+        if (engine == null) {
+            return;
+        }
+        this.pdpEngine = engine;
+        long elapsed = System.nanoTime() - timeStart;
+        this.lastEngineBuildNanos = elapsed;
+        this.engineBuildNanos += elapsed;
+        this.engineBuildCount++;
+        //
+        // Only after the new engine is visible, so a decision that sees
+        // the new generation is never made by the old engine.
+        //
+        this.policyGeneration++;
+        //
+        // Decisions still being made by the old engine fall back as if the
+        // database was not available, once no other engine uses its factory.
+        //
+        shutdownPips(this.enginePips);
+        this.enginePips = pips;
+    }
+
+    private static void shutdownPips(List<StdOnapPip> pips) {
+        for (StdOnapPip pip : pips) {
+            pip.shutdown();
+        }
+    }
+
+    private static void warmEngine(PDPEngine engine) {
+        try {
+            engine.decide(new StdMutableRequest());
+        } catch (PDPException e) {
+            LOGGER.warn("Failed to warm up XACML PDP Engine", e);
         }
     }
 
     /**
-     * Make a decision call.
+     * Make a decision call. This is not synchronized, the current engine
+     * is a snapshot that will not be modified by a concurrent load or unload.
      *
      * @param request Incoming request object
      * @return Response object
      */
-    protected synchronized Response xacmlDecision(Request request) {
+    protected Response xacmlDecision(Request request) {
+        //
+        // Grab the current engine once, a policy load may swap it
+        // out from under us while we are deciding.
+        //
+        return this.xacmlDecision(this.pdpEngine, request);
+    }
+
+    /**
+     * Make a decision call against the given engine snapshot.
+     *
+     * @param engine Engine snapshot
+     * @param request Incoming request object
+     * @return Response object
+     */
+    protected Response xacmlDecision(PDPEngine engine, Request request) {
         //
         // This is what we need to return
         //
@@ -343,19 +956,32 @@ public abstract class StdXacmlApplicationServiceProvider implements XacmlApplica
         //
         // Track some timing
         //
-        long timeStart = System.currentTimeMillis();
+        long timeStart = System.nanoTime();
         try {
-            response = this.pdpEngine.decide(request);
+            response = engine.decide(request);
         } catch (PDPException e) {
             LOGGER.error("Xacml PDP Engine failed {}", e);
         } finally {
             //
             // Track the end of timing
             //
-            long timeEnd = System.currentTimeMillis();
-            LOGGER.info("Elapsed Time: {}ms", (timeEnd - timeStart));
+            long elapsed = System.nanoTime() - timeStart;
+            this.latencies.get(STAGE_DECIDE).record(elapsed);
+            long lookupNanos = StdOnapPip.takeLookupNanos();
+            if (lookupNanos > 0) {
+                this.latencies.get(STAGE_PIP).record(lookupNanos);
+            }
+            LOGGER.debug("Elapsed Time: {}us", TimeUnit.NANOSECONDS.toMicros(elapsed));
         }
         return response;
     }
 
+    private static Map<String, StdLatencyHistogram> createLatencies(long windowMillis) {
+        Map<String, StdLatencyHistogram> histograms = new LinkedHashMap<>();
+        for (String stage : new String[] {STAGE_CONVERT_REQUEST, STAGE_DECIDE, STAGE_PIP, STAGE_CONVERT_RESPONSE}) {
+            histograms.put(stage, new StdLatencyHistogram(windowMillis));
+        }
+        return Collections.unmodifiableMap(histograms);
+    }
+
 }
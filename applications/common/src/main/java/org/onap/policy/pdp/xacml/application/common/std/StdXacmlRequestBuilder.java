@@ -0,0 +1,191 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import com.att.research.xacml.api.AttributeValue;
+import com.att.research.xacml.api.Identifier;
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.std.StdAttributeValue;
+import com.att.research.xacml.std.StdMutableAttribute;
+import com.att.research.xacml.std.StdMutableRequest;
+import com.att.research.xacml.std.StdMutableRequestAttributes;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a XACML request straight from the attribute values. This produces the same request
+ * RequestParser creates from the XACML annotations on our request classes, without having
+ * to scan the fields of the object by reflection for every decision.
+ *
+ */
+public class StdXacmlRequestBuilder {
+
+    private final StdMutableRequest request = new StdMutableRequest();
+    private final Map<Identifier, StdMutableRequestAttributes> categories = new LinkedHashMap<>();
+
+    /**
+     * Sets whether the policy ids that applied are to be returned.
+     *
+     * @param returnPolicyIdList true to return the policy id list
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder returnPolicyIdList(boolean returnPolicyIdList) {
+        this.request.setReturnPolicyIdList(returnPolicyIdList);
+        return this;
+    }
+
+    /**
+     * Adds an access subject attribute.
+     *
+     * @param attributeId Attribute id
+     * @param value Single value or collection of values, nothing is added if null or empty
+     * @param includeInResults true to include the attribute in the results
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder subject(Identifier attributeId, Object value, boolean includeInResults) {
+        return this.attribute(XACML3.ID_SUBJECT_CATEGORY_ACCESS_SUBJECT, attributeId, value, includeInResults);
+    }
+
+    /**
+     * Adds an action attribute.
+     *
+     * @param attributeId Attribute id
+     * @param value Single value or collection of values, nothing is added if null or empty
+     * @param includeInResults true to include the attribute in the results
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder action(Identifier attributeId, Object value, boolean includeInResults) {
+        return this.attribute(XACML3.ID_ATTRIBUTE_CATEGORY_ACTION, attributeId, value, includeInResults);
+    }
+
+    /**
+     * Adds a resource attribute.
+     *
+     * @param attributeId Attribute id
+     * @param value Single value or collection of values, nothing is added if null or empty
+     * @param includeInResults true to include the attribute in the results
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder resource(Identifier attributeId, Object value, boolean includeInResults) {
+        return this.attribute(XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE, attributeId, value, includeInResults);
+    }
+
+    /**
+     * Adds an attribute in the given category.
+     *
+     * @param category Attribute category
+     * @param attributeId Attribute id
+     * @param value Single value or collection of values, nothing is added if null or empty
+     * @param includeInResults true to include the attribute in the results
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder attribute(Identifier category, Identifier attributeId, Object value,
+            boolean includeInResults) {
+        return this.attribute(category, attributeId, value, null, includeInResults);
+    }
+
+    /**
+     * Adds an attribute in the given category from the given issuer. Designators naming the
+     * issuer find it in the request, rather than calling the PIP for that issuer.
+     *
+     * @param category Attribute category
+     * @param attributeId Attribute id
+     * @param value Single value or collection of values, nothing is added if null or empty
+     * @param issuer Issuer of the attribute, may be null
+     * @param includeInResults true to include the attribute in the results
+     * @return this builder
+     */
+    public StdXacmlRequestBuilder attribute(Identifier category, Identifier attributeId, Object value,
+            String issuer, boolean includeInResults) {
+        List<AttributeValue<?>> values = extractValues(value);
+        if (values.isEmpty()) {
+            return this;
+        }
+        StdMutableAttribute attribute = new StdMutableAttribute();
+        attribute.setCategory(category);
+        attribute.setAttributeId(attributeId);
+        attribute.setIssuer(issuer);
+        attribute.setIncludeInResults(includeInResults);
+        attribute.addValues(values);
+        //
+        // Attributes are grouped per category, in the order the categories are first seen
+        //
+        this.categories.computeIfAbsent(category, key -> {
+            StdMutableRequestAttributes attributes = new StdMutableRequestAttributes();
+            attributes.setCategory(key);
+            return attributes;
+        }).add(attribute);
+        return this;
+    }
+
+    /**
+     * Builds the request.
+     *
+     * @return Request object
+     */
+    public Request build() {
+        for (StdMutableRequestAttributes attributes : this.categories.values()) {
+            this.request.add(attributes);
+        }
+        this.categories.clear();
+        return this.request;
+    }
+
+    private static List<AttributeValue<?>> extractValues(Object value) {
+        List<AttributeValue<?>> values = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                //
+                // A null element has no value, skip it the same as a null attribute
+                //
+                if (element != null) {
+                    values.add(extractValue(element));
+                }
+            }
+        } else if (value != null) {
+            values.add(extractValue(value));
+        }
+        return values;
+    }
+
+    private static AttributeValue<?> extractValue(Object value) {
+        //
+        // Only the types our request classes use, anything else is
+        // treated as a string the same as RequestParser does.
+        //
+        if (value instanceof Integer || value instanceof Long) {
+            return new StdAttributeValue<>(XACML3.ID_DATATYPE_INTEGER,
+                    BigInteger.valueOf(((Number) value).longValue()));
+        }
+        if (value instanceof Boolean) {
+            return new StdAttributeValue<>(XACML3.ID_DATATYPE_BOOLEAN, value);
+        }
+        return new StdAttributeValue<>(XACML3.ID_DATATYPE_STRING, value.toString());
+    }
+}
@@ -22,12 +22,28 @@
 
 package org.onap.policy.pdp.xacml.application.common;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.util.XACMLPolicyWriter;
+import com.att.research.xacmlatt.pdp.policy.PolicyDef;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
+
+import org.junit.ClassRule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class OnapPolicyFinderFactoryTest {
 
+    @ClassRule
+    public static TemporaryFolder policyFolder = new TemporaryFolder();
+
     @Test
     public void test() throws NoSuchMethodException, SecurityException {
         assertThatExceptionOfType(OnapPolicyFinderFactoryException.class).isThrownBy(() -> {
@@ -35,4 +51,52 @@ public class OnapPolicyFinderFactoryTest {
         }).withMessageContaining("Please use the constructor with Properties object.");
     }
 
+    @Test
+    public void testCachedPolicyDefs() throws Exception {
+        PolicyType policy = XacmlPolicyUtils.createEmptyPolicy("cached", XACML3.ID_RULE_DENY_UNLESS_PERMIT);
+        policy.setVersion("1.0");
+        File file = policyFolder.newFile("cached.xml");
+        Path path = XACMLPolicyWriter.writePolicyFile(file.toPath(), policy);
+
+        Properties properties = new Properties();
+        XacmlPolicyUtils.addRootPolicy(properties, path);
+        //
+        // Each new factory should re-use the already parsed policy
+        //
+        OnapPolicyFinderFactory factory = new OnapPolicyFinderFactory(properties);
+        PolicyDef first = factory.loadPolicyFileDef(path.toString());
+        assertThat(first).isNotNull();
+        PolicyDef second = new OnapPolicyFinderFactory(properties).loadPolicyFileDef(path.toString());
+        assertThat(second).isSameAs(first);
+        //
+        // Once evicted, it gets parsed again
+        //
+        OnapPolicyFinderFactory.evictPolicyFileDef(path);
+        PolicyDef third = factory.loadPolicyFileDef(path.toString());
+        assertThat(third).isNotNull().isNotSameAs(first);
+        assertThat(OnapPolicyFinderFactory.getCachedPolicyCount()).isPositive();
+    }
+
+    @Test
+    public void testInMemoryPolicyDefs() throws Exception {
+        PolicyType policy = XacmlPolicyUtils.createEmptyPolicy("inmemory", XACML3.ID_RULE_DENY_UNLESS_PERMIT);
+        policy.setVersion("1.0");
+        PolicyDef policyDef = OnapPolicyFinderFactory.newPolicyDef(policy);
+        assertThat(policyDef).isNotNull();
+        assertThat(policyDef.getIdentifier().stringValue()).isEqualTo("inmemory");
+        //
+        // The file is never written, the engine should still find the policy
+        //
+        Path path = new File(policyFolder.getRoot(), "inmemory.xml").toPath();
+        OnapPolicyFinderFactory.registerPolicyDef(path, policyDef);
+
+        Properties properties = new Properties();
+        XacmlPolicyUtils.addRootPolicy(properties, path);
+        OnapPolicyFinderFactory factory = new OnapPolicyFinderFactory(properties);
+        assertThat(factory.loadPolicyFileDef(path.toString())).isSameAs(policyDef);
+
+        OnapPolicyFinderFactory.evictPolicyFileDef(path);
+        assertThat(factory.loadPolicyFileDef(path.toString())).isNull();
+    }
+
 }
@@ -0,0 +1,133 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.api.Identifier;
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.std.IdentifierImpl;
+import com.att.research.xacml.std.StdVersion;
+import com.att.research.xacmlatt.pdp.policy.CombiningAlgorithmFactory;
+import com.att.research.xacmlatt.pdp.policy.PolicySet;
+import com.att.research.xacmlatt.pdp.policy.PolicySetChild;
+import com.att.research.xacmlatt.pdp.policy.Target;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AnyOfType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.MatchType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.TargetType;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
+
+public class OnapPolicyIndexTest {
+
+    private static PolicySet root;
+
+    /**
+     * Combines policies with different actor and recipe targets.
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        root = new PolicySet();
+        root.setIdentifier(new IdentifierImpl("root"));
+        root.setVersion(StdVersion.newInstance("1.0"));
+        root.setTarget(new Target());
+        root.setPolicyCombiningAlgorithm(CombiningAlgorithmFactory.newInstance()
+                .getPolicyCombiningAlgorithm(XACML3.ID_POLICY_DENY_OVERRIDES));
+        root.addChild(OnapPolicyFinderFactory.newPolicyDef(createPolicy("so-restart",
+                match(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, "SO"),
+                match(ToscaDictionary.ID_RESOURCE_GUARD_RECIPE, "restart"))));
+        root.addChild(OnapPolicyFinderFactory.newPolicyDef(createPolicy("so",
+                match(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, "SO"))));
+        root.addChild(OnapPolicyFinderFactory.newPolicyDef(createPolicy("appc",
+                match(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, "APPC"))));
+        root.addChild(OnapPolicyFinderFactory.newPolicyDef(createPolicy("any")));
+    }
+
+    @Test
+    public void testSelect() {
+        OnapPolicyIndex index = new OnapPolicyIndex(root, Arrays.asList(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR,
+                ToscaDictionary.ID_RESOURCE_GUARD_RECIPE));
+        assertThat(index.size()).isEqualTo(4);
+
+        assertThat(select(index, "SO", "restart")).containsExactly("so-restart", "so", "any");
+        assertThat(select(index, "SO", "rebuild")).containsExactly("so", "any");
+        assertThat(select(index, "APPC", "restart")).containsExactly("appc", "any");
+        assertThat(select(index, null, null)).containsExactly("any");
+        //
+        // The same selection is re-used
+        //
+        assertThat(index.select(request("SO", "rebuild"))).isSameAs(index.select(request("SO", "rebuild")));
+    }
+
+    @Test
+    public void testNotIndexed() {
+        //
+        // No policy has a match on the attribute, they all stay candidates
+        //
+        OnapPolicyIndex index = new OnapPolicyIndex(root,
+                Collections.singletonList(ToscaDictionary.ID_RESOURCE_GUARD_CLNAME));
+        assertThat(index.select(request("SO", "restart"))).isSameAs(root);
+    }
+
+    private static List<String> select(OnapPolicyIndex index, String actor, String recipe) {
+        List<String> ids = new ArrayList<>();
+        for (PolicySetChild child : (Iterable<PolicySetChild>) () -> index.select(request(actor, recipe))
+                .getChildren()) {
+            ids.add(child.getIdentifier().stringValue());
+        }
+        return ids;
+    }
+
+    private static Request request(String actor, String recipe) {
+        return new StdXacmlRequestBuilder().resource(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, actor, false)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_RECIPE, recipe, false).build();
+    }
+
+    private static MatchType match(Identifier attributeId, String value) {
+        return ToscaPolicyTranslatorUtils.buildMatchTypeDesignator(XACML3.ID_FUNCTION_STRING_EQUAL, value,
+                XACML3.ID_DATATYPE_STRING, attributeId, XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE);
+    }
+
+    private static PolicyType createPolicy(String policyId, MatchType... matches) {
+        PolicyType policy = XacmlPolicyUtils.createEmptyPolicy(policyId, XACML3.ID_RULE_DENY_UNLESS_PERMIT);
+        policy.setVersion("1.0");
+        TargetType target = new TargetType();
+        if (matches.length > 0) {
+            AnyOfType anyOf = new AnyOfType();
+            anyOf.getAllOf().add(ToscaPolicyTranslatorUtils.buildAllOf(matches));
+            target.getAnyOf().add(anyOf);
+        }
+        policy.setTarget(target);
+        return policy;
+    }
+}
@@ -19,22 +19,38 @@
 package org.onap.policy.pdp.xacml.application.common.operationshistory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.FileInputStream;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.sql.Date;
 import java.time.Instant;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 import javax.persistence.Query;
 
+import org.eclipse.persistence.jpa.JpaEntityManagerFactory;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdp.xacml.application.common.std.StdOnapPip;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -104,7 +120,7 @@ public class CountRecentOperationsPipTest {
         //
         // Use reflection to run getCountFromDB
         //
-        Method method = CountRecentOperationsPip.class.getDeclaredMethod("doDatabaseQuery",
+        Method method = CountRecentOperationsPip.class.getDeclaredMethod("getOperationCount",
                                                                             String.class,
                                                                             String.class,
                                                                             String.class,
@@ -147,6 +163,166 @@ public class CountRecentOperationsPipTest {
         assertEquals(1, count);
     }
 
+    @Test
+    public void testInvalidTimeWindow() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        properties.setProperty(CountRecentOperationsPip.ISSUER_NAME + StdOnapPip.PROP_SUFFIX_BREAKER_THRESHOLD, "1");
+        CountRecentOperationsPip engine = new CountRecentOperationsPip();
+        engine.configure("issuer", properties);
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(CountRecentOperationsPip.ISSUER_NAME);
+        long failures = breaker.getFailureCount();
+        //
+        // Weeks, months and years are estimated durations
+        //
+        assertEquals(0, engine.getOperationCount("Controller", "operationA", "vnf-window", 1, "week"));
+        assertEquals(0, engine.getOperationCount("Controller", "operationA", "vnf-window", 1, "YEAR"));
+        //
+        // Windows that cannot be computed are not queried, and do not count
+        // against the breaker every other lookup shares
+        //
+        assertEquals(-1, engine.getOperationCount("Controller", "operationA", "vnf-window", 1, "fortnight"));
+        assertEquals(-1, engine.getOperationCount("Controller", "operationA", "vnf-window", 1, null));
+        assertEquals(-1, engine.getOperationCount("Controller", "operationA", "vnf-window",
+                Integer.MAX_VALUE, "year"));
+        assertEquals(failures, breaker.getFailureCount());
+        assertEquals(StdCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testCachedCount() throws Exception {
+        //
+        // Configure another engine with the cache turned on
+        //
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        properties.setProperty(CountRecentOperationsPip.PROP_CACHE_TTL, "60000");
+        CountRecentOperationsPip cachedEngine = new CountRecentOperationsPip();
+        cachedEngine.configure("issuer", properties);
+        Method method = CountRecentOperationsPip.class.getDeclaredMethod("getOperationCount",
+                                                                            String.class,
+                                                                            String.class,
+                                                                            String.class,
+                                                                            int.class,
+                                                                            String.class);
+        method.setAccessible(true);
+        Dbao newEntry = createEntry("cl-foobar-2", "vnf-2", "SUCCESS");
+        long hits = CountRecentOperationsPip.getCacheHits();
+        long misses = CountRecentOperationsPip.getCacheMisses();
+        long count = (long) method.invoke(cachedEngine, newEntry.getActor(), newEntry.getOperation(),
+                newEntry.getTarget(), 1, "HOUR");
+        assertEquals(0, count);
+        //
+        // Add entry, the count stays cached until the ttl is up
+        //
+        em.getTransaction().begin();
+        em.persist(newEntry);
+        em.getTransaction().commit();
+        count = (long) method.invoke(cachedEngine, newEntry.getActor(), newEntry.getOperation(),
+                newEntry.getTarget(), 1, "hour");
+        assertEquals(0, count);
+        assertEquals(hits + 1, CountRecentOperationsPip.getCacheHits());
+        assertEquals(misses + 1, CountRecentOperationsPip.getCacheMisses());
+        //
+        // A different window is another key
+        //
+        count = (long) method.invoke(cachedEngine, newEntry.getActor(), newEntry.getOperation(),
+                newEntry.getTarget(), 2, "HOUR");
+        assertEquals(1, count);
+        assertEquals(misses + 2, CountRecentOperationsPip.getCacheMisses());
+    }
+
+    @Test
+    public void testPooledFactory() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        CountRecentOperationsPip engine1 = new CountRecentOperationsPip();
+        engine1.configure("issuer", properties);
+        //
+        // Engines are configured again for each new policy set, policy
+        // properties changing must not create another factory.
+        //
+        properties.setProperty("xacml.rootPolicies", "another");
+        CountRecentOperationsPip engine2 = new CountRecentOperationsPip();
+        engine2.configure("issuer", properties);
+        Field field = StdOnapPip.class.getDeclaredField("emf");
+        field.setAccessible(true);
+        EntityManagerFactory emf = (EntityManagerFactory) field.get(engine1);
+        assertNotNull(emf);
+        assertSame(emf, field.get(engine2));
+        assertEquals(StdOnapPip.DEFAULT_POOL_SIZE, emf.unwrap(JpaEntityManagerFactory.class).getServerSession()
+                .getDefaultConnectionPool().getMaxNumberOfConnections());
+        //
+        // Queries from many threads at once each use their own EntityManager
+        //
+        Method method = CountRecentOperationsPip.class.getDeclaredMethod("getOperationCount",
+                                                                            String.class,
+                                                                            String.class,
+                                                                            String.class,
+                                                                            int.class,
+                                                                            String.class);
+        method.setAccessible(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int count = 0; count < 32; count++) {
+                results.add(executor.submit(() -> method.invoke(engine1, "Controller", "operationA",
+                        "vnf-pool", 1, "HOUR")));
+            }
+            for (Future<Object> result : results) {
+                assertEquals(0L, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFactoryShutdown() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        properties.setProperty(CountRecentOperationsPip.ISSUER_NAME + StdOnapPip.PROP_SUFFIX_POOL_SIZE, "2");
+        CountRecentOperationsPip engine1 = new CountRecentOperationsPip();
+        engine1.configure("issuer", properties);
+        CountRecentOperationsPip engine2 = new CountRecentOperationsPip();
+        engine2.configure("issuer", properties);
+        Field field = StdOnapPip.class.getDeclaredField("emf");
+        field.setAccessible(true);
+        EntityManagerFactory emf = (EntityManagerFactory) field.get(engine1);
+        assertSame(emf, field.get(engine2));
+        //
+        // The factories are not kept by the plaintext password
+        //
+        Field factories = StdOnapPip.class.getDeclaredField("factories");
+        factories.setAccessible(true);
+        String password = new String(Base64.getDecoder().decode(properties.getProperty(
+                "javax.persistence.jdbc.password")));
+        assertFalse(factories.get(null).toString().contains(password));
+        //
+        // The factory is closed once the last PIP using it is shut down
+        //
+        engine1.shutdown();
+        assertTrue(emf.isOpen());
+        engine2.shutdown();
+        assertFalse(emf.isOpen());
+
+        CountRecentOperationsPip engine3 = new CountRecentOperationsPip();
+        engine3.configure("issuer", properties);
+        EntityManagerFactory emf3 = (EntityManagerFactory) field.get(engine3);
+        assertNotSame(emf, emf3);
+        assertTrue(emf3.isOpen());
+        engine3.shutdown();
+        assertFalse(emf3.isOpen());
+    }
+
     /**
      * Close the entity manager.
      */
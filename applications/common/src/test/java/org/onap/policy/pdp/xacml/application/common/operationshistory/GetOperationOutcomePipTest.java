@@ -19,6 +19,7 @@
 package org.onap.policy.pdp.xacml.application.common.operationshistory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.FileInputStream;
 import java.lang.reflect.Method;
@@ -33,6 +34,7 @@ import javax.persistence.Persistence;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -143,6 +145,40 @@ public class GetOperationOutcomePipTest {
         assertEquals("4", outcome);
     }
 
+    @Test
+    public void testFallback() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        properties.setProperty(GetOperationOutcomePip.ISSUER_NAME + ".breaker.threshold", "1");
+        properties.setProperty(GetOperationOutcomePip.ISSUER_NAME + ".fallback", "cached");
+        GetOperationOutcomePip pip = new GetOperationOutcomePip();
+        pip.configure("issuer", properties);
+
+        insertEntry("testcl3", "testtarget3", "5");
+        assertEquals("5", pip.getOperationOutcome("testcl3", "testtarget3"));
+        //
+        // Open the breaker, the last value is used while queries are rejected
+        //
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(GetOperationOutcomePip.ISSUER_NAME);
+        breaker.recordFailure(0);
+        assertEquals(StdCircuitBreaker.State.OPEN, breaker.getState());
+        long rejected = breaker.getRejectedCount();
+        insertEntry("testcl3", "testtarget3", "6");
+        assertEquals("5", pip.getOperationOutcome("testcl3", "testtarget3"));
+        assertNull(pip.getOperationOutcome("testcl4", "testtarget4"));
+        assertEquals(rejected + 2, breaker.getRejectedCount());
+        //
+        // Put the breaker back the way the other tests expect it
+        //
+        breaker.recordSuccess(0);
+        properties.remove(GetOperationOutcomePip.ISSUER_NAME + ".breaker.threshold");
+        properties.remove(GetOperationOutcomePip.ISSUER_NAME + ".fallback");
+        pipEngine.configure("issuer", properties);
+        assertEquals("6", pip.getOperationOutcome("testcl3", "testtarget3"));
+    }
+
     /**
      * Close the entity manager.
      */
@@ -0,0 +1,221 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.FileInputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.Query;
+
+import org.eclipse.persistence.sessions.DatabaseRecord;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.queries.DatabaseQuery;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the operations history queries use the indexes of the table. Rather than timing the
+ * queries, which is not repeatable on a build machine, the test fails when a query reads more
+ * rows of the history than its index range holds, so a query that falls back to a table scan
+ * fails here at any volume. The latency of the queries over a production sized history is
+ * only measured by OperationsHistoryBenchmark in the benchmarks test suite, which does not
+ * fail the build.
+ *
+ */
+public class OperationsHistoryIndexTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperationsHistoryIndexTest.class);
+
+    private static final int ROWS = 20000;
+    private static final int TARGETS = 1000;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private static CountRecentOperationsPip countPip;
+    private static GetOperationOutcomePip outcomePip;
+
+    /**
+     * Loads the synthetic operations history into its own in-memory database.
+     *
+     * @throws Exception connectivity issues
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        //
+        // Keep the rows away from the database the other tests use
+        //
+        properties.setProperty("javax.persistence.jdbc.url", "jdbc:h2:mem:indexdb;DATABASE_TO_UPPER=FALSE");
+        properties.setProperty("eclipselink.session-name", "OperationsHistoryIndexTest");
+        properties.setProperty("eclipselink.logging.level", "INFO");
+        emf = Persistence.createEntityManagerFactory(
+                properties.getProperty(CountRecentOperationsPip.ISSUER_NAME + ".persistenceunit"), properties);
+        em = emf.createEntityManager();
+        //
+        // Operations end over the last day, one in seven is a guard failure.
+        // X is the row number system_range generates.
+        //
+        em.getTransaction().begin();
+        em.createNativeQuery("insert into operationshistory (id, closedLoopName, requestId, actor, operation,"
+                + " target, starttime, outcome, endtime)"
+                + " select 10000000 + X, concat('cl-', mod(X, 100)), concat('request-', X),"
+                + " concat('actor-', mod(X, 3)), concat('operation-', mod(X, 5)), concat('vnf-', mod(X, "
+                + TARGETS + ")), dateadd('SECOND', -mod(X, 86400) - 60, current_timestamp),"
+                + " case when mod(X, 7) = 0 then 'Failure_Guard' else 'SUCCESS' end,"
+                + " dateadd('SECOND', -mod(X, 86400), current_timestamp)"
+                + " from system_range(1, " + ROWS + ")").executeUpdate();
+        em.getTransaction().commit();
+
+        countPip = new CountRecentOperationsPip();
+        countPip.configure("issuer", properties);
+        outcomePip = new GetOperationOutcomePip();
+        outcomePip.configure("issuer", properties);
+    }
+
+    /**
+     * Close the entity manager.
+     */
+    @AfterClass
+    public static void cleanup() {
+        if (em != null) {
+            em.close();
+        }
+        if (emf != null) {
+            emf.close();
+        }
+    }
+
+    @Test
+    public void testQueryPlans() {
+        Timestamp since = Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS));
+        assertThat(explain(em.createNamedQuery(Dbao.QUERY_COUNT_RECENT), "vnf-1", "operation-1", "actor-1", since))
+                .contains("operationshistory_target_idx");
+        assertThat(explain(em.createNamedQuery(Dbao.QUERY_LAST_OUTCOME).setMaxResults(1), "cl-1", "vnf-1"))
+                .contains("operationshistory_clname_idx");
+        assertThat(explain(em.createNamedQuery(Dbao.QUERY_RECENT), since))
+                .contains("operationshistory_endtime_idx");
+        assertThat(explain(em.createNamedQuery(Dbao.QUERY_GUARD_HISTORY), "vnf-1", "operation-1", "actor-1",
+                since, "cl-1")).contains("operationshistory_target_idx", "operationshistory_clname_idx");
+    }
+
+    @Test
+    public void testRowsRead() {
+        Timestamp since = Timestamp.from(Instant.now().minus(1, ChronoUnit.DAYS));
+        //
+        // Each target holds ROWS / TARGETS operations, reading the index range may touch
+        // the row past its end. A scan would read all of the ROWS.
+        //
+        long targetRows = ROWS / TARGETS + 1;
+        assertThat(rowsRead(em.createNamedQuery(Dbao.QUERY_COUNT_RECENT), "vnf-1", "operation-1", "actor-1",
+                since)).isLessThanOrEqualTo(targetRows);
+        assertThat(rowsRead(em.createNamedQuery(Dbao.QUERY_LAST_OUTCOME).setMaxResults(1), "cl-1", "vnf-1"))
+                .isLessThanOrEqualTo(targetRows);
+        assertThat(rowsRead(em.createNamedQuery(Dbao.QUERY_GUARD_HISTORY), "vnf-1", "operation-1", "actor-1",
+                since, "cl-1")).isLessThanOrEqualTo(2 * targetRows);
+    }
+
+    @Test
+    public void testOperationCount() {
+        for (int target = 0; target < TARGETS; target += 37) {
+            long count = countPip.getOperationCount("actor-" + target % 3, "operation-" + target % 5,
+                    "vnf-" + target, 1, "day");
+            //
+            // Every target has ROWS / TARGETS operations over the day, a third of them
+            // for each actor and one in seven of those is a guard failure
+            //
+            assertThat(count).isGreaterThan(0).isLessThan(ROWS / TARGETS);
+        }
+        assertThat(countPip.getOperationCount("actor-1", "operation-1", "vnf-1", 1, "day"))
+            .isEqualTo(countRows("vnf-1", "operation-1", "actor-1"));
+    }
+
+    @Test
+    public void testOperationOutcome() {
+        for (int target = 0; target < TARGETS; target += 37) {
+            assertThat(outcomePip.getOperationOutcome("cl-" + target % 100, "vnf-" + target))
+                .isIn("SUCCESS", "Failure_Guard");
+        }
+        //
+        // The most recent operation for vnf-1 is the one with the smallest x
+        //
+        assertThat(outcomePip.getOperationOutcome("cl-1", "vnf-1")).isEqualTo("SUCCESS");
+        assertThat(outcomePip.getOperationOutcome("cl-0", "vnf-" + TARGETS)).isNull();
+    }
+
+    /**
+     * Explains the SQL EclipseLink generates for a named query, with the parameters
+     * written into it.
+     */
+    private static String explain(Query query, Object... parameters) {
+        return explain("explain ", query, parameters);
+    }
+
+    /**
+     * Runs a named query and sums the rows H2 read from each table and index for it.
+     */
+    private static long rowsRead(Query query, Object... parameters) {
+        Matcher matcher = SCAN_COUNT.matcher(explain("explain analyze ", query, parameters));
+        long rows = 0;
+        while (matcher.find()) {
+            rows += Long.parseLong(matcher.group(1));
+        }
+        return rows;
+    }
+
+    private static String explain(String explain, Query query, Object... parameters) {
+        DatabaseQuery databaseQuery = query.unwrap(JpaQuery.class).getDatabaseQuery();
+        //
+        // Both the JPQL and the native queries name their arguments after the parameter positions
+        //
+        DatabaseRecord arguments = new DatabaseRecord();
+        for (int position = 1; position <= parameters.length; position++) {
+            arguments.put(String.valueOf(position), parameters[position - 1]);
+        }
+        String sql = databaseQuery.getTranslatedSQLString(em.unwrap(JpaEntityManager.class).getActiveSession(),
+                arguments);
+        String plan = em.createNativeQuery(explain + sql).getSingleResult().toString();
+        LOGGER.info("Query plan {}", plan);
+        return plan;
+    }
+
+    private static long countRows(String target, String operation, String actor) {
+        return ((Number) em.createNativeQuery("select count(id) from operationshistory where target = ?1"
+                + " and operation = ?2 and actor = ?3 and outcome <> 'Failure_Guard'")
+                .setParameter(1, target).setParameter(2, operation).setParameter(3, actor)
+                .getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,209 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.api.pip.PIPFinder;
+import com.att.research.xacml.api.pip.PIPResponse;
+import com.att.research.xacml.std.pip.StdPIPRequest;
+import com.att.research.xacml.std.pip.engines.RequestEngine;
+import com.att.research.xacml.std.pip.finders.RequestFinder;
+
+import java.io.FileInputStream;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
+
+public class OperationsHistoryPipTest {
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private static OperationsHistoryPip pipEngine;
+
+    /**
+     * Create an instance of our engine and also the persistence
+     * factory.
+     *
+     * @throws Exception connectivity issues
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        pipEngine = new OperationsHistoryPip();
+        pipEngine.configure("issuer", properties);
+        emf = Persistence.createEntityManagerFactory(
+                properties.getProperty(OperationsHistoryPip.ISSUER_NAME + ".persistenceunit"), properties);
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Close the entity manager.
+     */
+    @AfterClass
+    public static void cleanup() {
+        if (em != null) {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testGuardHistory() {
+        insertEntry("history-cl1", "history-target", "SUCCESS", 300);
+        insertEntry("history-cl1", "history-target", "FAILURE", 60);
+        insertEntry("history-cl2", "history-target", "SUCCESS", 10);
+        insertEntry("history-cl2", "history-target", "Failure_Guard", 5);
+        //
+        // Count and outcome in a single query
+        //
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(OperationsHistoryPip.ISSUER_NAME);
+        long queries = breaker.getQueryCount();
+        GuardHistory history = pipEngine.getGuardHistory("history-actor", "history-operation", "history-target",
+                2, "minute", "history-cl1");
+        assertThat(breaker.getQueryCount()).isEqualTo(queries + 1);
+        assertThat(history.isFailed()).isFalse();
+        assertThat(history.getOperationCount()).isEqualTo(2);
+        assertThat(history.getOperationOutcome()).isEqualTo("FAILURE");
+
+        history = pipEngine.getGuardHistory("history-actor", "history-operation", "history-target",
+                1, "hour", "history-cl2");
+        assertThat(history.getOperationCount()).isEqualTo(3);
+        assertThat(history.getOperationOutcome()).isEqualTo("Failure_Guard");
+        //
+        // Either one can be left out
+        //
+        history = pipEngine.getGuardHistory("history-actor", "history-operation", "history-target",
+                1, "hour", null);
+        assertThat(history.getOperationCount()).isEqualTo(3);
+        assertThat(history.getOperationOutcome()).isNull();
+
+        history = pipEngine.getGuardHistory(null, null, "history-target", 0, null, "history-cl1");
+        assertThat(history.getOperationCount()).isEqualTo(-1);
+        assertThat(history.getOperationOutcome()).isEqualTo("FAILURE");
+
+        history = pipEngine.getGuardHistory(null, null, "other-target", 0, null, "history-cl1");
+        assertThat(history.isFailed()).isFalse();
+        assertThat(history.getOperationOutcome()).isNull();
+        //
+        // A time window that cannot be computed only leaves out the count
+        //
+        long failures = breaker.getFailureCount();
+        queries = breaker.getQueryCount();
+        history = pipEngine.getGuardHistory("history-actor", "history-operation", "history-target",
+                Integer.MAX_VALUE, "year", "history-cl1");
+        assertThat(history.isFailed()).isFalse();
+        assertThat(history.getOperationCount()).isEqualTo(-1);
+        assertThat(history.getOperationOutcome()).isEqualTo("FAILURE");
+
+        history = pipEngine.getGuardHistory("history-actor", "history-operation", "history-target",
+                1, "fortnight", null);
+        assertThat(history.isFailed()).isFalse();
+        assertThat(history.getOperationCount()).isEqualTo(-1);
+        assertThat(breaker.getQueryCount()).isEqualTo(queries + 1);
+        assertThat(breaker.getFailureCount()).isEqualTo(failures);
+    }
+
+    @Test
+    public void testOneQueryPerDecision() throws Exception {
+        insertEntry("decision-cl1", "decision-target", "SUCCESS", 30);
+        insertEntry("decision-cl2", "decision-target", "FAILURE", 20);
+        StdPIPRequest countRequest = new StdPIPRequest(XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE,
+                ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT, XACML3.ID_DATATYPE_INTEGER,
+                ToscaDictionary.GUARD_ISSUER_PREFIX + CountRecentOperationsPip.ISSUER_NAME + ":tw:10:minute");
+        StdPIPRequest outcomeRequest = new StdPIPRequest(XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE,
+                ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONOUTCOME, XACML3.ID_DATATYPE_STRING,
+                ToscaDictionary.GUARD_ISSUER_PREFIX + GetOperationOutcomePip.ISSUER_NAME + ":clname:decision-cl1");
+        //
+        // The first decision teaches the PIP the count and the outcome go together
+        //
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(OperationsHistoryPip.ISSUER_NAME);
+        PIPFinder decision = createFinder();
+        pipEngine.getAttributes(countRequest, decision);
+        pipEngine.getAttributes(outcomeRequest, decision);
+        //
+        // After that, each decision needing both only queries once, in either order
+        //
+        for (int count = 0; count < 3; count++) {
+            long queries = breaker.getQueryCount();
+            decision = createFinder();
+            assertThat(value(pipEngine.getAttributes(countRequest, decision))).isEqualTo(BigInteger.valueOf(2));
+            assertThat(value(pipEngine.getAttributes(outcomeRequest, decision))).isEqualTo("SUCCESS");
+            assertThat(value(pipEngine.getAttributes(countRequest, decision))).isEqualTo(BigInteger.valueOf(2));
+            assertThat(breaker.getQueryCount()).isEqualTo(queries + 1);
+
+            decision = createFinder();
+            assertThat(value(pipEngine.getAttributes(outcomeRequest, decision))).isEqualTo("SUCCESS");
+            assertThat(value(pipEngine.getAttributes(countRequest, decision))).isEqualTo(BigInteger.valueOf(2));
+            assertThat(breaker.getQueryCount()).isEqualTo(queries + 2);
+        }
+        //
+        // A new decision looks the history up again
+        //
+        insertEntry("decision-cl1", "decision-target", "FAILURE", 10);
+        decision = createFinder();
+        assertThat(value(pipEngine.getAttributes(outcomeRequest, decision))).isEqualTo("FAILURE");
+        assertThat(value(pipEngine.getAttributes(countRequest, decision))).isEqualTo(BigInteger.valueOf(3));
+    }
+
+    private static PIPFinder createFinder() {
+        //
+        // The engine creates one of these for each decision
+        //
+        return new RequestFinder(null, new RequestEngine(new StdXacmlRequestBuilder()
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, "history-actor", false)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_RECIPE, "history-operation", false)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_TARGETID, "decision-target", false)
+                .build()));
+    }
+
+    private static Object value(PIPResponse response) {
+        return response.getAttributes().iterator().next().getValues().iterator().next().getValue();
+    }
+
+    private void insertEntry(String clname, String target, String outcome, long secondsAgo) {
+        Dbao newEntry = new Dbao();
+        newEntry.setClosedLoopName(clname);
+        newEntry.setTarget(target);
+        newEntry.setOutcome(outcome);
+        newEntry.setActor("history-actor");
+        newEntry.setOperation("history-operation");
+        newEntry.setStarttime(Date.from(Instant.now().minusSeconds(secondsAgo + 10)));
+        newEntry.setEndtime(Date.from(Instant.now().minusSeconds(secondsAgo)));
+        newEntry.setRequestId(UUID.randomUUID().toString());
+        em.getTransaction().begin();
+        em.persist(newEntry);
+        em.getTransaction().commit();
+    }
+}
@@ -0,0 +1,198 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.operationshistory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.FileInputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RecentOperationsCounterTest {
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+
+    /**
+     * Create the persistence factory.
+     *
+     * @throws Exception connectivity issues
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        emf = Persistence.createEntityManagerFactory(
+                properties.getProperty(CountRecentOperationsPip.ISSUER_NAME + ".persistenceunit"), properties);
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Close the entity manager.
+     */
+    @AfterClass
+    public static void cleanup() {
+        if (em != null) {
+            em.close();
+        }
+    }
+
+    private void insert(String target, String outcome, Instant endtime) {
+        Dbao entry = new Dbao();
+        entry.setClosedLoopName("cl-counter");
+        entry.setActor("Controller");
+        entry.setOperation("operationB");
+        entry.setTarget(target);
+        entry.setOutcome(outcome);
+        entry.setStarttime(Date.from(endtime.minusMillis(1000)));
+        entry.setEndtime(Date.from(endtime));
+        entry.setRequestId(UUID.randomUUID().toString());
+        em.getTransaction().begin();
+        em.persist(entry);
+        em.getTransaction().commit();
+    }
+
+    private void waitForPoll(RecentOperationsCounter counter, String target, long expected) throws Exception {
+        for (int count = 0; count < 100
+                && counter.count("Controller", "operationB", target, Duration.ofMinutes(30)) != expected; count++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        Instant now = Instant.now();
+        insert("vnf-counter-1", "SUCCESS", now.minusSeconds(120));
+        insert("vnf-counter-1", "SUCCESS", now.minusSeconds(10));
+        insert("vnf-counter-1", "Failure_Guard", now.minusSeconds(10));
+        insert("vnf-counter-1", "SUCCESS", now.minus(Duration.ofHours(2)));
+
+        RecentOperationsCounter counter = new RecentOperationsCounter(emf, 1000, 3600000, 50);
+        assertThat(counter.count("Controller", "operationB", "vnf-counter-1", Duration.ofMinutes(1))).isEqualTo(-1);
+        counter.start();
+        try {
+            waitForPoll(counter, "vnf-counter-1", 2);
+            assertThat(counter.isLoaded()).isTrue();
+            //
+            // Rows older than the retention and guard failures are not counted
+            //
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-1", Duration.ofMinutes(30)))
+                .isEqualTo(2);
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-1", Duration.ofMinutes(1)))
+                .isEqualTo(1);
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-2", Duration.ofMinutes(1)))
+                .isEqualTo(0);
+            //
+            // Windows longer than the retention are not answered
+            //
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-1", Duration.ofHours(2)))
+                .isEqualTo(-1);
+            //
+            // New rows are picked up by the poller, and rows read again
+            // within the overlap are only counted once
+            //
+            insert("vnf-counter-1", "SUCCESS", Instant.now());
+            waitForPoll(counter, "vnf-counter-1", 3);
+            Thread.sleep(200);
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-1", Duration.ofMinutes(30)))
+                .isEqualTo(3);
+        } finally {
+            counter.stop();
+        }
+        assertThat(counter.isLoaded()).isFalse();
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        EntityManagerFactory staleEmf = Persistence.createEntityManagerFactory(
+                properties.getProperty(CountRecentOperationsPip.ISSUER_NAME + ".persistenceunit"), properties);
+        insert("vnf-counter-4", "SUCCESS", Instant.now());
+        RecentOperationsCounter counter = new RecentOperationsCounter(staleEmf, 1000, 3600000, 50);
+        counter.start();
+        try {
+            waitForPoll(counter, "vnf-counter-4", 1);
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-4", Duration.ofMinutes(30)))
+                .isEqualTo(1);
+            //
+            // Once the polls keep failing the counts are no longer answered
+            //
+            staleEmf.close();
+            Thread.sleep(300);
+            assertThat(counter.isLoaded()).isFalse();
+            assertThat(counter.count("Controller", "operationB", "vnf-counter-4", Duration.ofMinutes(30)))
+                .isEqualTo(-1);
+        } finally {
+            counter.stop();
+        }
+    }
+
+    @Test
+    public void testSettings() {
+        RecentOperationsCounter counter = new RecentOperationsCounter(emf, 1000, 3600000, 50);
+        assertThat(counter.hasSettings(1000, 3600000, 50)).isTrue();
+        assertThat(counter.hasSettings(1000, 3599500, 50)).isTrue();
+        assertThat(counter.hasSettings(10000, 3600000, 50)).isFalse();
+        assertThat(counter.hasSettings(1000, 7200000, 50)).isFalse();
+        assertThat(counter.hasSettings(1000, 3600000, 1000)).isFalse();
+    }
+
+    @Test
+    public void testPipBackend() throws Exception {
+        Properties properties = new Properties();
+        try (FileInputStream is = new FileInputStream("src/test/resources/test.properties")) {
+            properties.load(is);
+        }
+        properties.setProperty(CountRecentOperationsPip.PROP_BACKEND, CountRecentOperationsPip.BACKEND_MEMORY);
+        properties.setProperty(CountRecentOperationsPip.PROP_MEMORY_POLL, "50");
+        CountRecentOperationsPip pip = new CountRecentOperationsPip();
+        pip.configure("issuer", properties);
+
+        Method method = CountRecentOperationsPip.class.getDeclaredMethod("getOperationCount",
+                String.class, String.class, String.class, int.class, String.class);
+        method.setAccessible(true);
+        insert("vnf-counter-3", "SUCCESS", Instant.now());
+        long count = 0;
+        for (int tries = 0; tries < 100 && count != 1; tries++) {
+            Thread.sleep(50);
+            count = (long) method.invoke(pip, "Controller", "operationB", "vnf-counter-3", 10, "minute");
+        }
+        assertThat(count).isEqualTo(1);
+        //
+        // Longer than the retention goes to the database
+        //
+        assertThat((long) method.invoke(pip, "Controller", "operationB", "vnf-counter-3", 1, "day")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,113 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker.State;
+
+public class StdCircuitBreakerTest {
+
+    @Test
+    public void testFailures() throws Exception {
+        StdCircuitBreaker breaker = StdCircuitBreaker.getInstance("testFailures", 2, 50, 0);
+        assertThat(StdCircuitBreaker.getBreakers()).containsEntry("testFailures", breaker);
+        assertThat(breaker.allowRequest()).isTrue();
+        //
+        // Opens after the second consecutive failure
+        //
+        breaker.recordFailure(TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        breaker.recordFailure(TimeUnit.MILLISECONDS.toNanos(4));
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        //
+        // Once the open time is up only a single trial query goes ahead
+        //
+        Thread.sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        //
+        // A failed trial opens it again, a successful one closes it
+        //
+        breaker.recordFailure(TimeUnit.MILLISECONDS.toNanos(6));
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        Thread.sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(8));
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        assertThat(breaker.getQueryCount()).isEqualTo(4);
+        assertThat(breaker.getFailureCount()).isEqualTo(3);
+        assertThat(breaker.getRejectedCount()).isEqualTo(2);
+        assertThat(breaker.getAverageMillis()).isEqualTo(5.0);
+        assertThat(breaker.getMaxMillis()).isEqualTo(8.0);
+    }
+
+    @Test
+    public void testIgnored() throws Exception {
+        StdCircuitBreaker breaker = StdCircuitBreaker.getInstance("testIgnored", 1, 50, 0);
+        breaker.recordIgnored();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        breaker.recordFailure(TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        //
+        // A trial query that never got to the database leaves the trial to the next query
+        //
+        Thread.sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.recordIgnored();
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.getQueryCount()).isEqualTo(1);
+        assertThat(breaker.getFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSlowQueries() {
+        StdCircuitBreaker breaker = StdCircuitBreaker.getInstance("testSlowQueries", 2, 60000, 10);
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(5));
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.getSlowCount()).isEqualTo(3);
+        assertThat(breaker.getFailureCount()).isZero();
+        //
+        // A threshold of 0 never opens it
+        //
+        breaker = StdCircuitBreaker.getInstance("testDisabled", 0, 60000, 10);
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+}
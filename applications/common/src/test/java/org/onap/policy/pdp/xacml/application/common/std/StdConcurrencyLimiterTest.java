@@ -0,0 +1,173 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class StdConcurrencyLimiterTest {
+
+    @Test
+    public void testCreate() {
+        Properties properties = new Properties();
+        assertThat(StdConcurrencyLimiter.create("test", properties)).isNull();
+
+        properties.setProperty(StdConcurrencyLimiter.PROP_LIMIT, "8");
+        properties.setProperty(StdConcurrencyLimiter.PROP_RETRY_AFTER, "5");
+        StdConcurrencyLimiter limiter = StdConcurrencyLimiter.create("test", properties);
+        assertThat(limiter.getApplication()).isEqualTo("test");
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        assertThat(limiter.getRetryAfterSeconds()).isEqualTo(5);
+    }
+
+    @Test
+    public void testFixedLimit() {
+        StdConcurrencyLimiter limiter = new StdConcurrencyLimiter("test", 2, 1, 2, 0, 0.5, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        //
+        // Over the limit decisions are rejected until one is released
+        //
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        limiter.release(TimeUnit.SECONDS.toNanos(10));
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.cancel();
+        limiter.release(0);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getAdmittedCount()).isEqualTo(3);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAdaptiveLimit() throws Exception {
+        StdConcurrencyLimiter limiter = new StdConcurrencyLimiter("test", 10, 2, 20, 50, 0.5, 1);
+        long slow = TimeUnit.MILLISECONDS.toNanos(100);
+        //
+        // Slow decisions halve the limit, once per target period
+        //
+        fill(limiter, 10);
+        limiter.release(slow);
+        limiter.release(slow);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        drain(limiter, 8, slow);
+        Thread.sleep(60);
+        fill(limiter, 1);
+        limiter.release(slow);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        //
+        // Fast decisions raise it again while it is in use, up to the maximum
+        //
+        for (int count = 0; count < 1000; count++) {
+            fill(limiter, limiter.getLimit());
+            drain(limiter, limiter.getInFlight(), 0);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+        //
+        // Not while it is idle
+        //
+        limiter = new StdConcurrencyLimiter("test", 10, 2, 20, 50, 0.5, 1);
+        for (int count = 0; count < 1000; count++) {
+            fill(limiter, 1);
+            limiter.release(0);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void testBatches() {
+        StdConcurrencyLimiter limiter = new StdConcurrencyLimiter("test", 10, 2, 20, 50, 0.5, 1);
+        //
+        // Each decision of a batch counts against the limit
+        //
+        fill(limiter, 2);
+        assertThat(limiter.tryAcquire(9)).isFalse();
+        assertThat(limiter.getRejectedCount()).isEqualTo(9);
+        assertThat(limiter.tryAcquire(8)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+        assertThat(limiter.tryAcquire()).isFalse();
+        //
+        // Each decision of the batch adapts the limit with its share of the batch time,
+        // a large batch over the target as a whole does not lower it
+        //
+        limiter.release(8, TimeUnit.MILLISECONDS.toNanos(320));
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        //
+        // Decisions over the target do
+        //
+        limiter.release(2, TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        //
+        // A batch larger than the limit only when nothing else is decided
+        //
+        fill(limiter, 1);
+        assertThat(limiter.tryAcquire(6)).isFalse();
+        limiter.cancel();
+        assertThat(limiter.tryAcquire(6)).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.cancel(6);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getAdmittedCount()).isEqualTo(17);
+    }
+
+    @Test
+    public void testLargeBatch() {
+        StdConcurrencyLimiter limiter = new StdConcurrencyLimiter("test", 10, 2, 20, 50, 0.5, 1);
+        //
+        // Batches of 100 decisions taking a second, 10ms for each decision, keep the limit
+        //
+        for (int count = 0; count < 10; count++) {
+            assertThat(limiter.tryAcquire(100)).isTrue();
+            limiter.release(100, TimeUnit.SECONDS.toNanos(1));
+            assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(10);
+        }
+        assertThat(limiter.getInFlight()).isZero();
+        //
+        // Taking ten seconds, 100ms for each decision, they lower it
+        //
+        int limit = limiter.getLimit();
+        assertThat(limiter.tryAcquire(100)).isTrue();
+        limiter.release(100, TimeUnit.SECONDS.toNanos(10));
+        assertThat(limiter.getLimit()).isEqualTo(limit / 2);
+    }
+
+    private void fill(StdConcurrencyLimiter limiter, int count) {
+        for (int index = 0; index < count; index++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+    }
+
+    private void drain(StdConcurrencyLimiter limiter, int count, long elapsedNanos) {
+        for (int index = 0; index < count; index++) {
+            limiter.release(elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.models.decisions.concepts.DecisionResponse;
+
+public class StdDecisionAuditTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreate() {
+        Properties properties = new Properties();
+        assertThat(StdDecisionAudit.create("test", folder.getRoot().toPath(), properties)).isNull();
+
+        properties.setProperty(StdDecisionAudit.PROP_FILE, "audit.log");
+        properties.setProperty(StdDecisionAudit.PROP_SAMPLE_RATE, "0");
+        assertThat(StdDecisionAudit.create("test", folder.getRoot().toPath(), properties)).isNull();
+
+        properties.setProperty(StdDecisionAudit.PROP_SAMPLE_RATE, "0.5");
+        StdDecisionAudit audit = StdDecisionAudit.create("test", folder.getRoot().toPath(), properties);
+        assertThat(audit.getFile()).isEqualTo(folder.getRoot().toPath().resolve("audit.log"));
+        audit.close();
+    }
+
+    @Test
+    public void testAudit() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdDecisionAudit.PROP_FILE, "audit.log");
+        StdDecisionAudit audit = StdDecisionAudit.create("test", folder.getRoot().toPath(), properties);
+
+        DecisionRequest request = new DecisionRequest();
+        request.setRequestId("request-1");
+        request.setAction("configure");
+        request.setResource(Collections.singletonMap("policy-id", "onap.scaleout.tca"));
+        DecisionResponse response = new DecisionResponse();
+        response.setStatus("Permit");
+        response.setPolicies(Collections.singletonMap("onap.scaleout.tca", Collections.emptyMap()));
+        audit.audit(request, response, null);
+        audit.audit(request, response, null);
+        audit.close();
+
+        assertThat(audit.getSampledCount()).isEqualTo(2);
+        assertThat(audit.getWrittenCount()).isEqualTo(2);
+        assertThat(audit.getDroppedCount()).isZero();
+        List<String> lines = Files.readAllLines(audit.getFile());
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"application\":\"test\"").contains("\"requestId\":\"request-1\"")
+            .contains("\"action\":\"configure\"").contains("\"status\":\"Permit\"")
+            .contains("\"policies\":[\"onap.scaleout.tca\"]");
+    }
+
+    @Test
+    public void testDropped() {
+        Properties properties = new Properties();
+        properties.setProperty(StdDecisionAudit.PROP_FILE, "dropped.log");
+        properties.setProperty(StdDecisionAudit.PROP_CAPACITY, "0");
+        StdDecisionAudit audit = StdDecisionAudit.create("test", folder.getRoot().toPath(), properties);
+        audit.audit(new DecisionRequest(), new DecisionResponse(), null);
+        audit.close();
+
+        assertThat(audit.getSampledCount()).isEqualTo(1);
+        assertThat(audit.getDroppedCount()).isEqualTo(1);
+        assertThat(audit.getWrittenCount()).isZero();
+    }
+
+    @Test
+    public void testRotate() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdDecisionAudit.PROP_FILE, folder.getRoot().toPath().resolve("rotate.log").toString());
+        properties.setProperty(StdDecisionAudit.PROP_MAX_FILE_SIZE, "1");
+        properties.setProperty(StdDecisionAudit.PROP_MAX_FILES, "2");
+        StdDecisionAudit audit = StdDecisionAudit.create("test", folder.getRoot().toPath(), properties);
+        //
+        // Every batch goes over the size, only the last two are kept
+        //
+        for (int count = 0; count < 4; count++) {
+            audit.audit(new DecisionRequest(), new DecisionResponse(), null);
+            while (audit.getWrittenCount() <= count) {
+                Thread.sleep(10);
+            }
+        }
+        audit.close();
+
+        Path rotated = folder.getRoot().toPath().resolve("rotate.log.1");
+        assertThat(rotated).exists();
+        assertThat(folder.getRoot().toPath().resolve("rotate.log.2")).exists();
+        assertThat(folder.getRoot().toPath().resolve("rotate.log.3")).doesNotExist();
+        assertThat(Files.readAllLines(rotated)).hasSize(1);
+    }
+}
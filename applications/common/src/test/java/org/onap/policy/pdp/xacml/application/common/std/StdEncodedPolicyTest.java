@@ -0,0 +1,68 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StdEncodedPolicyTest {
+
+    private static final String JSON = "{\"type\":\"onap.policies.monitoring.cdap.tca.hi.lo.app\","
+            + "\"metadata\":{\"policy-id\":\"onap.scaleout.tca\"},"
+            + "\"properties\":{\"thresholds\":[{\"value\":500},{\"value\":5000}]}}";
+
+    @Test
+    public void testShared() {
+        //
+        // Every translator gets the contents parsed the first time
+        //
+        StdEncodedPolicy policy = StdEncodedPolicy.fromJson(JSON);
+        assertThat(policy).isNotNull().containsKeys("type", "metadata", "properties");
+        assertThat(StdEncodedPolicy.fromJson(new String(JSON))).isSameAs(policy);
+        assertThat(StdEncodedPolicy.parse(JSON)).isNotSameAs(policy).isEqualTo(policy);
+        assertThat(StdEncodedPolicy.fromJson("not json {")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadOnly() {
+        StdEncodedPolicy policy = StdEncodedPolicy.parse(JSON);
+        assertThatThrownBy(() -> policy.put("type", "changed")).isInstanceOf(UnsupportedOperationException.class);
+
+        Map<String, Object> metadata = (Map<String, Object>) policy.get("metadata");
+        assertThatThrownBy(() -> metadata.put("policy-id", "changed"))
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        Map<String, Object> properties = (Map<String, Object>) policy.get("properties");
+        List<Object> thresholds = (List<Object>) properties.get("thresholds");
+        assertThatThrownBy(() -> thresholds.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+        Map<String, Object> threshold = (Map<String, Object>) thresholds.get(0);
+        assertThatThrownBy(() -> threshold.clear()).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(threshold).containsEntry("value", 500.0);
+    }
+}
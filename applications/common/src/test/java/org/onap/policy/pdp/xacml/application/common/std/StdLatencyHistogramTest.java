@@ -0,0 +1,92 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram.Summary;
+
+public class StdLatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        StdLatencyHistogram histogram = new StdLatencyHistogram(60000);
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        Summary summary = histogram.getSummary();
+        assertThat(summary.getCount()).isEqualTo(1000);
+        assertThat(summary.getMaxNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+        //
+        // Within the width of a bucket, an eighth of the time
+        //
+        assertNear(summary.getP50Nanos(), 500);
+        assertNear(summary.getP90Nanos(), 900);
+        assertNear(summary.getP99Nanos(), 990);
+        assertNear(summary.getP999Nanos(), 999);
+        assertThat(histogram.getTotalCount()).isEqualTo(1000);
+        assertThat(histogram.getTotalNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500500));
+
+        histogram.reset();
+        summary = histogram.getSummary();
+        assertThat(summary.getCount()).isZero();
+        assertThat(summary.getP99Nanos()).isZero();
+        assertThat(summary.getMaxNanos()).isZero();
+        assertThat(histogram.getTotalCount()).isZero();
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        StdLatencyHistogram histogram = new StdLatencyHistogram(60);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(histogram.getSummary().getCount()).isEqualTo(1);
+        //
+        // Once the window has passed the time is no longer counted
+        //
+        Thread.sleep(100);
+        assertThat(histogram.getSummary().getCount()).isZero();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(histogram.getSummary().getCount()).isEqualTo(1);
+        assertThat(histogram.getSummary().getMaxNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] {0, 7, 8, 15, 16, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = StdLatencyHistogram.bucket(value);
+            assertThat(StdLatencyHistogram.lowerBound(bucket)).isLessThanOrEqualTo(value);
+            if (value < Long.MAX_VALUE) {
+                assertThat(StdLatencyHistogram.lowerBound(bucket + 1)).isGreaterThan(value);
+            }
+        }
+        assertThat(StdLatencyHistogram.bucket(-1)).isZero();
+    }
+
+    private void assertNear(long nanos, long millis) {
+        assertThat(nanos).isBetween(TimeUnit.MILLISECONDS.toNanos(millis) * 7 / 8,
+                TimeUnit.MILLISECONDS.toNanos(millis) * 9 / 8);
+    }
+}
@@ -0,0 +1,116 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdp.xacml.application.common.std;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.std.annotations.RequestParser;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
+
+public class StdXacmlRequestBuilderTest {
+
+    @Test
+    public void testCombinedPolicyRequest() throws Exception {
+        DecisionRequest decisionRequest = newDecisionRequest();
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("policy-id", Arrays.asList("onap.scaleout.tca", "onap.restart.tca"));
+        resources.put("policy-type", "onap.policies.monitoring.cdap.tca.hi.lo.app");
+        decisionRequest.setResource(resources);
+
+        StdCombinedPolicyRequest request = StdCombinedPolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(request));
+        //
+        // Attributes with no values are left out
+        //
+        decisionRequest.setOnapInstance(null);
+        decisionRequest.setResource(new HashMap<>());
+        request = StdCombinedPolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(request));
+    }
+
+    @Test
+    public void testMatchablePolicyRequest() throws Exception {
+        DecisionRequest decisionRequest = newDecisionRequest();
+        decisionRequest.setAction("optimize");
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("policyScope", Arrays.asList("us", "vcpe"));
+        resources.put("policyType", "onap.policies.optimization.AffinityPolicy");
+        decisionRequest.setResource(resources);
+
+        StdMatchablePolicyRequest request = StdMatchablePolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(request));
+        assertThat(new StdXacmlRequestBuilder().returnPolicyIdList(true).build())
+            .isNotEqualTo(RequestParser.parseRequest(request));
+    }
+
+    @Test
+    public void testNullElements() throws Exception {
+        DecisionRequest decisionRequest = newDecisionRequest();
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("policy-id", Arrays.asList("onap.scaleout.tca", null));
+        resources.put("policy-type", Collections.singletonList(null));
+        decisionRequest.setResource(resources);
+        //
+        // Null elements are skipped, an attribute with only null elements is left out
+        //
+        StdCombinedPolicyRequest request = StdCombinedPolicyRequest.createInstance(decisionRequest);
+        resources.put("policy-id", Collections.singletonList("onap.scaleout.tca"));
+        resources.remove("policy-type");
+        StdCombinedPolicyRequest expected = StdCombinedPolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(expected));
+        assertThat(request.createCacheKey()).isEqualTo(expected.createCacheKey());
+
+        decisionRequest.setAction("optimize");
+        resources.clear();
+        resources.put("policyScope", Arrays.asList(null, "vcpe"));
+        resources.put("policyType", Collections.singletonList(null));
+        StdMatchablePolicyRequest matchable = StdMatchablePolicyRequest.createInstance(decisionRequest);
+        resources.put("policyScope", Collections.singletonList("vcpe"));
+        resources.remove("policyType");
+        assertThat(matchable.toXacmlRequest())
+            .isEqualTo(RequestParser.parseRequest(StdMatchablePolicyRequest.createInstance(decisionRequest)));
+        //
+        // The builder skips them as well
+        //
+        assertThat(new StdXacmlRequestBuilder()
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_ID, Arrays.asList(null, "onap.scaleout.tca"), true)
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_TYPE, Collections.singletonList(null), true).build())
+            .isEqualTo(new StdXacmlRequestBuilder()
+                .resource(ToscaDictionary.ID_RESOURCE_POLICY_ID, "onap.scaleout.tca", true).build());
+    }
+
+    private static DecisionRequest newDecisionRequest() {
+        DecisionRequest decisionRequest = new DecisionRequest();
+        decisionRequest.setOnapName("DCAE");
+        decisionRequest.setOnapComponent("PolicyHandler");
+        decisionRequest.setOnapInstance("622431a4-9dea-4eae-b443-3b2164639c64");
+        decisionRequest.setAction("configure");
+        return decisionRequest;
+    }
+}
@@ -24,21 +24,16 @@ package org.onap.policy.xacml.pdp.application.guard;
 
 import com.att.research.xacml.api.Request;
 import com.att.research.xacml.api.Response;
-import com.att.research.xacml.util.XACMLPolicyScanner;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
 
@@ -68,9 +63,7 @@ public class CoordinationGuardTranslator implements ToscaPolicyTranslator {
         // Policy name should be at the root
         //
         String type = toscaPolicy.getType();
-        String coordinationFunctionPath = "src/main/resources/coordination/function";
         Map<String, Object> policyProps = toscaPolicy.getProperties();
-        LOGGER.debug("path = {}", coordinationFunctionPath);
         LOGGER.debug("props = {}", policyProps);
         @SuppressWarnings("unchecked")
         List<String> controlLoop = (List<String>) policyProps.get("controlLoop");
@@ -79,18 +72,13 @@ public class CoordinationGuardTranslator implements ToscaPolicyTranslator {
         cd.setControlLoop(controlLoop);
         LOGGER.debug("CoordinationDirective = {}", cd);
         //
-        // Generate the xacml policy as a string
+        // Fill in the pre-parsed prototype of the coordination function
         //
-        String xacmlStr = generateXacmlFromCoordinationDirective(cd, coordinationFunctionPath);
-        LOGGER.debug("xacmlStr\n{}", xacmlStr);
-        //
-        // Scan the string and convert to PoilcyType
-        //
-        try (InputStream is = new ByteArrayInputStream(xacmlStr.getBytes(StandardCharsets.UTF_8))) {
-            return (PolicyType) XACMLPolicyScanner.readPolicy(is);
-        } catch (IOException e) {
-            throw new ToscaPolicyConversionException("Failed to read policy", e);
-        }
+        Map<String, String> values = new HashMap<>();
+        values.put(CoordinationTemplate.UNIQUE_ID, UUID.randomUUID().toString());
+        values.put(CoordinationTemplate.CONTROL_LOOP_ONE, cd.getControlLoop(0));
+        values.put(CoordinationTemplate.CONTROL_LOOP_TWO, cd.getControlLoop(1));
+        return CoordinationTemplate.getTemplate(type).createPolicy(values);
     }
 
     @Override
@@ -127,38 +115,4 @@ public class CoordinationGuardTranslator implements ToscaPolicyTranslator {
         return null;
     }
 
-    /**
-     * Generate Xacml rule implementing specified CoordinationDirective.
-     *
-     * @param cd the CoordinationDirective
-     * @param protoDir the directory containing Xacml implementation prototypes
-     * @return the generated Xacml policy
-     */
-    public static String generateXacmlFromCoordinationDirective(CoordinationDirective cd,
-                                                                String protoDir) throws ToscaPolicyConversionException {
-        /*
-         * Determine file names
-         */
-        String xacmlProtoFilename = protoDir + File.separator + cd.getCoordinationFunction() + ".xml";
-        LOGGER.debug("xacmlProtoFilename={}", xacmlProtoFilename);
-        /*
-         * Values to be used for placeholders
-         */
-        final String uniqueId = UUID.randomUUID().toString();
-        final String cLOne = cd.getControlLoop(0);
-        final String cLTwo = cd.getControlLoop(1);
-        /*
-         * Replace function placeholders with appropriate values
-         */
-        try (Stream<String> stream = Files.lines(Paths.get(xacmlProtoFilename))) {
-            return stream.map(s -> s.replaceAll("UNIQUE_ID", uniqueId))
-                .map(s -> s.replaceAll("CONTROL_LOOP_ONE", cLOne))
-                .map(s -> s.replaceAll("CONTROL_LOOP_TWO", cLTwo))
-                .collect(Collectors.joining(System.lineSeparator()));
-        } catch (IOException e) {
-            throw new
-                ToscaPolicyConversionException("Error while generating XACML policy for coordination directive", e);
-        }
-    }
-
 }
@@ -0,0 +1,189 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.application.guard;
+
+import com.att.research.xacml.util.XACMLPolicyScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.JAXBElement;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
+
+import org.apache.commons.lang3.StringUtils;
+import org.onap.policy.pdp.xacml.application.common.ToscaPolicyConversionException;
+import org.w3c.dom.Node;
+
+/**
+ * XACML prototype of a coordination function. The prototype is read from the classpath
+ * and parsed only once, each coordination policy is then a deep copy of the parsed
+ * prototype with the placeholders in its attributes and values replaced by the
+ * directive's values.
+ *
+ */
+public class CoordinationTemplate {
+
+    public static final String UNIQUE_ID = "UNIQUE_ID";
+    public static final String CONTROL_LOOP_ONE = "CONTROL_LOOP_ONE";
+    public static final String CONTROL_LOOP_TWO = "CONTROL_LOOP_TWO";
+
+    private static final String PROTOTYPE_PATH = "/coordination/function/";
+    private static final String SCHEMA_PACKAGE = PolicyType.class.getPackage().getName();
+    private static final Map<String, CoordinationTemplate> templates = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Field>> schemaFields = new ConcurrentHashMap<>();
+
+    private final PolicyType prototype;
+
+    private CoordinationTemplate(PolicyType prototype) {
+        this.prototype = prototype;
+    }
+
+    /**
+     * Returns the template for the coordination function, loading it upon first use.
+     *
+     * @param coordinationFunction Coordination function, ie. the policy type
+     * @return CoordinationTemplate object
+     * @throws ToscaPolicyConversionException If there is no prototype for the function
+     */
+    public static CoordinationTemplate getTemplate(String coordinationFunction)
+            throws ToscaPolicyConversionException {
+        CoordinationTemplate template = templates.get(coordinationFunction);
+        if (template == null) {
+            template = new CoordinationTemplate(loadPrototype(coordinationFunction));
+            templates.putIfAbsent(coordinationFunction, template);
+        }
+        return template;
+    }
+
+    /**
+     * Creates a policy from the template.
+     *
+     * @param values Value for each placeholder
+     * @return new PolicyType object
+     * @throws ToscaPolicyConversionException If the prototype cannot be copied
+     */
+    public PolicyType createPolicy(Map<String, String> values) throws ToscaPolicyConversionException {
+        //
+        // The placeholders are replaced in a single pass, a value holding
+        // another placeholder is left as it is.
+        //
+        String[] placeholders = new String[values.size()];
+        String[] replacements = new String[values.size()];
+        int index = 0;
+        for (Entry<String, String> entry : values.entrySet()) {
+            placeholders[index] = entry.getKey();
+            replacements[index++] = entry.getValue();
+        }
+        try {
+            return (PolicyType) copy(this.prototype, placeholders, replacements);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ToscaPolicyConversionException("Failed to copy coordination prototype", e);
+        }
+    }
+
+    private static PolicyType loadPrototype(String coordinationFunction) throws ToscaPolicyConversionException {
+        String resource = PROTOTYPE_PATH + coordinationFunction + ".xml";
+        try (InputStream is = CoordinationTemplate.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new ToscaPolicyConversionException("No coordination prototype " + resource);
+            }
+            Object policy = XACMLPolicyScanner.readPolicy(is);
+            if (! (policy instanceof PolicyType)) {
+                throw new ToscaPolicyConversionException("Coordination prototype is not a policy " + resource);
+            }
+            return (PolicyType) policy;
+        } catch (IOException e) {
+            throw new ToscaPolicyConversionException("Failed to read coordination prototype " + resource, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object value, String[] placeholders, String[] replacements)
+            throws ReflectiveOperationException {
+        if (value instanceof String) {
+            return StringUtils.replaceEach((String) value, placeholders, replacements);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<Object>) value).size());
+            for (Object element : (List<Object>) value) {
+                list.add(copy(element, placeholders, replacements));
+            }
+            return list;
+        }
+        if (value instanceof Map) {
+            //
+            // Other attributes of the element, keyed by their QName
+            //
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+                map.put(entry.getKey(), copy(entry.getValue(), placeholders, replacements));
+            }
+            return map;
+        }
+        if (value instanceof JAXBElement) {
+            JAXBElement<Object> element = (JAXBElement<Object>) value;
+            JAXBElement<Object> copied = new JAXBElement<>(element.getName(), element.getDeclaredType(),
+                    element.getScope(), copy(element.getValue(), placeholders, replacements));
+            copied.setNil(element.isNil());
+            return copied;
+        }
+        if (value instanceof Node) {
+            return ((Node) value).cloneNode(true);
+        }
+        if (value == null || value instanceof Enum || ! value.getClass().getName().startsWith(SCHEMA_PACKAGE)) {
+            //
+            // Enums, numbers, booleans and QNames cannot be changed
+            //
+            return value;
+        }
+        Object copied = value.getClass().getConstructor().newInstance();
+        for (Field field : getFields(value.getClass())) {
+            field.set(copied, copy(field.get(value), placeholders, replacements));
+        }
+        return copied;
+    }
+
+    private static List<Field> getFields(Class<?> clazz) {
+        return schemaFields.computeIfAbsent(clazz, key -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = key; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (! Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        });
+    }
+}
@@ -22,12 +22,19 @@
 
 package org.onap.policy.xacml.pdp.application.guard;
 
+import com.att.research.xacml.api.Request;
+
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyTypeIdentifier;
 import org.onap.policy.pdp.xacml.application.common.ToscaPolicyTranslator;
+import org.onap.policy.pdp.xacml.application.common.XacmlApplicationException;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
 import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +51,7 @@ public class GuardPdpApplication extends StdXacmlApplicationServiceProvider {
     private List<ToscaPolicyTypeIdentifier> supportedPolicyTypes = new ArrayList<>();
     private LegacyGuardTranslator legacyTranslator = new LegacyGuardTranslator();
     private CoordinationGuardTranslator coordinationTranslator = new CoordinationGuardTranslator();
+    private volatile GuardPipPrefetcher prefetcher = null;
 
 
     /**
@@ -94,6 +102,86 @@ public class GuardPdpApplication extends StdXacmlApplicationServiceProvider {
         return false;
     }
 
+    @Override
+    public void initialize(Path pathForData) throws XacmlApplicationException {
+        super.initialize(pathForData);
+        //
+        // Prefetch the operations history with the PIPs the engine uses
+        //
+        shutdownPrefetcher();
+        this.prefetcher = new GuardPipPrefetcher(this.getProperties());
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdownPrefetcher();
+        super.shutdown();
+    }
+
+    private void shutdownPrefetcher() {
+        GuardPipPrefetcher pipPrefetcher = this.prefetcher;
+        this.prefetcher = null;
+        if (pipPrefetcher != null) {
+            pipPrefetcher.shutdown();
+        }
+    }
+
+    @Override
+    public synchronized List<ToscaPolicy> loadPolicies(List<ToscaPolicy> toscaPolicies) {
+        List<ToscaPolicy> loaded = super.loadPolicies(toscaPolicies);
+        if (this.prefetcher != null) {
+            loaded.forEach(this.prefetcher::addPolicy);
+        }
+        return loaded;
+    }
+
+    @Override
+    public synchronized List<ToscaPolicy> unloadPolicies(List<ToscaPolicy> toscaPolicies)
+            throws XacmlApplicationException {
+        List<ToscaPolicy> unloaded = super.unloadPolicies(toscaPolicies);
+        if (this.prefetcher != null) {
+            unloaded.forEach(this.prefetcher::removePolicy);
+        }
+        return unloaded;
+    }
+
+    @Override
+    protected Request convertRequest(DecisionRequest request) {
+        GuardPipPrefetcher pipPrefetcher = this.prefetcher;
+        if (pipPrefetcher == null || ! pipPrefetcher.isEnabled()) {
+            return super.convertRequest(request);
+        }
+        //
+        // Add the operations history the policies will look up to the request
+        //
+        LegacyGuardPolicyRequest guardRequest = LegacyGuardPolicyRequest.createInstance(request);
+        StdXacmlRequestBuilder builder = guardRequest.createXacmlRequestBuilder();
+        pipPrefetcher.prefetch(guardRequest, builder);
+        return builder.build();
+    }
+
+    @Override
+    protected List<Request> convertRequests(List<DecisionRequest> requests) {
+        GuardPipPrefetcher pipPrefetcher = this.prefetcher;
+        if (pipPrefetcher == null || ! pipPrefetcher.isEnabled()) {
+            return super.convertRequests(requests);
+        }
+        //
+        // Prefetch for the whole batch at once, so the requests share their lookups
+        //
+        List<LegacyGuardPolicyRequest> guardRequests = new ArrayList<>(requests.size());
+        List<StdXacmlRequestBuilder> builders = new ArrayList<>(requests.size());
+        for (DecisionRequest request : requests) {
+            LegacyGuardPolicyRequest guardRequest = LegacyGuardPolicyRequest.createInstance(request);
+            guardRequests.add(guardRequest);
+            builders.add(guardRequest.createXacmlRequestBuilder());
+        }
+        pipPrefetcher.prefetch(guardRequests, builders);
+        List<Request> xacmlRequests = new ArrayList<>(builders.size());
+        builders.forEach(builder -> xacmlRequests.add(builder.build()));
+        return xacmlRequests;
+    }
+
     @Override
     protected ToscaPolicyTranslator getTranslator(String type) {
         LOGGER.debug("Policy type {}", type);
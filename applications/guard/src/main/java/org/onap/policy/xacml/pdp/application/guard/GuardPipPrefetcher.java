@@ -0,0 +1,415 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.application.guard;
+
+import com.att.research.xacml.api.Identifier;
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.api.pip.PIPException;
+import com.att.research.xacml.util.XACMLProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.CountRecentOperationsPip;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.GetOperationOutcomePip;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.GuardHistory;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.OperationsHistoryPip;
+import org.onap.policy.pdp.xacml.application.common.std.StdOnapPip;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the operations history attributes a guard request is going to need before it is
+ * evaluated. The deployed guard policies tell which time windows and control loops are looked
+ * up for a given actor, recipe and control loop. Those lookups run concurrently and their
+ * results are added to the request with the PIP issuer, so the engine finds them in the
+ * request rather than calling each PIP in turn.
+ *
+ * <p>With OperationsHistoryPip configured, an operation count and an operation outcome lookup
+ * are paired up and answered by a single query.
+ *
+ */
+public class GuardPipPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GuardPipPrefetcher.class);
+
+    private static final String TYPE_FREQUENCY = "onap.policies.controlloop.guard.FrequencyLimiter";
+    private static final String TYPE_COORDINATION = "onap.policies.controlloop.guard.coordination.FirstBlocksSecond";
+    private static final String ANY = ".*";
+
+    //
+    // Once the queue is full the thread of the request makes the lookup
+    // itself, which holds back the request until the pool catches up.
+    //
+    private static final int PREFETCH_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor PREFETCH_EXECUTOR = new ThreadPoolExecutor(PREFETCH_THREADS,
+            PREFETCH_THREADS, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16 * PREFETCH_THREADS),
+            runnable -> {
+                Thread thread = new Thread(runnable, "guard-pip-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private final CountRecentOperationsPip countPip;
+    private final GetOperationOutcomePip outcomePip;
+    private final OperationsHistoryPip historyPip;
+    private final Map<ToscaPolicy, List<Lookup>> policyLookups = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Only the operations history PIPs configured in the properties are
+     * prefetched.
+     *
+     * @param properties XACML properties of the guard application
+     */
+    public GuardPipPrefetcher(Properties properties) {
+        CountRecentOperationsPip count = null;
+        GetOperationOutcomePip outcome = null;
+        OperationsHistoryPip history = null;
+        for (String engine : properties.getProperty(XACMLProperties.PROP_PIP_ENGINES, "").split(",")) {
+            String id = engine.trim();
+            String classname = properties.getProperty(id + ".classname");
+            try {
+                if (CountRecentOperationsPip.class.getName().equals(classname)) {
+                    count = new CountRecentOperationsPip();
+                    count.configure(id, properties);
+                } else if (GetOperationOutcomePip.class.getName().equals(classname)) {
+                    outcome = new GetOperationOutcomePip();
+                    outcome.configure(id, properties);
+                } else if (OperationsHistoryPip.class.getName().equals(classname)) {
+                    history = new OperationsHistoryPip();
+                    history.configure(id, properties);
+                }
+            } catch (PIPException e) {
+                LOGGER.error("Failed to configure {} for prefetching", id, e);
+            }
+        }
+        this.countPip = count;
+        this.outcomePip = outcome;
+        this.historyPip = history;
+    }
+
+    /**
+     * Shuts down the PIPs, their entity manager factories are closed once no engine uses them.
+     */
+    public void shutdown() {
+        for (StdOnapPip pip : Arrays.asList(countPip, outcomePip, historyPip)) {
+            if (pip != null) {
+                pip.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lookups that can wait for a thread of the pool.
+     *
+     * @return capacity of the queue
+     */
+    static int getQueueCapacity() {
+        return PREFETCH_EXECUTOR.getQueue().size() + PREFETCH_EXECUTOR.getQueue().remainingCapacity();
+    }
+
+    public boolean isEnabled() {
+        return countPip != null || outcomePip != null || historyPip != null;
+    }
+
+    /**
+     * Remembers the lookups the policy makes.
+     *
+     * @param policy Loaded policy
+     */
+    public void addPolicy(ToscaPolicy policy) {
+        List<Lookup> lookups = createLookups(policy);
+        if (! lookups.isEmpty()) {
+            policyLookups.put(policy, lookups);
+        }
+    }
+
+    /**
+     * Forgets the lookups the policy makes.
+     *
+     * @param policy Unloaded policy
+     */
+    public void removePolicy(ToscaPolicy policy) {
+        policyLookups.remove(policy);
+    }
+
+    /**
+     * Fetches the attributes the request needs and adds them to the builder.
+     *
+     * @param request Guard request
+     * @param builder Builder for the XACML request
+     */
+    public void prefetch(LegacyGuardPolicyRequest request, StdXacmlRequestBuilder builder) {
+        Collection<Lookup> lookups = collectLookups(request);
+        if (lookups.isEmpty()) {
+            return;
+        }
+        //
+        // Run all but the first group of lookups in the background
+        //
+        List<List<Lookup>> groups = groupLookups(lookups);
+        List<Future<List<Object>>> futures = new ArrayList<>();
+        for (List<Lookup> group : groups.subList(1, groups.size())) {
+            futures.add(PREFETCH_EXECUTOR.submit(() -> fetch(request, group)));
+        }
+        addAttributes(builder, groups.get(0), fetch(request, groups.get(0)));
+        for (int index = 0; index < futures.size(); index++) {
+            addFetched(builder, groups.get(index + 1), futures.get(index));
+        }
+    }
+
+    /**
+     * Fetches the attributes for a batch of requests and adds them to their builders. A
+     * lookup that several requests of the batch make is only fetched once.
+     *
+     * @param requests Guard requests
+     * @param builders Builders for the XACML requests, in the same order as the requests
+     */
+    public void prefetch(List<LegacyGuardPolicyRequest> requests, List<StdXacmlRequestBuilder> builders) {
+        Map<List<Object>, Future<List<Object>>> fetches = new HashMap<>();
+        List<List<List<Lookup>>> requestGroups = new ArrayList<>(requests.size());
+        for (LegacyGuardPolicyRequest request : requests) {
+            List<List<Lookup>> groups = groupLookups(collectLookups(request));
+            for (List<Lookup> group : groups) {
+                fetches.computeIfAbsent(fetchKey(request, group),
+                        key -> PREFETCH_EXECUTOR.submit(() -> fetch(request, group)));
+            }
+            requestGroups.add(groups);
+        }
+        for (int index = 0; index < requests.size(); index++) {
+            for (List<Lookup> group : requestGroups.get(index)) {
+                addFetched(builders.get(index), group, fetches.get(fetchKey(requests.get(index), group)));
+            }
+        }
+    }
+
+    private Collection<Lookup> collectLookups(LegacyGuardPolicyRequest request) {
+        //
+        // Collect the distinct lookups that apply, keyed by issuer
+        //
+        Map<String, Lookup> lookups = new LinkedHashMap<>();
+        for (List<Lookup> policy : policyLookups.values()) {
+            for (Lookup lookup : policy) {
+                if (lookup.appliesTo(request)) {
+                    lookups.putIfAbsent(lookup.issuer, lookup);
+                }
+            }
+        }
+        return lookups.values();
+    }
+
+    private static List<Object> fetchKey(LegacyGuardPolicyRequest request, List<Lookup> group) {
+        //
+        // A fetch only depends on the lookups and these request values
+        //
+        List<Object> key = new ArrayList<>(Arrays.asList(request.getActorId(), request.getOperationId(),
+                request.getTargetId()));
+        group.forEach(lookup -> key.add(lookup.issuer));
+        return key;
+    }
+
+    private static void addFetched(StdXacmlRequestBuilder builder, List<Lookup> group,
+            Future<List<Object>> future) {
+        try {
+            addAttributes(builder, group, future.get());
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to prefetch {}", group.get(0).issuer, e.getCause());
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted prefetching {}", group.get(0).issuer, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<List<Lookup>> groupLookups(Collection<Lookup> lookups) {
+        List<List<Lookup>> groups = new ArrayList<>();
+        if (historyPip == null) {
+            for (Lookup lookup : lookups) {
+                groups.add(Collections.singletonList(lookup));
+            }
+            return groups;
+        }
+        //
+        // Pair each count with an outcome, they are answered by one query
+        //
+        List<Lookup> counts = new ArrayList<>();
+        List<Lookup> outcomes = new ArrayList<>();
+        for (Lookup lookup : lookups) {
+            (lookup.isCount() ? counts : outcomes).add(lookup);
+        }
+        for (int index = 0; index < Math.max(counts.size(), outcomes.size()); index++) {
+            List<Lookup> group = new ArrayList<>(2);
+            if (index < counts.size()) {
+                group.add(counts.get(index));
+            }
+            if (index < outcomes.size()) {
+                group.add(outcomes.get(index));
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private List<Object> fetch(LegacyGuardPolicyRequest request, List<Lookup> group) {
+        if (request.getTargetId() == null) {
+            return Collections.nCopies(group.size(), null);
+        }
+        if (historyPip == null) {
+            Lookup lookup = group.get(0);
+            return Collections.singletonList(lookup.isCount() ? fetchCount(request, lookup)
+                    : outcomePip.getOperationOutcome(lookup.blocking, request.getTargetId()));
+        }
+        //
+        // The one result serves both lookups of the group
+        //
+        Lookup count = group.get(0).isCount() ? group.get(0) : null;
+        Lookup outcome = group.get(group.size() - 1).isCount() ? null : group.get(group.size() - 1);
+        boolean counting = count != null && request.getActorId() != null && request.getOperationId() != null;
+        GuardHistory history = historyPip.getGuardHistory(counting ? request.getActorId() : null,
+                request.getOperationId(), request.getTargetId(), counting ? count.window : 0,
+                counting ? count.timeUnits : null, outcome == null ? null : outcome.blocking);
+        List<Object> values = new ArrayList<>(group.size());
+        for (Lookup lookup : group) {
+            values.add(lookup.isCount() ? history.getOperationCount() : history.getOperationOutcome());
+        }
+        return values;
+    }
+
+    private Object fetchCount(LegacyGuardPolicyRequest request, Lookup lookup) {
+        if (request.getActorId() == null || request.getOperationId() == null) {
+            return null;
+        }
+        return countPip.getOperationCount(request.getActorId(), request.getOperationId(), request.getTargetId(),
+                lookup.window, lookup.timeUnits);
+    }
+
+    private static void addAttributes(StdXacmlRequestBuilder builder, List<Lookup> group, List<Object> values) {
+        for (int index = 0; index < group.size(); index++) {
+            Lookup lookup = group.get(index);
+            Object value = values.get(index);
+            //
+            // Failed lookups are left out, the engine then asks the PIP itself
+            //
+            if (value == null || (value instanceof Long && (Long) value < 0)) {
+                continue;
+            }
+            builder.attribute(XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE, lookup.attributeId, value, lookup.issuer,
+                    false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Lookup> createLookups(ToscaPolicy policy) {
+        Map<String, Object> properties = policy.getProperties();
+        if (properties == null) {
+            return Collections.emptyList();
+        }
+        if (TYPE_FREQUENCY.equals(policy.getType()) && (countPip != null || historyPip != null)
+                && properties.containsKey("timeWindow") && properties.containsKey("timeUnits")) {
+            Integer window = LegacyGuardTranslator.parseInteger(properties.get("timeWindow").toString());
+            if (window == null) {
+                return Collections.emptyList();
+            }
+            String timeUnits = properties.get("timeUnits").toString();
+            //
+            // Same issuer LegacyGuardTranslator puts in the policy
+            //
+            String issuer = ToscaDictionary.GUARD_ISSUER_PREFIX + CountRecentOperationsPip.ISSUER_NAME
+                    + ":tw:" + window + ":" + timeUnits;
+            return Collections.singletonList(new Lookup(issuer, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT,
+                    properties.get("actor"), properties.get("recipe"), properties.get("clname"),
+                    window, timeUnits, null));
+        }
+        if (TYPE_COORDINATION.equals(policy.getType()) && (outcomePip != null || historyPip != null)
+                && properties.get("controlLoop") instanceof List
+                && ((List<Object>) properties.get("controlLoop")).size() > 1) {
+            List<Object> controlLoops = (List<Object>) properties.get("controlLoop");
+            String blocking = controlLoops.get(0).toString();
+            //
+            // The outcome of the first control loop is looked up for requests of the second
+            //
+            String issuer = ToscaDictionary.GUARD_ISSUER_PREFIX + GetOperationOutcomePip.ISSUER_NAME
+                    + ":clname:" + blocking;
+            return Collections.singletonList(new Lookup(issuer, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONOUTCOME,
+                    null, null, controlLoops.get(1), null, null, blocking));
+        }
+        return Collections.emptyList();
+    }
+
+    private static class Lookup {
+        private final String issuer;
+        private final Identifier attributeId;
+        private final Object actor;
+        private final Object recipe;
+        private final Object clname;
+        private final Integer window;
+        private final String timeUnits;
+        private final String blocking;
+
+        private Lookup(String issuer, Identifier attributeId, Object actor, Object recipe, Object clname,
+                Integer window, String timeUnits, String blocking) {
+            this.issuer = issuer;
+            this.attributeId = attributeId;
+            this.actor = actor;
+            this.recipe = recipe;
+            this.clname = clname;
+            this.window = window;
+            this.timeUnits = timeUnits;
+            this.blocking = blocking;
+        }
+
+        private boolean isCount() {
+            return window != null;
+        }
+
+        private boolean appliesTo(LegacyGuardPolicyRequest request) {
+            return matches(actor, request::getActorId) && matches(recipe, request::getOperationId)
+                    && matches(clname, request::getClnameId);
+        }
+
+        private static boolean matches(Object policyValue, Supplier<String> requestValue) {
+            //
+            // Only plain strings are matched by the policy target, see LegacyGuardTranslator
+            //
+            if (! (policyValue instanceof String) || ANY.equals(policyValue)) {
+                return true;
+            }
+            return policyValue.equals(requestValue.get());
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package org.onap.policy.xacml.pdp.application.guard;
 
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.XACML3;
 import com.att.research.xacml.std.annotations.XACMLAction;
 import com.att.research.xacml.std.annotations.XACMLRequest;
 import com.att.research.xacml.std.annotations.XACMLResource;
@@ -34,6 +36,8 @@ import lombok.Setter;
 import lombok.ToString;
 
 import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
 
 @Getter
 @Setter
@@ -152,4 +156,36 @@ public class LegacyGuardPolicyRequest {
         return request;
     }
 
+    /**
+     * Builds the XACML request for this object. It is the request RequestParser creates from
+     * the annotations, built without reflection.
+     *
+     * @return Request object
+     */
+    public Request toXacmlRequest() {
+        return this.createXacmlRequestBuilder().build();
+    }
+
+    /**
+     * Creates a builder holding the attributes of this object, so more attributes can be
+     * added before building the XACML request.
+     *
+     * @return StdXacmlRequestBuilder object
+     */
+    public StdXacmlRequestBuilder createXacmlRequestBuilder() {
+        return new StdXacmlRequestBuilder().returnPolicyIdList(true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_NAME, onapName, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_COMPONENT, onapComponent, true)
+                .subject(ToscaDictionary.ID_SUBJECT_ONAP_INSTANCE, onapInstance, true)
+                .subject(ToscaDictionary.ID_SUBJECT_GUARD_REQUESTID, requestId, true)
+                .action(XACML3.ID_ACTION_ACTION_ID, action, false)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_CLNAME, clnameId, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_ACTOR, actorId, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_RECIPE, operationId, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_TARGETID, targetId, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_VFCOUNT, vfCount, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_MIN, min, true)
+                .resource(ToscaDictionary.ID_RESOURCE_GUARD_MAX, max, true);
+    }
+
 }
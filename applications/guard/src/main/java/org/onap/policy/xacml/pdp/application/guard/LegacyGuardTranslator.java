@@ -22,14 +22,12 @@
 
 package org.onap.policy.xacml.pdp.application.guard;
 
-import com.att.research.xacml.api.DataTypeException;
 import com.att.research.xacml.api.Decision;
 import com.att.research.xacml.api.Identifier;
 import com.att.research.xacml.api.Request;
 import com.att.research.xacml.api.Response;
 import com.att.research.xacml.api.Result;
 import com.att.research.xacml.api.XACML3;
-import com.att.research.xacml.std.annotations.RequestParser;
 
 import java.util.Collection;
 import java.util.Map;
@@ -124,21 +122,17 @@ public class LegacyGuardTranslator implements ToscaPolicyTranslator {
 
     @Override
     public Request convertRequest(DecisionRequest request) {
-        LOGGER.info("Converting Request {}", request);
-        try {
-            return RequestParser.parseRequest(LegacyGuardPolicyRequest.createInstance(request));
-        } catch (IllegalArgumentException | IllegalAccessException | DataTypeException e) {
-            LOGGER.error("Failed to convert DecisionRequest: {}", e);
-        }
+        LOGGER.debug("Converting Request {}", request);
         //
-        // TODO throw exception
+        // Build the request directly rather than through RequestParser, which
+        // scans the annotations of the request class on every call.
         //
-        return null;
+        return LegacyGuardPolicyRequest.createInstance(request).toXacmlRequest();
     }
 
     @Override
     public DecisionResponse convertResponse(Response xacmlResponse) {
-        LOGGER.info("Converting Response {}", xacmlResponse);
+        LOGGER.debug("Converting Response {}", xacmlResponse);
         DecisionResponse decisionResponse = new DecisionResponse();
         //
         // Iterate through all the results
@@ -749,7 +743,7 @@ public class LegacyGuardTranslator implements ToscaPolicyTranslator {
         return applyAnyOf;
     }
 
-    private static Integer parseInteger(String strInteger) {
+    static Integer parseInteger(String strInteger) {
         Integer theInt = null;
         try {
             theInt = Integer.parseInt(strInteger);
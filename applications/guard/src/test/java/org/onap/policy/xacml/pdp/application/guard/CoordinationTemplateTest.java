@@ -0,0 +1,111 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.application.guard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.att.research.xacml.util.XACMLPolicyWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.PolicyType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.RuleType;
+
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.ToscaPolicyConversionException;
+
+public class CoordinationTemplateTest {
+
+    private static final String FIRST_BLOCKS_SECOND = "onap.policies.controlloop.guard.coordination.FirstBlocksSecond";
+
+    @Test
+    public void testCreatePolicy() throws Exception {
+        CoordinationTemplate template = CoordinationTemplate.getTemplate(FIRST_BLOCKS_SECOND);
+        assertThat(CoordinationTemplate.getTemplate(FIRST_BLOCKS_SECOND)).isSameAs(template);
+
+        PolicyType first = template.createPolicy(values("id-1", "cl-a", "cl-b"));
+        PolicyType second = template.createPolicy(values("id-2", "cl-$1", "cl-c"));
+        assertThat(first.getPolicyId()).isEqualTo("id-1");
+        assertThat(second.getPolicyId()).isEqualTo("id-2");
+        assertThat(((RuleType) first.getCombinerParametersOrRuleCombinerParametersOrVariableDefinition().get(0))
+                .getRuleId()).isEqualTo("id-1:rule:1");
+        //
+        // Each policy is a separate copy with its own values
+        //
+        assertThat(first.getTarget()).isNotSameAs(second.getTarget());
+        String firstXml = toXml(first);
+        assertThat(firstXml).contains(">cl-b<").contains("get-operation-outcome:clname:cl-a")
+            .doesNotContain("CONTROL_LOOP").doesNotContain("UNIQUE_ID");
+        assertThat(toXml(second)).contains(">cl-c<").contains("get-operation-outcome:clname:cl-$1");
+        assertThat(toXml(first)).isEqualTo(firstXml);
+        //
+        // Values are not read as XML
+        //
+        PolicyType third = template.createPolicy(values("id-3", "cl-<&>", "cl-\"d'"));
+        assertThat(toXml(third)).contains("get-operation-outcome:clname:cl-&lt;&amp;&gt;");
+        assertThat(third.getPolicyId()).isEqualTo("id-3");
+        //
+        // Values holding a placeholder are not replaced again, whatever the order of the values
+        //
+        for (int count = 0; count < 10; count++) {
+            PolicyType fourth = template.createPolicy(values("id-" + CoordinationTemplate.CONTROL_LOOP_TWO,
+                    CoordinationTemplate.CONTROL_LOOP_TWO, CoordinationTemplate.UNIQUE_ID + count));
+            assertThat(fourth.getPolicyId()).isEqualTo("id-" + CoordinationTemplate.CONTROL_LOOP_TWO);
+            assertThat(toXml(fourth)).contains(">UNIQUE_ID" + count + "<")
+                .contains("get-operation-outcome:clname:CONTROL_LOOP_TWO\"");
+        }
+        //
+        // The prototype is left as it is
+        //
+        assertThat(toXml(template.createPolicy(new HashMap<>()))).contains("PolicyId=\"UNIQUE_ID\"")
+            .contains(">CONTROL_LOOP_TWO<").contains("get-operation-outcome:clname:CONTROL_LOOP_ONE\"");
+        assertThat(template.createPolicy(values("id-5", "cl-a", "cl-b")).getRuleCombiningAlgId())
+            .isEqualTo(first.getRuleCombiningAlgId());
+        assertThat(toXml(template.createPolicy(values("id-1", "cl-a", "cl-b")))).isEqualTo(firstXml);
+    }
+
+    @Test
+    public void testUnknownFunction() {
+        assertThatExceptionOfType(ToscaPolicyConversionException.class)
+            .isThrownBy(() -> CoordinationTemplate.getTemplate("onap.policies.unknown"))
+            .withMessageContaining("No coordination prototype");
+    }
+
+    private static Map<String, String> values(String uniqueId, String clOne, String clTwo) {
+        Map<String, String> values = new HashMap<>();
+        values.put(CoordinationTemplate.UNIQUE_ID, uniqueId);
+        values.put(CoordinationTemplate.CONTROL_LOOP_ONE, clOne);
+        values.put(CoordinationTemplate.CONTROL_LOOP_TWO, clTwo);
+        return values;
+    }
+
+    private static String toXml(PolicyType policy) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XACMLPolicyWriter.writePolicyFile(output, policy);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -24,15 +24,27 @@ package org.onap.policy.xacml.pdp.application.guard;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.att.research.xacml.api.Attribute;
+import com.att.research.xacml.api.Decision;
+import com.att.research.xacml.api.Identifier;
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.RequestAttributes;
 import com.att.research.xacml.api.Response;
+import com.att.research.xacml.api.XACML3;
+import com.att.research.xacml.api.pdp.PDPEngine;
+import com.att.research.xacml.std.StdStatusCode;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.Date;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
@@ -55,13 +67,21 @@ import org.onap.policy.common.utils.coder.StandardCoder;
 import org.onap.policy.common.utils.resources.TextFileUtils;
 import org.onap.policy.models.decisions.concepts.DecisionRequest;
 import org.onap.policy.models.decisions.concepts.DecisionResponse;
+import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyTypeIdentifier;
 import org.onap.policy.pdp.xacml.application.common.TestUtils;
+import org.onap.policy.pdp.xacml.application.common.ToscaDictionary;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationException;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationServiceProvider;
 import org.onap.policy.pdp.xacml.application.common.XacmlPolicyUtils;
 import org.onap.policy.pdp.xacml.application.common.operationshistory.CountRecentOperationsPip;
 import org.onap.policy.pdp.xacml.application.common.operationshistory.Dbao;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.GetOperationOutcomePip;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.OperationsHistoryPip;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlRequestBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -382,6 +402,227 @@ public class GuardPdpApplicationTest {
         requestAndCheckDecision(requestVfCount3, DENY);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test7PipPrefetch() throws CoderException {
+        LOGGER.info("**************** Running test7 ****************");
+        //
+        // The frequency limiter policy from test3 is still loaded, its count
+        // is fetched before the request is evaluated.
+        //
+        insertOperationEvent(requestVfCount1);
+        Request request = ((GuardPdpApplication) service).convertRequest(requestVfCount1);
+        List<Attribute> counts = findResourceAttributes(request, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT);
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0).getIssuer()).isEqualTo(ToscaDictionary.GUARD_ISSUER_PREFIX
+                + CountRecentOperationsPip.ISSUER_NAME + ":tw:10:minute");
+        assertThat(counts.get(0).getValues().iterator().next().getValue()).isEqualTo(BigInteger.ONE);
+        //
+        // Nothing is fetched for an actor the policy does not apply to
+        //
+        Map<String, Object> guard = new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard"));
+        guard.put("actor", "FOO");
+        DecisionRequest other = gson.decode(gson.encode(requestVfCount1), DecisionRequest.class);
+        other.getResource().put("guard", guard);
+        request = ((GuardPdpApplication) service).convertRequest(other);
+        assertThat(findResourceAttributes(request, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT)).isEmpty();
+        //
+        // More lookups than the prefetch queue holds are all made, the rest by the calling thread
+        //
+        ToscaPolicy frequency = new ToscaPolicy();
+        frequency.setType("onap.policies.controlloop.guard.FrequencyLimiter");
+        frequency.setProperties(new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard")));
+        frequency.getProperties().put("timeWindow", "10");
+        frequency.getProperties().put("timeUnits", "minute");
+        GuardPipPrefetcher prefetcher = new GuardPipPrefetcher(properties);
+        prefetcher.addPolicy(frequency);
+        List<LegacyGuardPolicyRequest> requests = new ArrayList<>();
+        List<StdXacmlRequestBuilder> builders = new ArrayList<>();
+        while (requests.size() <= 2 * GuardPipPrefetcher.getQueueCapacity()) {
+            guard = new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard"));
+            guard.put("target", "prefetch-" + requests.size());
+            other = gson.decode(gson.encode(requestVfCount1), DecisionRequest.class);
+            other.getResource().put("guard", guard);
+            LegacyGuardPolicyRequest guardRequest = LegacyGuardPolicyRequest.createInstance(other);
+            requests.add(guardRequest);
+            builders.add(guardRequest.createXacmlRequestBuilder());
+        }
+        prefetcher.prefetch(requests, builders);
+        for (StdXacmlRequestBuilder builder : builders) {
+            assertThat(findResourceAttributes(builder.build(), ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT))
+                .hasSize(1);
+        }
+        prefetcher.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test8CombinedHistoryPrefetch() throws Exception {
+        LOGGER.info("**************** Running test8 ****************");
+        Properties historyProperties = new Properties();
+        historyProperties.putAll(properties);
+        historyProperties.setProperty("xacml.pip.engines", "operations-history");
+        historyProperties.setProperty("operations-history.classname", OperationsHistoryPip.class.getName());
+        historyProperties.setProperty("operations-history.persistenceunit", "OperationsHistoryPUTest");
+        GuardPipPrefetcher prefetcher = new GuardPipPrefetcher(historyProperties);
+        assertThat(prefetcher.isEnabled()).isTrue();
+        //
+        // A frequency limiter and a coordination policy both apply to the request
+        //
+        ToscaPolicy frequency = new ToscaPolicy();
+        frequency.setType("onap.policies.controlloop.guard.FrequencyLimiter");
+        frequency.setProperties(new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard")));
+        frequency.getProperties().put("timeWindow", "10");
+        frequency.getProperties().put("timeUnits", "minute");
+        prefetcher.addPolicy(frequency);
+        ToscaPolicy coordination = new ToscaPolicy();
+        coordination.setType("onap.policies.controlloop.guard.coordination.FirstBlocksSecond");
+        coordination.setProperties(new HashMap<>());
+        coordination.getProperties().put("controlLoop",
+                Arrays.asList("cl1", frequency.getProperties().get("clname")));
+        prefetcher.addPolicy(coordination);
+
+        DecisionRequest blocking = gson.decode(gson.encode(requestVfCount1), DecisionRequest.class);
+        Map<String, Object> guard = new HashMap<>(frequency.getProperties());
+        guard.put("clname", "cl1");
+        blocking.getResource().put("guard", guard);
+        insertOperationEvent(blocking);
+        //
+        // Both attributes come from a single query
+        //
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(OperationsHistoryPip.ISSUER_NAME);
+        long queries = breaker.getQueryCount();
+        LegacyGuardPolicyRequest guardRequest = LegacyGuardPolicyRequest.createInstance(requestVfCount1);
+        StdXacmlRequestBuilder builder = guardRequest.createXacmlRequestBuilder();
+        prefetcher.prefetch(guardRequest, builder);
+        Request request = builder.build();
+        assertThat(breaker.getQueryCount()).isEqualTo(queries + 1);
+
+        List<Attribute> counts = findResourceAttributes(request, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT);
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0).getIssuer()).isEqualTo(ToscaDictionary.GUARD_ISSUER_PREFIX
+                + CountRecentOperationsPip.ISSUER_NAME + ":tw:10:minute");
+        assertThat((BigInteger) counts.get(0).getValues().iterator().next().getValue())
+            .isGreaterThanOrEqualTo(BigInteger.ONE);
+        List<Attribute> outcomes = findResourceAttributes(request, ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONOUTCOME);
+        assertThat(outcomes).hasSize(1);
+        assertThat(outcomes.get(0).getIssuer()).isEqualTo(ToscaDictionary.GUARD_ISSUER_PREFIX
+                + GetOperationOutcomePip.ISSUER_NAME + ":clname:cl1");
+        assertThat(outcomes.get(0).getValues().iterator().next().getValue()).isEqualTo("SUCCESS");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test9BatchDecisions() throws CoderException {
+        LOGGER.info("**************** Running test9 ****************");
+        insertOperationEvent(requestVfCount1);
+        Map<String, Object> guard = new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard"));
+        guard.put("actor", "FOO");
+        DecisionRequest other = gson.decode(gson.encode(requestVfCount1), DecisionRequest.class);
+        other.getResource().put("guard", guard);
+        List<DecisionRequest> batch = Arrays.asList(requestVfCount1, other, requestVfCount1);
+        //
+        // The count both copies of the request need is only fetched once
+        //
+        StdCircuitBreaker breaker = StdCircuitBreaker.getBreakers().get(CountRecentOperationsPip.ISSUER_NAME);
+        long queries = breaker.getQueryCount();
+        List<Request> requests = ((GuardPdpApplication) service).convertRequests(batch);
+        assertThat(breaker.getQueryCount()).isEqualTo(queries + 1);
+        assertThat(requests).hasSize(3);
+        assertThat(findResourceAttributes(requests.get(0), ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT))
+            .hasSize(1);
+        assertThat(findResourceAttributes(requests.get(1), ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT))
+            .isEmpty();
+        assertThat(findResourceAttributes(requests.get(2), ToscaDictionary.ID_RESOURCE_GUARD_OPERATIONCOUNT))
+            .hasSize(1);
+        //
+        // The decisions come back in order, the same as deciding one at a time
+        //
+        List<Pair<DecisionResponse, Response>> decisions = service.makeDecisions(batch);
+        assertThat(decisions).hasSize(3);
+        for (int index = 0; index < batch.size(); index++) {
+            checkDecision(service.makeDecision(batch.get(index)).getKey().getStatus(), decisions.get(index).getKey());
+        }
+        //
+        // A batch larger than the decision queue is still decided, in order
+        //
+        List<DecisionRequest> large = new ArrayList<>();
+        while (large.size() <= 2 * StdXacmlApplicationServiceProvider.getDecisionPoolQueueCapacity()) {
+            large.addAll(batch);
+        }
+        decisions = service.makeDecisions(large);
+        assertThat(decisions).hasSize(large.size());
+        for (int index = 0; index < large.size(); index++) {
+            assertThat(decisions.get(index).getKey().getStatus())
+                .isEqualTo(decisions.get(index % batch.size()).getKey().getStatus());
+        }
+        assertThat(StdXacmlApplicationServiceProvider.getDecisionPoolQueueSize()).isZero();
+        //
+        // Every stage of the decisions was timed, including the operations history queries
+        //
+        Map<String, StdLatencyHistogram> latencies = ((GuardPdpApplication) service).getLatencyHistograms();
+        assertThat(latencies).containsOnlyKeys(StdXacmlApplicationServiceProvider.STAGE_CONVERT_REQUEST,
+                StdXacmlApplicationServiceProvider.STAGE_DECIDE, StdXacmlApplicationServiceProvider.STAGE_PIP,
+                StdXacmlApplicationServiceProvider.STAGE_CONVERT_RESPONSE);
+        for (StdLatencyHistogram histogram : latencies.values()) {
+            assertThat(histogram.getSummary().getCount()).isPositive();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test9BatchFailedDecision() throws Exception {
+        LOGGER.info("**************** Running test9 failed decision ****************");
+        Map<String, Object> guard = new HashMap<>((Map<String, Object>) requestVfCount1.getResource().get("guard"));
+        guard.put("actor", "FOO");
+        DecisionRequest other = gson.decode(gson.encode(requestVfCount1), DecisionRequest.class);
+        other.getResource().put("guard", guard);
+        List<DecisionRequest> batch = Arrays.asList(requestVfCount1, other, requestVfCount1);
+        //
+        // The engine fails to decide the request for actor FOO, it is decided in the background
+        //
+        GuardPdpApplication failing = new GuardPdpApplication() {
+            @Override
+            protected Response xacmlDecision(PDPEngine engine, Request request) {
+                for (Attribute actor : findResourceAttributes(request, ToscaDictionary.ID_RESOURCE_GUARD_ACTOR)) {
+                    if ("FOO".equals(actor.getValues().iterator().next().getValue())) {
+                        throw new AssertionError("engine failed");
+                    }
+                }
+                return super.xacmlDecision(engine, request);
+            }
+        };
+        failing.initialize(propertiesFile.toPath().getParent());
+        try {
+            List<Pair<DecisionResponse, Response>> decisions = failing.makeDecisions(batch);
+            //
+            // The other decisions of the batch are still made
+            //
+            assertThat(decisions).hasSize(3);
+            checkDecision(service.makeDecision(requestVfCount1).getKey().getStatus(), decisions.get(0).getKey());
+            checkDecision(service.makeDecision(requestVfCount1).getKey().getStatus(), decisions.get(2).getKey());
+            Response failed = decisions.get(1).getValue();
+            assertThat(failed).isNotNull();
+            assertThat(failed.getResults()).hasSize(1);
+            assertThat(failed.getResults().iterator().next().getDecision()).isEqualTo(Decision.INDETERMINATE);
+            assertThat(failed.getResults().iterator().next().getStatus().getStatusCode())
+                .isEqualTo(StdStatusCode.STATUS_CODE_PROCESSING_ERROR);
+            assertThat(decisions.get(1).getKey().getStatus()).isNull();
+        } finally {
+            failing.shutdown();
+        }
+    }
+
+    private List<Attribute> findResourceAttributes(Request request, Identifier id) {
+        List<Attribute> found = new ArrayList<>();
+        for (RequestAttributes attributes : request.getRequestAttributes()) {
+            if (XACML3.ID_ATTRIBUTE_CATEGORY_RESOURCE.equals(attributes.getCategory())) {
+                attributes.getAttributes(id).forEachRemaining(found::add);
+            }
+        }
+        return found;
+    }
+
     @SuppressWarnings("unchecked")
     private void insertOperationEvent(DecisionRequest request) {
         //
@@ -0,0 +1,64 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.application.guard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.std.annotations.RequestParser;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+
+public class LegacyGuardPolicyRequestTest {
+
+    @Test
+    public void testToXacmlRequest() throws Exception {
+        DecisionRequest decisionRequest = new DecisionRequest();
+        decisionRequest.setOnapName("Policy");
+        decisionRequest.setOnapComponent("drools-pdp");
+        decisionRequest.setOnapInstance("usecase-template");
+        decisionRequest.setRequestId("unique-request-id-1");
+        decisionRequest.setAction("guard");
+        Map<String, Object> guard = new HashMap<>();
+        guard.put("actor", "SO");
+        guard.put("recipe", "VF Module Create");
+        guard.put("clname", "ControlLoop-vDNS-6f37f56d-a87d-4b85-b6a9-cc953cf779b3");
+        guard.put("target", "vLoadBalancer-00");
+        guard.put("vfCount", "1");
+        guard.put("min", 1);
+        guard.put("max", "5");
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("guard", guard);
+        decisionRequest.setResource(resources);
+
+        LegacyGuardPolicyRequest request = LegacyGuardPolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(request));
+        //
+        // Without any guard resources
+        //
+        decisionRequest.setResource(new HashMap<>());
+        request = LegacyGuardPolicyRequest.createInstance(decisionRequest);
+        assertThat(request.toXacmlRequest()).isEqualTo(RequestParser.parseRequest(request));
+    }
+}
@@ -26,8 +26,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyTypeIdentifier;
 import org.onap.policy.pdp.xacml.application.common.ToscaPolicyTranslator;
+import org.onap.policy.pdp.xacml.application.common.std.StdCombinedPolicyRequest;
 import org.onap.policy.pdp.xacml.application.common.std.StdCombinedPolicyResultsTranslator;
 import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
 
@@ -95,6 +97,15 @@ public class MonitoringPdpApplication extends StdXacmlApplicationServiceProvider
                 || policyTypeId.getName().startsWith(ONAP_MONITORING_DERIVED_POLICY_TYPE));
     }
 
+    @Override
+    protected Object getDecisionCacheKey(DecisionRequest request) {
+        //
+        // The configuration returned only depends on the policy ids/types
+        // requested and the deployed policies, DCAE polls the same ones over and over.
+        //
+        return StdCombinedPolicyRequest.createInstance(request).createCacheKey();
+    }
+
     @Override
     protected ToscaPolicyTranslator getTranslator(String type) {
         return translator;
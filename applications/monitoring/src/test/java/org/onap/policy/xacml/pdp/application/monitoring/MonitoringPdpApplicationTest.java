@@ -27,10 +27,22 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.att.research.xacml.api.Response;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -49,6 +61,9 @@ import org.onap.policy.pdp.xacml.application.common.TestUtils;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationException;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationServiceProvider;
 import org.onap.policy.pdp.xacml.application.common.XacmlPolicyUtils;
+import org.onap.policy.pdp.xacml.application.common.std.StdDecisionAudit;
+import org.onap.policy.pdp.xacml.application.common.std.StdDecisionCache;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -214,4 +229,216 @@ public class MonitoringPdpApplicationTest {
         assertThat(decision.getKey().getPolicies().size()).isEqualTo(0);
     }
 
+    @Test
+    public void test4ConcurrentDecisions() throws Exception {
+        //
+        // Decisions are no longer serialized on the application, make sure
+        // they all come back intact while a policy is loaded and unloaded
+        // underneath them.
+        //
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Pair<DecisionResponse, Response>>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> service.makeDecision(requestSinglePolicy)));
+            }
+            final List<ToscaPolicy> loadedPolicies = TestUtils.loadPolicies(
+                    "src/test/resources/vDNS.policy.input.yaml", service);
+            for (ToscaPolicy policy : loadedPolicies) {
+                assertThat(service.unloadPolicy(policy)).isTrue();
+            }
+            for (Future<Pair<DecisionResponse, Response>> future : futures) {
+                Pair<DecisionResponse, Response> decision = future.get();
+                assertThat(decision.getKey()).isNotNull();
+                assertThat(decision.getKey().getPolicies().size()).isLessThanOrEqualTo(1);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test5BatchLoadUnload() throws Exception {
+        final List<ToscaPolicy> loadedPolicies = TestUtils.loadPolicies(
+                "src/test/resources/vDNS.policy.input.yaml", service);
+        assertThat(loadedPolicies).isNotEmpty();
+        //
+        // Unload the whole batch at once
+        //
+        assertThat(service.unloadPolicies(loadedPolicies)).containsExactlyElementsOf(loadedPolicies);
+        Pair<DecisionResponse, Response> decision = service.makeDecision(requestSinglePolicy);
+        assertThat(decision.getKey().getPolicies().size()).isEqualTo(0);
+        //
+        // Nothing left to unload
+        //
+        assertThat(service.unloadPolicies(loadedPolicies)).isEmpty();
+        //
+        // Load the whole batch back in
+        //
+        assertThat(service.loadPolicies(loadedPolicies)).containsExactlyElementsOf(loadedPolicies);
+        decision = service.makeDecision(requestSinglePolicy);
+        assertThat(decision.getKey().getPolicies().size()).isEqualTo(1);
+
+        assertThat(service.unloadPolicies(loadedPolicies)).containsExactlyElementsOf(loadedPolicies);
+    }
+
+    @Test
+    public void test6DecisionCache() throws Exception {
+        StdDecisionCache cache = ((StdXacmlApplicationServiceProvider) service).getDecisionCache();
+        assertThat(cache).isNotNull();
+        //
+        // Same request twice, the second comes from the cache
+        //
+        Pair<DecisionResponse, Response> decision = service.makeDecision(requestSinglePolicy);
+        long hits = cache.getHits();
+        Pair<DecisionResponse, Response> cached = service.makeDecision(requestSinglePolicy);
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+        assertThat(cached.getKey()).isEqualTo(decision.getKey()).isNotSameAs(decision.getKey());
+        //
+        // Each hit is a copy, changing one does not change the next
+        //
+        cached.getKey().setStatus("changed");
+        cached.getKey().getPolicies().clear();
+        cached = service.makeDecision(requestSinglePolicy);
+        assertThat(cached.getKey()).isEqualTo(decision.getKey());
+        assertThat(cached.getValue().getResults()).hasSameSizeAs(decision.getValue().getResults());
+        //
+        // Loading a policy must invalidate it
+        //
+        final List<ToscaPolicy> loadedPolicies = TestUtils.loadPolicies(
+                "src/test/resources/vDNS.policy.input.yaml", service);
+        long misses = cache.getMisses();
+        decision = service.makeDecision(requestSinglePolicy);
+        assertThat(cache.getMisses()).isEqualTo(misses + 1);
+        assertThat(decision.getKey().getPolicies().size()).isEqualTo(1);
+        assertThat(service.makeDecision(requestSinglePolicy).getKey()).isEqualTo(decision.getKey());
+        //
+        // And so must unloading it
+        //
+        assertThat(service.unloadPolicies(loadedPolicies)).containsExactlyElementsOf(loadedPolicies);
+        decision = service.makeDecision(requestSinglePolicy);
+        assertThat(decision.getKey().getPolicies().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void test7ParallelBatchLoad() throws Exception {
+        StdXacmlApplicationServiceProvider provider = (StdXacmlApplicationServiceProvider) service;
+        ToscaPolicy template = TestUtils.loadPolicies("src/test/resources/vDNS.policy.input.yaml", service).get(0);
+        assertThat(service.unloadPolicy(template)).isTrue();
+        List<ToscaPolicy> batch = new ArrayList<>();
+        for (int index = 0; index < 8; index++) {
+            batch.add(copyPolicy(template, "onap.scaleout.tca." + index, true));
+        }
+        //
+        // The policies are converted in parallel, but come back in the order
+        // they were given and the engine is only built once for all of them.
+        //
+        long builds = provider.getEngineBuildCount();
+        assertThat(service.loadPolicies(batch)).containsExactlyElementsOf(batch);
+        assertThat(provider.getEngineBuildCount()).isEqualTo(builds + 1);
+        Pair<DecisionResponse, Response> decision = service.makeDecision(requestPolicyType);
+        assertThat(decision.getKey().getPolicies()).hasSize(8);
+        assertThat(service.unloadPolicies(batch)).containsExactlyElementsOf(batch);
+    }
+
+    @Test
+    public void test8FailedConversion() throws Exception {
+        StdXacmlApplicationServiceProvider provider = (StdXacmlApplicationServiceProvider) service;
+        ToscaPolicy template = TestUtils.loadPolicies("src/test/resources/vDNS.policy.input.yaml", service).get(0);
+        assertThat(service.unloadPolicy(template)).isTrue();
+        ToscaPolicy good = copyPolicy(template, "onap.scaleout.tca.good", true);
+        ToscaPolicy bad = copyPolicy(template, "onap.scaleout.tca.bad", false);
+        //
+        // The policy that fails to convert is left out, the engine is built
+        // once with the rest of the batch and never includes the failed one.
+        //
+        long builds = provider.getEngineBuildCount();
+        assertThat(service.loadPolicies(Arrays.asList(bad, good))).containsExactly(good);
+        assertThat(provider.getEngineBuildCount()).isEqualTo(builds + 1);
+        Pair<DecisionResponse, Response> decision = service.makeDecision(requestPolicyType);
+        assertThat(decision.getKey().getPolicies()).containsOnlyKeys("onap.scaleout.tca.good");
+        //
+        // When nothing converts no new engine is published at all
+        //
+        builds = provider.getEngineBuildCount();
+        assertThat(service.loadPolicies(Arrays.asList(bad))).isEmpty();
+        assertThat(provider.getEngineBuildCount()).isEqualTo(builds);
+        decision = service.makeDecision(requestPolicyType);
+        assertThat(decision.getKey().getPolicies()).containsOnlyKeys("onap.scaleout.tca.good");
+        assertThat(service.unloadPolicies(Arrays.asList(good))).containsExactly(good);
+    }
+
+    @Test
+    public void test9DecisionAuditLifecycle() throws Exception {
+        //
+        // An application of its own, with an audit file
+        //
+        File folder = policyFolder.newFolder("audit");
+        File auditProperties = XacmlPolicyUtils.copyXacmlPropertiesContents("src/test/resources/xacml.properties",
+                new Properties(), filename -> new File(folder, filename));
+        Files.write(auditProperties.toPath(), (System.lineSeparator() + StdDecisionAudit.PROP_FILE + "=audit.log"
+                + System.lineSeparator()).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        MonitoringPdpApplication application = new MonitoringPdpApplication();
+        application.initialize(folder.toPath());
+        StdDecisionAudit first = application.getDecisionAudit();
+        assertThat(first.isRunning()).isTrue();
+        //
+        // Initializing again replaces the audit, and stops the previous one
+        //
+        application.initialize(folder.toPath());
+        StdDecisionAudit second = application.getDecisionAudit();
+        assertThat(second).isNotSameAs(first);
+        assertThat(first.isRunning()).isFalse();
+        assertThat(second.isRunning()).isTrue();
+
+        application.shutdown();
+        assertThat(second.isRunning()).isFalse();
+        assertThat(application.getDecisionAudit()).isNull();
+    }
+
+    @Test
+    public void test10PropertiesNotSaved() throws Exception {
+        File folder = policyFolder.newFolder("rollback");
+        XacmlPolicyUtils.copyXacmlPropertiesContents("src/test/resources/xacml.properties", new Properties(),
+            filename -> new File(folder, filename));
+        MonitoringPdpApplication application = new MonitoringPdpApplication();
+        application.initialize(folder.toPath());
+        ToscaPolicy template = TestUtils.loadPolicies("src/test/resources/vDNS.policy.input.yaml", application)
+                .get(0);
+        assertThat(application.unloadPolicy(template)).isTrue();
+        //
+        // The properties cannot be saved when a directory is in the way
+        //
+        Path propertiesPath = XacmlPolicyUtils.getPropertiesPath(folder.toPath());
+        Files.delete(propertiesPath);
+        Files.createDirectory(propertiesPath);
+        List<ToscaPolicy> batch = Arrays.asList(copyPolicy(template, "onap.scaleout.tca.1", true),
+                copyPolicy(template, "onap.scaleout.tca.2", true));
+        long builds = application.getEngineBuildCount();
+        assertThat(application.loadPolicies(batch)).isEmpty();
+        assertThat(application.getEngineBuildCount()).isEqualTo(builds);
+        //
+        // Nothing written for the batch is left behind
+        //
+        try (Stream<Path> files = Files.list(folder.toPath())) {
+            assertThat(files.filter(file -> file.toString().endsWith(".xml"))).isEmpty();
+        }
+        application.shutdown();
+    }
+
+    private static ToscaPolicy copyPolicy(ToscaPolicy template, String name, boolean withVersion) {
+        ToscaPolicy policy = new ToscaPolicy();
+        policy.setName(name);
+        policy.setVersion(template.getVersion());
+        policy.setType(template.getType());
+        policy.setTypeVersion(template.getTypeVersion());
+        policy.setProperties(template.getProperties());
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("policy-id", name);
+        if (withVersion) {
+            metadata.put("policy-version", "1");
+        }
+        policy.setMetadata(metadata);
+        return policy;
+    }
 }
@@ -25,12 +25,15 @@ import org.onap.policy.common.utils.network.NetworkUtil;
 import org.onap.policy.models.pdp.concepts.PdpMessage;
 import org.onap.policy.models.pdp.concepts.PdpResponseDetails;
 import org.onap.policy.models.pdp.concepts.PdpStateChange;
+import org.onap.policy.models.pdp.concepts.PdpStatistics;
 import org.onap.policy.models.pdp.concepts.PdpStatus;
 import org.onap.policy.models.pdp.concepts.PdpUpdate;
 import org.onap.policy.models.pdp.enums.PdpHealthStatus;
 import org.onap.policy.models.pdp.enums.PdpResponseStatus;
 import org.onap.policy.models.pdp.enums.PdpState;
 import org.onap.policy.pdpx.main.rest.XacmlPdpApplicationManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot;
 import org.onap.policy.pdpx.main.startstop.XacmlPdpActivator;
 
 /**
@@ -82,10 +85,34 @@ public class XacmlState {
         // first, update status fields
         status.setHealthy(XacmlPdpActivator.getCurrent().isAlive() ? PdpHealthStatus.HEALTHY
                         : PdpHealthStatus.NOT_HEALTHY);
+        status.setStatistics(genStatistics());
 
         return new PdpStatus(status);
     }
 
+    /**
+     * Generates the statistics sent with the heart beat.
+     *
+     * @return the statistics
+     */
+    PdpStatistics genStatistics() {
+        //
+        // The counts are taken from the same snapshot the statistics endpoint reports
+        //
+        XacmlPdpStatisticsSnapshot stats = XacmlPdpStatisticsManager.getCurrent().snapshot();
+        PdpStatistics statistics = new PdpStatistics();
+        statistics.setPdpInstanceId(status.getName());
+        statistics.setPolicyDeployCount(stats.getDeploySuccessCount() + stats.getDeployFailCount());
+        statistics.setPolicyDeploySuccessCount(stats.getDeploySuccessCount());
+        statistics.setPolicyDeployFailCount(stats.getDeployFailCount());
+        statistics.setPolicyExecutedCount(stats.getTotals().getDecisionsCount() + stats.getErrorCount());
+        statistics.setPolicyExecutedSuccessCount(stats.getTotals().getDecisionsCount()
+                - stats.getTotals().getIndeterminantDecisionsCount());
+        statistics.setPolicyExecutedFailCount(stats.getTotals().getIndeterminantDecisionsCount()
+                + stats.getErrorCount());
+        return statistics;
+    }
+
     /**
      * Updates the internal state based on the given message.
      *
@@ -117,11 +144,30 @@ public class XacmlState {
      * @return a response to the message
      */
     public PdpStatus updateInternalState(PdpUpdate message) {
+        return updateInternalState(message, true, null);
+    }
+
+    /**
+     * Updates the internal state based on the given message. Assumes that the policies
+     * have already been updated within the application manager.
+     *
+     * @param message message from which to update the internal state
+     * @param success {@code true} if all the policies were deployed and undeployed
+     * @param responseMessage message to include in the response details, may be {@code null}
+     * @return a response to the message
+     */
+    public PdpStatus updateInternalState(PdpUpdate message, boolean success, String responseMessage) {
         status.setPdpGroup(message.getPdpGroup());
         status.setPdpSubgroup(message.getPdpSubgroup());
         status.setPolicies(appManager.getToscaPolicyIdentifiers());
 
-        return makeResponse(message);
+        PdpStatus status2 = makeResponse(message);
+        if (!success) {
+            status2.getResponse().setResponseStatus(PdpResponseStatus.FAIL);
+        }
+        status2.getResponse().setResponseMessage(responseMessage);
+
+        return status2;
     }
 
     /**
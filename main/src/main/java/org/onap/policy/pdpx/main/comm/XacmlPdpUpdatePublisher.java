@@ -20,8 +20,10 @@
 
 package org.onap.policy.pdpx.main.comm;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.onap.policy.common.endpoints.event.comm.client.TopicSinkClient;
 import org.onap.policy.models.pdp.concepts.PdpStatus;
@@ -65,29 +67,46 @@ public class XacmlPdpUpdatePublisher {
         Set<ToscaPolicy> deployedPolicies =
                 new HashSet<>(appManager.getToscaPolicies().keySet());
 
-        // Undeploy a policy
+        long timeStart = System.currentTimeMillis();
+
+        // Undeploy policies
         // if incoming policies do not contain the deployed policy then remove it from PDP
+        List<ToscaPolicy> undeployPolicies = new ArrayList<>();
         for (ToscaPolicy policy : deployedPolicies) {
             if (!incomingPolicies.contains(policy)) {
-                appManager.removeUndeployedPolicy(policy);
+                undeployPolicies.add(policy);
             }
         }
+        int undeployed = undeployPolicies.isEmpty() ? 0 : appManager.removeUndeployedPolicies(undeployPolicies);
 
-        // Deploy a policy
+        // Deploy policies
         // if deployed policies do not contain the incoming policy load it
+        List<ToscaPolicy> deployPolicies = new ArrayList<>();
         for (ToscaPolicy policy : incomingPolicies) {
             if (!deployedPolicies.contains(policy)) {
-                appManager.loadDeployedPolicy(policy);
+                deployPolicies.add(policy);
             }
         }
+        int deployed = deployPolicies.isEmpty() ? 0 : appManager.loadDeployedPolicies(deployPolicies);
+
+        long elapsed = System.currentTimeMillis() - timeStart;
+        String responseMessage = String.format("deployed %d of %d, undeployed %d of %d policies in %dms",
+                deployed, deployPolicies.size(), undeployed, undeployPolicies.size(), elapsed);
+        boolean success = deployed == deployPolicies.size() && undeployed == undeployPolicies.size();
+        if (success) {
+            LOGGER.info("PDP update {}", responseMessage);
+        } else {
+            LOGGER.error("PDP update {}", responseMessage);
+        }
 
-        // update the policy count statistic
+        // update the policy count and deploy statistics
         XacmlPdpStatisticsManager stats = XacmlPdpStatisticsManager.getCurrent();
         if (stats != null) {
             stats.setTotalPolicyCount(appManager.getPolicyCount());
+            stats.updateDeployCounts(deployed, deployPolicies.size() - (long) deployed);
         }
 
-        sendPdpUpdate(state.updateInternalState(message));
+        sendPdpUpdate(state.updateInternalState(message, success, responseMessage));
     }
 
     private void sendPdpUpdate(PdpStatus status) {
@@ -36,10 +36,13 @@ public class XacmlPdpParameterGroup implements ParameterGroup {
     private static final String PARAM_REST_SERVER = "restServerParameters";
     private static final String PARAM_TOPIC_PARAMETER_GROUP = "topicParameterGroup";
     private static final String PARAM_APPLICATION_PATH = "applicationPath";
+    private static final String PARAM_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
     private String name;
     private RestServerParameters restServerParameters;
     private TopicParameterGroup topicParameterGroup;
     private String applicationPath;
+    private Integer maxBatchSize;
 
     /**
      * Create the xacml pdp parameter group.
@@ -101,6 +104,24 @@ public class XacmlPdpParameterGroup implements ParameterGroup {
         return applicationPath;
     }
 
+    /**
+     * Returns the largest number of requests a batch decision may have.
+     *
+     * @return the maximum batch size, the default if it is not configured
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize == null ? DEFAULT_MAX_BATCH_SIZE : maxBatchSize;
+    }
+
+    /**
+     * Sets the largest number of requests a batch decision may have.
+     *
+     * @param maxBatchSize the maximum batch size, null for the default
+     */
+    public void setMaxBatchSize(Integer maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
     /**
      * Validate the parameter group.
      *
@@ -131,6 +152,10 @@ public class XacmlPdpParameterGroup implements ParameterGroup {
             validationResult.setResult(PARAM_APPLICATION_PATH, ValidationStatus.INVALID,
                     "must have application path for applications to store policies and data.");
         }
+        if (maxBatchSize != null && maxBatchSize < 1) {
+            validationResult.setResult(PARAM_MAX_BATCH_SIZE, ValidationStatus.INVALID,
+                    "must be a positive number of decision requests");
+        }
         return validationResult;
     }
 }
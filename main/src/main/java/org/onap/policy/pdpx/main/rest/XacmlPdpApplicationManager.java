@@ -25,10 +25,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.ServiceLoader;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
@@ -38,6 +42,10 @@ import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyIdentifier;
 import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicyTypeIdentifier;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationException;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationServiceProvider;
+import org.onap.policy.pdp.xacml.application.common.std.StdConcurrencyLimiter;
+import org.onap.policy.pdp.xacml.application.common.std.StdDecisionCache;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -143,58 +151,75 @@ public class XacmlPdpApplicationManager {
     }
 
     /**
-     * Finds the appropriate application and removes the policy.
+     * Groups the policies by the application that owns them and has each
+     * application remove its batch, so every application only rebuilds
+     * its engine once.
      *
-     * @param policy Incoming policy
+     * @param policies Incoming policies
+     * @return the number of policies that were removed
      */
-    public void removeUndeployedPolicy(ToscaPolicy policy) {
-
-        for (XacmlApplicationServiceProvider application : applicationLoader) {
+    public int removeUndeployedPolicies(Collection<ToscaPolicy> policies) {
+        Map<XacmlApplicationServiceProvider, List<ToscaPolicy>> batches = new LinkedHashMap<>();
+        for (ToscaPolicy policy : policies) {
+            XacmlApplicationServiceProvider application = mapLoadedPolicies.get(policy);
+            if (application == null) {
+                LOGGER.error("Failed to find application for undeployed policy {}", policy.getMetadata());
+                continue;
+            }
+            batches.computeIfAbsent(application, key -> new ArrayList<>()).add(policy);
+        }
+        int removed = 0;
+        for (Entry<XacmlApplicationServiceProvider, List<ToscaPolicy>> batch : batches.entrySet()) {
             try {
-                if (application.unloadPolicy(policy)) {
+                for (ToscaPolicy policy : batch.getKey().unloadPolicies(batch.getValue())) {
                     if (LOGGER.isInfoEnabled()) {
                         LOGGER.info("Unloaded ToscaPolicy {} from application {}", policy.getMetadata(),
-                            application.applicationName());
-                    }
-                    if (mapLoadedPolicies.remove(policy) == null) {
-                        LOGGER.error("Failed to remove unloaded policy {} from map size {}", policy.getMetadata(),
-                                mapLoadedPolicies.size());
+                            batch.getKey().applicationName());
                     }
+                    mapLoadedPolicies.remove(policy);
+                    removed++;
                 }
             } catch (XacmlApplicationException e) {
-                LOGGER.error("Failed to undeploy the Tosca Policy", e);
+                LOGGER.error("Failed to undeploy the Tosca Policies", e);
             }
         }
+        return removed;
     }
 
     /**
-     * Finds the appropriate application and loads the policy.
+     * Groups the policies by the application that supports them and has each
+     * application load its batch, so every application only rebuilds
+     * its engine once.
      *
-     * @param policy Incoming policy
+     * @param policies Incoming policies
+     * @return the number of policies that were loaded
      */
-    public void loadDeployedPolicy(ToscaPolicy policy) {
-
-        for (XacmlApplicationServiceProvider application : applicationLoader) {
+    public int loadDeployedPolicies(Collection<ToscaPolicy> policies) {
+        Map<XacmlApplicationServiceProvider, List<ToscaPolicy>> batches = new LinkedHashMap<>();
+        for (ToscaPolicy policy : policies) {
+            XacmlApplicationServiceProvider application = findSupportingApplication(policy);
+            if (application == null) {
+                LOGGER.error("Failed to find application for deployed policy {}", policy.getMetadata());
+                continue;
+            }
+            batches.computeIfAbsent(application, key -> new ArrayList<>()).add(policy);
+        }
+        int loaded = 0;
+        for (Entry<XacmlApplicationServiceProvider, List<ToscaPolicy>> batch : batches.entrySet()) {
             try {
-                //
-                // There should be only one application per policytype. We can
-                // put more logic surrounding enforcement of that later. For now,
-                // just use the first one found.
-                //
-                if (application.canSupportPolicyType(policy.getTypeIdentifier())) {
-                    if (application.loadPolicy(policy)) {
-                        if (LOGGER.isInfoEnabled()) {
-                            LOGGER.info("Loaded ToscaPolicy {} into application {}", policy.getMetadata(),
-                                application.applicationName());
-                        }
-                        mapLoadedPolicies.put(policy, application);
+                for (ToscaPolicy policy : batch.getKey().loadPolicies(batch.getValue())) {
+                    if (LOGGER.isInfoEnabled()) {
+                        LOGGER.info("Loaded ToscaPolicy {} into application {}", policy.getMetadata(),
+                            batch.getKey().applicationName());
                     }
-                    return;
+                    mapLoadedPolicies.put(policy, batch.getKey());
+                    loaded++;
                 }
             } catch (XacmlApplicationException e) {
-                LOGGER.error("Failed to load the Tosca Policy", e);
+                LOGGER.error("Failed to load the Tosca Policies", e);
             }
         }
+        return loaded;
     }
 
     /**
@@ -221,6 +246,127 @@ public class XacmlPdpApplicationManager {
         return mapLoadedPolicies.size();
     }
 
+    /**
+     * Gets the number of policies deployed in each application.
+     *
+     * @return map of policy counts by application name
+     */
+    public Map<String, Integer> getPolicyCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (XacmlApplicationServiceProvider application : applicationLoader) {
+            counts.put(application.applicationName(), 0);
+        }
+        for (XacmlApplicationServiceProvider application : new ArrayList<>(mapLoadedPolicies.values())) {
+            counts.merge(application.applicationName(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the applications built on the standard service provider.
+     *
+     * @return list of applications
+     */
+    public List<StdXacmlApplicationServiceProvider> getStdApplications() {
+        List<StdXacmlApplicationServiceProvider> applications = new ArrayList<>();
+        for (XacmlApplicationServiceProvider application : applicationLoader) {
+            if (application instanceof StdXacmlApplicationServiceProvider) {
+                applications.add((StdXacmlApplicationServiceProvider) application);
+            }
+        }
+        return applications;
+    }
+
+    /**
+     * Shuts down the applications built on the standard service provider.
+     */
+    public void shutdown() {
+        for (StdXacmlApplicationServiceProvider application : getStdApplications()) {
+            application.shutdown();
+        }
+    }
+
+    /**
+     * Gets the limiters of concurrent decisions, for the applications that limit them.
+     *
+     * @return map of limiters by application name
+     */
+    public Map<String, StdConcurrencyLimiter> getConcurrencyLimiters() {
+        Map<String, StdConcurrencyLimiter> limiters = new TreeMap<>();
+        for (StdXacmlApplicationServiceProvider application : getStdApplications()) {
+            if (application.getConcurrencyLimiter() != null) {
+                limiters.put(application.applicationName(), application.getConcurrencyLimiter());
+            }
+        }
+        return limiters;
+    }
+
+    /**
+     * Gets the number of decisions served from the decision caches.
+     *
+     * @return Total count added from all applications
+     */
+    public long getDecisionCacheHitCount() {
+        long hits = 0;
+        for (StdDecisionCache cache : getDecisionCaches()) {
+            hits += cache.getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Gets the number of cacheable decisions that were not found in the decision caches.
+     *
+     * @return Total count added from all applications
+     */
+    public long getDecisionCacheMissCount() {
+        long misses = 0;
+        for (StdDecisionCache cache : getDecisionCaches()) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * Gets the decision latency histograms of the applications.
+     *
+     * @return map of histograms by decision stage, by application name
+     */
+    public Map<String, Map<String, StdLatencyHistogram>> getLatencyHistograms() {
+        Map<String, Map<String, StdLatencyHistogram>> latencies = new TreeMap<>();
+        for (XacmlApplicationServiceProvider application : applicationLoader) {
+            if (application instanceof StdXacmlApplicationServiceProvider) {
+                latencies.put(application.applicationName(),
+                        ((StdXacmlApplicationServiceProvider) application).getLatencyHistograms());
+            }
+        }
+        return latencies;
+    }
+
+    private List<StdDecisionCache> getDecisionCaches() {
+        List<StdDecisionCache> caches = new ArrayList<>();
+        for (XacmlApplicationServiceProvider application : applicationLoader) {
+            if (application instanceof StdXacmlApplicationServiceProvider
+                    && ((StdXacmlApplicationServiceProvider) application).getDecisionCache() != null) {
+                caches.add(((StdXacmlApplicationServiceProvider) application).getDecisionCache());
+            }
+        }
+        return caches;
+    }
+
+    private XacmlApplicationServiceProvider findSupportingApplication(ToscaPolicy policy) {
+        //
+        // There should be only one application per policytype, just use
+        // the first one found.
+        //
+        for (XacmlApplicationServiceProvider application : applicationLoader) {
+            if (application.canSupportPolicyType(policy.getTypeIdentifier())) {
+                return application;
+            }
+        }
+        return null;
+    }
+
     private void initializeApplicationPath(Path basePath, XacmlApplicationServiceProvider application)
             throws XacmlApplicationException {
         //
@@ -0,0 +1,89 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.onap.policy.common.gson.GsonMessageBodyHandler;
+import org.onap.policy.pdp.xacml.application.common.std.StdEncodedPolicy;
+
+/**
+ * Streams a response entity as Json straight to the servlet output stream. Policy contents
+ * that the applications already hold in Json form are copied out as they were encoded when
+ * the policy was loaded, rather than walking and serializing their maps again for every decision. Everything else
+ * is serialized the same as the {@link GsonMessageBodyHandler} the rest server uses.
+ *
+ */
+public class XacmlPdpResponseOutput implements StreamingOutput {
+
+    private static final Gson GSON = GsonMessageBodyHandler.configBuilder(new GsonBuilder())
+            .registerTypeHierarchyAdapter(StdEncodedPolicy.class, new EncodedPolicyAdapter()).create();
+
+    private final Object entity;
+
+    /**
+     * Constructor.
+     *
+     * @param entity Response entity
+     */
+    public XacmlPdpResponseOutput(Object entity) {
+        this.entity = entity;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        GSON.toJson(entity, entity.getClass(), writer);
+        writer.flush();
+    }
+
+    private static class EncodedPolicyAdapter extends TypeAdapter<StdEncodedPolicy> {
+
+        @Override
+        public void write(JsonWriter out, StdEncodedPolicy value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.jsonValue(value.getEncoded());
+            }
+        }
+
+        @Override
+        public StdEncodedPolicy read(JsonReader in) throws IOException {
+            throw new UnsupportedOperationException("policy contents are only written");
+        }
+    }
+}
@@ -34,6 +34,7 @@ import io.swagger.annotations.ResponseHeader;
 import io.swagger.annotations.SecurityDefinition;
 import io.swagger.annotations.SwaggerDefinition;
 
+import java.util.List;
 import java.util.UUID;
 
 import javax.ws.rs.Consumes;
@@ -42,6 +43,7 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -53,7 +55,9 @@ import org.onap.policy.models.decisions.concepts.DecisionResponse;
 import org.onap.policy.models.errors.concepts.ErrorResponse;
 import org.onap.policy.pdpx.main.rest.model.StatisticsReport;
 import org.onap.policy.pdpx.main.rest.provider.DecisionProvider;
+import org.onap.policy.pdpx.main.rest.provider.DecisionRejectedException;
 import org.onap.policy.pdpx.main.rest.provider.HealthCheckProvider;
+import org.onap.policy.pdpx.main.rest.provider.MetricsProvider;
 import org.onap.policy.pdpx.main.rest.provider.StatisticsProvider;
 
 /**
@@ -135,6 +139,40 @@ public class XacmlPdpRestController {
                 .entity(new StatisticsProvider().fetchCurrentStatistics()).build();
     }
 
+    @GET
+    @Path("/metrics")
+    @Produces(MetricsProvider.CONTENT_TYPE)
+    @ApiOperation(value = "Fetch current metrics",
+            notes = "Provides current metrics of the Policy Xacml PDP component in the Prometheus text format",
+            response = String.class,
+            responseHeaders = {
+                    @ResponseHeader(name = "X-MinorVersion",
+                            description = "Used to request or communicate a MINOR version back from the client"
+                                    + " to the server, and from the server back to the client",
+                            response = String.class),
+                    @ResponseHeader(name = "X-PatchVersion",
+                            description = "Used only to communicate a PATCH version in a response for"
+                                    + " troubleshooting purposes only, and will not be provided by"
+                                    + " the client on request",
+                            response = String.class),
+                    @ResponseHeader(name = "X-LatestVersion",
+                            description = "Used only to communicate an API's latest version", response = String.class),
+                    @ResponseHeader(name = "X-ONAP-RequestID",
+                            description = "Used to track REST transactions for logging purpose",
+                            response = UUID.class)},
+            authorizations = @Authorization(value = "basicAuth"), tags = {"Metrics",},
+            extensions = {@Extension(name = "interface info",
+                    properties = {@ExtensionProperty(name = "pdpx-version", value = "1.0.0"),
+                            @ExtensionProperty(name = "last-mod-release", value = "Dublin")})})
+    @ApiResponses(value = {@ApiResponse(code = 401, message = "Authentication Error"),
+            @ApiResponse(code = 403, message = "Authorization Error"),
+            @ApiResponse(code = 500, message = "Internal Server Error")})
+    public Response metrics(
+            @HeaderParam("X-ONAP-RequestID") @ApiParam("RequestID for http transaction") UUID requestId) {
+        return addLoggingHeaders(addVersionControlHeaders(Response.status(Response.Status.OK)), requestId)
+                .entity(new MetricsProvider().fetchMetrics()).build();
+    }
+
     /**
      * Our decision entry point.
      *
@@ -168,12 +206,15 @@ public class XacmlPdpRestController {
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
             @ApiResponse(code = 401, message = "Authentication Error"),
             @ApiResponse(code = 403, message = "Authorization Error"),
+            @ApiResponse(code = 429, message = "Too Many Requests", response = ErrorResponse.class),
             @ApiResponse(code = 500, message = "Internal Server Error")})
     public Response decision(DecisionRequest body,
             @HeaderParam("X-ONAP-RequestID") @ApiParam("RequestID for http transaction") UUID requestId) {
         try {
             return addLoggingHeaders(addVersionControlHeaders(Response.status(Response.Status.OK)), requestId)
-                    .entity(new DecisionProvider().fetchDecision(body)).build();
+                    .entity(new XacmlPdpResponseOutput(new DecisionProvider().fetchDecision(body))).build();
+        } catch (DecisionRejectedException e) {
+            return rejected(e, requestId);
         } catch (DecisionException e) {
             XacmlPdpStatisticsManager.getCurrent().updateErrorCount();
             return addLoggingHeaders(
@@ -182,6 +223,67 @@ public class XacmlPdpRestController {
         }
     }
 
+    /**
+     * Our batch decision entry point.
+     *
+     * @param body Should be a list of DecisionRequest objects
+     * @param requestId Unique request id
+     * @return list of DecisionResponse objects, in the order of the requests, or ErrorResponse object
+     */
+    @POST
+    @Path("/decisions")
+    @ApiOperation(value = "Fetch a batch of decisions using the specified decision parameters",
+            notes = "Returns the policy decisions from Policy Xacml PDP, in the order of the requests",
+            response = DecisionResponse.class, responseContainer = "List",
+            responseHeaders = {
+                    @ResponseHeader(name = "X-MinorVersion",
+                            description = "Used to request or communicate a MINOR version back from the client"
+                                    + " to the server, and from the server back to the client",
+                            response = String.class),
+                    @ResponseHeader(name = "X-PatchVersion",
+                            description = "Used only to communicate a PATCH version in a response for"
+                                    + " troubleshooting purposes only, and will not be provided by"
+                                    + " the client on request",
+                            response = String.class),
+                    @ResponseHeader(name = "X-LatestVersion",
+                            description = "Used only to communicate an API's latest version", response = String.class),
+                    @ResponseHeader(name = "X-ONAP-RequestID",
+                            description = "Used to track REST transactions for logging purpose",
+                            response = UUID.class)},
+            authorizations = @Authorization(value = "basicAuth"), tags = {"Decision",},
+            extensions = {@Extension(name = "interface info",
+                    properties = {@ExtensionProperty(name = "pdpx-version", value = "1.0.0"),
+                            @ExtensionProperty(name = "last-mod-release", value = "Dublin")})})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad Request", response = ErrorResponse.class),
+            @ApiResponse(code = 401, message = "Authentication Error"),
+            @ApiResponse(code = 403, message = "Authorization Error"),
+            @ApiResponse(code = 429, message = "Too Many Requests", response = ErrorResponse.class),
+            @ApiResponse(code = 500, message = "Internal Server Error")})
+    public Response decisions(List<DecisionRequest> body,
+            @HeaderParam("X-ONAP-RequestID") @ApiParam("RequestID for http transaction") UUID requestId) {
+        try {
+            return addLoggingHeaders(addVersionControlHeaders(Response.status(Response.Status.OK)), requestId)
+                    .entity(new XacmlPdpResponseOutput(new DecisionProvider().fetchDecisions(body))).build();
+        } catch (DecisionRejectedException e) {
+            return rejected(e, requestId);
+        } catch (DecisionException e) {
+            XacmlPdpStatisticsManager.getCurrent().updateErrorCount();
+            return addLoggingHeaders(
+                    addVersionControlHeaders(Response.status((e.getErrorResponse().getResponseCode()))), requestId)
+                    .entity(e.getErrorResponse()).build();
+        }
+    }
+
+    private Response rejected(DecisionRejectedException exception, UUID requestId) {
+        //
+        // Rejections are counted in the statistics by the decision provider,
+        // they are not errors. The client is told when to try again.
+        //
+        return addLoggingHeaders(addVersionControlHeaders(Response.status(Response.Status.TOO_MANY_REQUESTS)),
+                requestId).header(HttpHeaders.RETRY_AFTER, exception.getRetryAfterSeconds())
+                .entity(exception.getErrorResponse()).build();
+    }
+
     private ResponseBuilder addVersionControlHeaders(ResponseBuilder rb) {
         return rb.header("X-MinorVersion", "0").header("X-PatchVersion", "0").header("X-LatestVersion", "1.0.0");
     }
@@ -20,11 +20,21 @@
 
 package org.onap.policy.pdpx.main.rest;
 
+import com.att.research.xacml.api.Decision;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
 import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Class to hold statistical data for xacmlPdp component.
+ * Class to hold statistical data for xacmlPdp component. The decision counts are kept per
+ * application and per action in striped counters, so the request threads updating them do
+ * not contend with each other. They are read together with {@link #snapshot()}.
  *
  */
 public class XacmlPdpStatisticsManager {
@@ -32,13 +42,25 @@ public class XacmlPdpStatisticsManager {
     @Setter
     private static XacmlPdpStatisticsManager current = null;
 
-    private long totalPolicyTypesCount;
-    private long totalPoliciesCount;
-    private long errorsCount;
-    private long permitDecisionsCount;
-    private long denyDecisionsCount;
-    private long indeterminantDecisionsCount;
-    private long notApplicableDecisionsCount;
+    /**
+     * Name the counts are kept under when the application or action is not known.
+     */
+    public static final String UNKNOWN = "unknown";
+
+    private volatile long totalPolicyTypesCount;
+    private volatile long totalPoliciesCount;
+    private final LongAdder errorsCount = new LongAdder();
+    private final LongAdder deploySuccessCount = new LongAdder();
+    private final LongAdder deployFailCount = new LongAdder();
+    //
+    // Decisions rejected by admission control, by application
+    //
+    private final Map<String, LongAdder> rejectedCounters = new ConcurrentHashMap<>();
+    //
+    // Decision counters by application, then by action. The totals and the
+    // per application and per action counts are all summed from these.
+    //
+    private final Map<String, Map<String, DecisionCounters>> decisionCounters = new ConcurrentHashMap<>();
 
     /**
      * Method to set the xacml pdp total policy types count. This
@@ -65,48 +87,48 @@ public class XacmlPdpStatisticsManager {
     }
 
     /**
-     * Method to update the number of error decisions.
-     *
-     * @return the errorDecisionsCount
-     */
-    public long updateErrorCount() {
-        return ++errorsCount;
-    }
-
-    /**
-     * Method to update the number of permit decisions.
+     * Method to update the number of policies deployed by PDP updates.
      *
-     * @return the permitDecisionsCount
+     * @param deployed Number of policies the update deployed
+     * @param failed Number of policies the update failed to deploy
      */
-    public long updatePermitDecisionsCount() {
-        return ++permitDecisionsCount;
+    public void updateDeployCounts(long deployed, long failed) {
+        deploySuccessCount.add(deployed);
+        deployFailCount.add(failed);
     }
 
     /**
-     * Method to update the number of deny decisions.
-     *
-     * @return the denyDecisionsCount
+     * Method to update the number of error decisions.
      */
-    public long updateDenyDecisionsCount() {
-        return ++denyDecisionsCount;
+    public void updateErrorCount() {
+        errorsCount.increment();
     }
 
     /**
-     * Method to update the number of indeterminant decisions.
+     * Method to update the number of decisions an application rejected because it
+     * was already making as many as it is allowed to.
      *
-     * @return the indeterminantDecisionsCount
+     * @param application Name of the application, may be null
      */
-    public long updateIndeterminantDecisionsCount() {
-        return ++indeterminantDecisionsCount;
+    public void updateRejectedCount(String application) {
+        String name = application == null ? UNKNOWN : application;
+        LongAdder counter = rejectedCounters.get(name);
+        if (counter == null) {
+            counter = rejectedCounters.computeIfAbsent(name, key -> new LongAdder());
+        }
+        counter.increment();
     }
 
     /**
-     * Method to update the number of not applicable decisions.
+     * Method to update the number of decisions made by an application for an action.
      *
-     * @return the notApplicableDecisionsCount
+     * @param application Name of the application, may be null
+     * @param action Action of the decision request, may be null
+     * @param decision XACML decision
      */
-    public long updateNotApplicableDecisionsCount() {
-        return ++notApplicableDecisionsCount;
+    public void updateDecisionCount(String application, String action, Decision decision) {
+        findCounters(application == null ? UNKNOWN : application, action == null ? UNKNOWN : action)
+                .increment(decision);
     }
 
     /**
@@ -128,48 +150,54 @@ public class XacmlPdpStatisticsManager {
     }
 
     /**
-     * Returns the current value of errorDecisionsCount.
-
-     * @return the permitDecisionsCount
-     */
-    public long getErrorCount() {
-        return errorsCount;
-    }
-
-    /**
-     * Returns the current value of permitDecisionsCount.
+     * Returns the number of policies deployed successfully.
 
-     * @return the permitDecisionsCount
+     * @return the deploySuccessCount
      */
-    public long getPermitDecisionsCount() {
-        return permitDecisionsCount;
+    public long getDeploySuccessCount() {
+        return deploySuccessCount.sum();
     }
 
     /**
-     * Returns the current value of denyDecisionsCount.
+     * Returns the number of policies that failed to deploy.
 
-     * @return the denyDecisionsCount
+     * @return the deployFailCount
      */
-    public long getDenyDecisionsCount() {
-        return denyDecisionsCount;
+    public long getDeployFailCount() {
+        return deployFailCount.sum();
     }
 
     /**
-     * Returns the current value of indeterminantDecisionsCount.
+     * Returns the current value of errorDecisionsCount.
 
-     * @return the indeterminantDecisionsCount
+     * @return the errorDecisionsCount
      */
-    public long getIndeterminantDecisionsCount() {
-        return indeterminantDecisionsCount;
+    public long getErrorCount() {
+        return errorsCount.sum();
     }
 
     /**
-     * Returns the current value of notApplicableDecisionsCount.
-
-     * @return the notApplicableDecisionsCount
+     * Reads all the statistics. Each counter is read once, and the totals and the per
+     * application and per action counts are summed from those values, so they always
+     * agree with each other.
+     *
+     * @return XacmlPdpStatisticsSnapshot object
      */
-    public long getNotApplicableDecisionsCount() {
-        return notApplicableDecisionsCount;
+    public XacmlPdpStatisticsSnapshot snapshot() {
+        Map<String, Map<String, XacmlPdpStatisticsSnapshot.DecisionCounts>> counts = new HashMap<>();
+        for (Entry<String, Map<String, DecisionCounters>> application : decisionCounters.entrySet()) {
+            Map<String, XacmlPdpStatisticsSnapshot.DecisionCounts> actions = new HashMap<>();
+            for (Entry<String, DecisionCounters> action : application.getValue().entrySet()) {
+                actions.put(action.getKey(), action.getValue().read());
+            }
+            counts.put(application.getKey(), actions);
+        }
+        Map<String, Long> rejections = new HashMap<>();
+        for (Entry<String, LongAdder> application : rejectedCounters.entrySet()) {
+            rejections.put(application.getKey(), application.getValue().sum());
+        }
+        return new XacmlPdpStatisticsSnapshot(totalPolicyTypesCount, totalPoliciesCount, deploySuccessCount.sum(),
+                deployFailCount.sum(), errorsCount.sum(), counts, rejections);
     }
 
     /**
@@ -178,10 +206,64 @@ public class XacmlPdpStatisticsManager {
     public void resetAllStatistics() {
         totalPolicyTypesCount = 0L;
         totalPoliciesCount = 0L;
-        errorsCount = 0L;
-        permitDecisionsCount = 0L;
-        denyDecisionsCount = 0L;
-        indeterminantDecisionsCount = 0L;
-        notApplicableDecisionsCount = 0L;
+        deploySuccessCount.reset();
+        deployFailCount.reset();
+        errorsCount.reset();
+        rejectedCounters.clear();
+        decisionCounters.clear();
+    }
+
+    private DecisionCounters findCounters(String application, String action) {
+        //
+        // Look the counters up before creating them, computeIfAbsent locks
+        // the map bin even when the counters are already there.
+        //
+        Map<String, DecisionCounters> actions = decisionCounters.get(application);
+        if (actions == null) {
+            actions = decisionCounters.computeIfAbsent(application, key -> new ConcurrentHashMap<>());
+        }
+        DecisionCounters counters = actions.get(action);
+        if (counters == null) {
+            counters = actions.computeIfAbsent(action, key -> new DecisionCounters());
+        }
+        return counters;
+    }
+
+    private static class DecisionCounters {
+        private final LongAdder permit = new LongAdder();
+        private final LongAdder deny = new LongAdder();
+        private final LongAdder indeterminant = new LongAdder();
+        private final LongAdder notApplicable = new LongAdder();
+
+        private void increment(Decision decision) {
+            switch (decision) {
+                case PERMIT:
+                    permit.increment();
+                    break;
+
+                case DENY:
+                    deny.increment();
+                    break;
+
+                case INDETERMINATE:
+                case INDETERMINATE_DENY:
+                case INDETERMINATE_DENYPERMIT:
+                case INDETERMINATE_PERMIT:
+                    indeterminant.increment();
+                    break;
+
+                case NOTAPPLICABLE:
+                    notApplicable.increment();
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        private XacmlPdpStatisticsSnapshot.DecisionCounts read() {
+            return new XacmlPdpStatisticsSnapshot.DecisionCounts(permit.sum(), deny.sum(), indeterminant.sum(),
+                    notApplicable.sum());
+        }
     }
 }
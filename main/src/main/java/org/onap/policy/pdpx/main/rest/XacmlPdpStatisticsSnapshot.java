@@ -0,0 +1,138 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Statistics of the xacmlPdp component read at one time by {@link XacmlPdpStatisticsManager}.
+ *
+ */
+@Getter
+@ToString
+public class XacmlPdpStatisticsSnapshot {
+
+    private final long totalPolicyTypesCount;
+    private final long totalPoliciesCount;
+    private final long deploySuccessCount;
+    private final long deployFailCount;
+    private final long errorCount;
+    private final long rejectedCount;
+    private final DecisionCounts totals;
+    private final Map<String, DecisionCounts> applications;
+    private final Map<String, DecisionCounts> actions;
+    private final Map<String, Long> rejections;
+
+    /**
+     * Constructor.
+     *
+     * @param totalPolicyTypesCount Total policy types count
+     * @param totalPoliciesCount Total policies count
+     * @param deploySuccessCount Policies deployed successfully
+     * @param deployFailCount Policies that failed to deploy
+     * @param errorCount Error count
+     * @param counts Decision counts by application, then by action
+     * @param rejections Rejected decision counts by application
+     */
+    public XacmlPdpStatisticsSnapshot(long totalPolicyTypesCount, long totalPoliciesCount, long deploySuccessCount,
+            long deployFailCount, long errorCount, Map<String, Map<String, DecisionCounts>> counts,
+            Map<String, Long> rejections) {
+        this.totalPolicyTypesCount = totalPolicyTypesCount;
+        this.totalPoliciesCount = totalPoliciesCount;
+        this.deploySuccessCount = deploySuccessCount;
+        this.deployFailCount = deployFailCount;
+        this.errorCount = errorCount;
+
+        DecisionCounts sum = DecisionCounts.NONE;
+        Map<String, DecisionCounts> byApplication = new TreeMap<>();
+        Map<String, DecisionCounts> byAction = new TreeMap<>();
+        for (Entry<String, Map<String, DecisionCounts>> application : counts.entrySet()) {
+            for (Entry<String, DecisionCounts> action : application.getValue().entrySet()) {
+                sum = sum.plus(action.getValue());
+                byApplication.merge(application.getKey(), action.getValue(), DecisionCounts::plus);
+                byAction.merge(action.getKey(), action.getValue(), DecisionCounts::plus);
+            }
+        }
+        this.totals = sum;
+        this.applications = Collections.unmodifiableMap(byApplication);
+        this.actions = Collections.unmodifiableMap(byAction);
+        this.rejectedCount = rejections.values().stream().mapToLong(Long::longValue).sum();
+        this.rejections = Collections.unmodifiableMap(new TreeMap<>(rejections));
+    }
+
+    /**
+     * Counts of each kind of decision.
+     */
+    @Getter
+    @ToString
+    public static class DecisionCounts {
+        public static final DecisionCounts NONE = new DecisionCounts(0, 0, 0, 0);
+
+        private final long permitDecisionsCount;
+        private final long denyDecisionsCount;
+        private final long indeterminantDecisionsCount;
+        private final long notApplicableDecisionsCount;
+
+        /**
+         * Constructor.
+         *
+         * @param permit Permit decisions count
+         * @param deny Deny decisions count
+         * @param indeterminant Indeterminant decisions count
+         * @param notApplicable Not applicable decisions count
+         */
+        public DecisionCounts(long permit, long deny, long indeterminant, long notApplicable) {
+            this.permitDecisionsCount = permit;
+            this.denyDecisionsCount = deny;
+            this.indeterminantDecisionsCount = indeterminant;
+            this.notApplicableDecisionsCount = notApplicable;
+        }
+
+        /**
+         * Returns the total number of decisions.
+         *
+         * @return the decisions count
+         */
+        public long getDecisionsCount() {
+            return permitDecisionsCount + denyDecisionsCount + indeterminantDecisionsCount
+                    + notApplicableDecisionsCount;
+        }
+
+        /**
+         * Adds two sets of counts.
+         *
+         * @param other Counts to add to these
+         * @return the sum of the counts
+         */
+        public DecisionCounts plus(DecisionCounts other) {
+            return new DecisionCounts(permitDecisionsCount + other.permitDecisionsCount,
+                    denyDecisionsCount + other.denyDecisionsCount,
+                    indeterminantDecisionsCount + other.indeterminantDecisionsCount,
+                    notApplicableDecisionsCount + other.notApplicableDecisionsCount);
+        }
+    }
+}
@@ -20,6 +20,8 @@
 
 package org.onap.policy.pdpx.main.rest.model;
 
+import java.util.Map;
+
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -37,8 +39,18 @@ public class StatisticsReport {
     private long totalPolicyTypesCount;
     private long totalPoliciesCount;
     private long totalErrorCount;
+    private long totalRejectedCount;
     private long permitDecisionsCount;
     private long denyDecisionsCount;
     private long indeterminantDecisionsCount;
     private long notApplicableDecisionsCount;
+    private long decisionCacheHitCount;
+    private long decisionCacheMissCount;
+    private long operationsHistoryCacheHitCount;
+    private long operationsHistoryCacheMissCount;
+    private Map<String, CircuitBreakerReport> operationsHistoryBreakers;
+    private Map<String, DecisionStatisticsReport> applicationDecisions;
+    private Map<String, DecisionStatisticsReport> actionDecisions;
+    private Map<String, Map<String, LatencyReport>> decisionLatencies;
+    private Map<String, AdmissionReport> decisionAdmission;
 }
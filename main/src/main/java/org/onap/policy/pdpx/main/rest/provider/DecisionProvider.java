@@ -23,13 +23,24 @@ package org.onap.policy.pdpx.main.rest.provider;
 import com.att.research.xacml.api.Response;
 import com.att.research.xacml.api.Result;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
 import org.apache.commons.lang3.tuple.Pair;
 import org.onap.policy.models.decisions.concepts.DecisionException;
 import org.onap.policy.models.decisions.concepts.DecisionRequest;
 import org.onap.policy.models.decisions.concepts.DecisionResponse;
 import org.onap.policy.pdp.xacml.application.common.XacmlApplicationServiceProvider;
+import org.onap.policy.pdp.xacml.application.common.std.StdConcurrencyLimiter;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
+import org.onap.policy.pdpx.main.parameters.XacmlPdpParameterGroup;
 import org.onap.policy.pdpx.main.rest.XacmlPdpApplicationManager;
 import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+import org.onap.policy.pdpx.main.startstop.XacmlPdpActivator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,25 +61,123 @@ public class DecisionProvider {
         //
         XacmlApplicationServiceProvider application = findApplication(request);
         //
-        // Found application for action
+        // Found application for action, check it can take another decision
         //
+        StdConcurrencyLimiter limiter = admit(application, 1);
+        long started = System.nanoTime();
         Pair<DecisionResponse, Response> decision;
         try {
             decision = application.makeDecision(request);
         } catch (Exception e) {
             LOGGER.error("makeDecision failed", e);
             throw e;
+        } finally {
+            if (limiter != null) {
+                limiter.release(System.nanoTime() - started);
+            }
         }
         //
         // Calculate statistics
         //
-        this.calculateStatistic(decision.getValue());
+        this.calculateStatistic(application, request, decision.getValue());
         //
         // Return the decision
         //
         return decision.getKey();
     }
 
+    /**
+     * Retrieves the policy decisions for a batch of requests. The requests for each
+     * application are decided together, against the same set of policies.
+     *
+     * @param requests List of DecisionRequest objects
+     * @return the Decision objects, in the order of the requests
+     */
+    public List<DecisionResponse> fetchDecisions(List<DecisionRequest> requests) {
+        if (requests == null) {
+            throw new DecisionException(javax.ws.rs.core.Response.Status.BAD_REQUEST, "No decision requests");
+        }
+        LOGGER.debug("Fetching {} decisions", requests.size());
+        int maxBatchSize = getMaxBatchSize();
+        if (requests.size() > maxBatchSize) {
+            throw new DecisionException(javax.ws.rs.core.Response.Status.BAD_REQUEST,
+                    "Too many decision requests, a batch may have at most " + maxBatchSize);
+        }
+        //
+        // Find the application for each decision, the whole batch is
+        // rejected if any request has no application.
+        //
+        Map<XacmlApplicationServiceProvider, List<Integer>> applications = new LinkedHashMap<>();
+        for (int index = 0; index < requests.size(); index++) {
+            applications.computeIfAbsent(findApplication(requests.get(index)), key -> new ArrayList<>()).add(index);
+        }
+        //
+        // Each request of the batch counts against the limit of its application. They
+        // are all admitted before any deciding starts, so a rejected batch does not
+        // waste any work.
+        //
+        Map<XacmlApplicationServiceProvider, StdConcurrencyLimiter> limiters = new LinkedHashMap<>();
+        try {
+            for (Entry<XacmlApplicationServiceProvider, List<Integer>> entry : applications.entrySet()) {
+                limiters.put(entry.getKey(), admit(entry.getKey(), entry.getValue().size()));
+            }
+            return decideBatch(requests, applications, limiters);
+        } finally {
+            //
+            // Release the applications that did not get to decide
+            //
+            for (Entry<XacmlApplicationServiceProvider, StdConcurrencyLimiter> entry : limiters.entrySet()) {
+                if (entry.getValue() != null) {
+                    entry.getValue().cancel(applications.get(entry.getKey()).size());
+                }
+            }
+        }
+    }
+
+    private List<DecisionResponse> decideBatch(List<DecisionRequest> requests,
+            Map<XacmlApplicationServiceProvider, List<Integer>> applications,
+            Map<XacmlApplicationServiceProvider, StdConcurrencyLimiter> limiters) {
+        List<DecisionResponse> responses = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        for (Entry<XacmlApplicationServiceProvider, List<Integer>> entry : applications.entrySet()) {
+            List<DecisionRequest> applicationRequests = new ArrayList<>(entry.getValue().size());
+            entry.getValue().forEach(index -> applicationRequests.add(requests.get(index)));
+            StdConcurrencyLimiter limiter = limiters.remove(entry.getKey());
+            long started = System.nanoTime();
+            List<Pair<DecisionResponse, Response>> decisions;
+            try {
+                decisions = entry.getKey().makeDecisions(applicationRequests);
+            } catch (Exception e) {
+                LOGGER.error("makeDecisions failed", e);
+                throw e;
+            } finally {
+                //
+                // The limit adapts to each decision's share of the batch time
+                //
+                if (limiter != null) {
+                    limiter.release(applicationRequests.size(), System.nanoTime() - started);
+                }
+            }
+            for (int index = 0; index < decisions.size(); index++) {
+                //
+                // Calculate statistics
+                //
+                this.calculateStatistic(entry.getKey(), applicationRequests.get(index),
+                        decisions.get(index).getValue());
+                responses.set(entry.getValue().get(index), decisions.get(index).getKey());
+            }
+        }
+        //
+        // Return the decisions
+        //
+        return responses;
+    }
+
+    private static int getMaxBatchSize() {
+        XacmlPdpActivator activator = XacmlPdpActivator.getCurrent();
+        return activator == null ? XacmlPdpParameterGroup.DEFAULT_MAX_BATCH_SIZE
+                : activator.getParameterGroup().getMaxBatchSize();
+    }
+
     private XacmlApplicationServiceProvider findApplication(DecisionRequest request) {
         XacmlApplicationServiceProvider application = XacmlPdpApplicationManager.getCurrent().findApplication(request);
         if (application != null) {
@@ -78,33 +187,30 @@ public class DecisionProvider {
                 "No application for action " + request.getAction());
     }
 
-    private void calculateStatistic(Response xacmlResponse) {
+    private StdConcurrencyLimiter admit(XacmlApplicationServiceProvider application, int decisions) {
+        if (! (application instanceof StdXacmlApplicationServiceProvider)) {
+            return null;
+        }
+        StdConcurrencyLimiter limiter = ((StdXacmlApplicationServiceProvider) application).getConcurrencyLimiter();
+        if (limiter == null || limiter.tryAcquire(decisions)) {
+            return limiter;
+        }
+        XacmlPdpStatisticsManager.getCurrent().updateRejectedCount(application.applicationName());
+        throw new DecisionRejectedException("Too many decisions for application " + application.applicationName(),
+                limiter.getRetryAfterSeconds());
+    }
 
+    private void calculateStatistic(XacmlApplicationServiceProvider application, DecisionRequest request,
+            Response xacmlResponse) {
+        //
+        // The engine returns no response when it fails
+        //
+        if (xacmlResponse == null) {
+            return;
+        }
         for (Result result : xacmlResponse.getResults()) {
-            switch (result.getDecision()) {
-                case PERMIT:
-                    XacmlPdpStatisticsManager.getCurrent().updatePermitDecisionsCount();
-                    break;
-
-                case DENY:
-                    XacmlPdpStatisticsManager.getCurrent().updateDenyDecisionsCount();
-                    break;
-
-                case INDETERMINATE:
-                case INDETERMINATE_DENY:
-                case INDETERMINATE_DENYPERMIT:
-                case INDETERMINATE_PERMIT:
-                    XacmlPdpStatisticsManager.getCurrent().updateIndeterminantDecisionsCount();
-                    break;
-
-                case NOTAPPLICABLE:
-                    XacmlPdpStatisticsManager.getCurrent().updateNotApplicableDecisionsCount();
-                    break;
-
-                default:
-                    break;
-
-            }
+            XacmlPdpStatisticsManager.getCurrent().updateDecisionCount(application.applicationName(),
+                    request.getAction(), result.getDecision());
         }
     }
 
@@ -0,0 +1,51 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest.provider;
+
+import javax.ws.rs.core.Response;
+
+import org.onap.policy.models.decisions.concepts.DecisionException;
+
+/**
+ * Thrown when a decision is rejected because the application is already making as many
+ * decisions as it is allowed to. The client is told how long to wait before trying again.
+ *
+ */
+public class DecisionRejectedException extends DecisionException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructor.
+     *
+     * @param message Error message
+     * @param retryAfterSeconds Time in seconds the client should wait before trying again
+     */
+    public DecisionRejectedException(String message, long retryAfterSeconds) {
+        super(Response.Status.TOO_MANY_REQUESTS, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
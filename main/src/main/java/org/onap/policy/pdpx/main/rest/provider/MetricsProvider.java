@@ -0,0 +1,296 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest.provider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.onap.policy.pdp.xacml.application.common.operationshistory.CountRecentOperationsPip;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdp.xacml.application.common.std.StdConcurrencyLimiter;
+import org.onap.policy.pdp.xacml.application.common.std.StdDecisionAudit;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram.Summary;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
+import org.onap.policy.pdpx.main.rest.XacmlPdpApplicationManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot.DecisionCounts;
+
+/**
+ * Class to fetch the metrics of xacmlPdp service in the Prometheus text exposition format.
+ *
+ */
+public class MetricsProvider {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+    private static final String SUMMARY = "summary";
+    private static final String APPLICATION = "application";
+    private static final String PIP = "pip";
+    //
+    // Jetty names the threads of its pools qtp<hash>-<id>
+    //
+    private static final String SERVER_THREAD_PREFIX = "qtp";
+
+    private final StringBuilder metrics = new StringBuilder();
+
+    /**
+     * Returns the current metrics of xacmlPdp service.
+     *
+     * @return metrics in the Prometheus text format
+     */
+    public String fetchMetrics() {
+        fetchDecisions();
+        XacmlPdpApplicationManager applications = XacmlPdpApplicationManager.getCurrent();
+        if (applications != null) {
+            fetchApplications(applications);
+        }
+        fetchPips();
+        fetchThreads();
+        return metrics.toString();
+    }
+
+    private void fetchDecisions() {
+        XacmlPdpStatisticsSnapshot stats = XacmlPdpStatisticsManager.getCurrent().snapshot();
+        header("xacml_pdp_decisions_total", COUNTER, "Decisions made, by application and outcome.");
+        for (Entry<String, DecisionCounts> entry : stats.getApplications().entrySet()) {
+            DecisionCounts counts = entry.getValue();
+            sample("xacml_pdp_decisions_total", counts.getPermitDecisionsCount(), APPLICATION, entry.getKey(),
+                    "decision", "permit");
+            sample("xacml_pdp_decisions_total", counts.getDenyDecisionsCount(), APPLICATION, entry.getKey(),
+                    "decision", "deny");
+            sample("xacml_pdp_decisions_total", counts.getIndeterminantDecisionsCount(), APPLICATION,
+                    entry.getKey(), "decision", "indeterminate");
+            sample("xacml_pdp_decisions_total", counts.getNotApplicableDecisionsCount(), APPLICATION,
+                    entry.getKey(), "decision", "notapplicable");
+        }
+        header("xacml_pdp_decision_errors_total", COUNTER, "Decision requests that failed.");
+        sample("xacml_pdp_decision_errors_total", stats.getErrorCount());
+        header("xacml_pdp_decisions_rejected_total", COUNTER,
+                "Decision requests rejected by admission control, by application.");
+        for (Entry<String, Long> entry : stats.getRejections().entrySet()) {
+            sample("xacml_pdp_decisions_rejected_total", entry.getValue(), APPLICATION, entry.getKey());
+        }
+        header("xacml_pdp_policy_types", GAUGE, "Policy types supported.");
+        sample("xacml_pdp_policy_types", stats.getTotalPolicyTypesCount());
+    }
+
+    private void fetchApplications(XacmlPdpApplicationManager applications) {
+        header("xacml_pdp_policies", GAUGE, "Policies deployed, by application.");
+        for (Entry<String, Integer> entry : applications.getPolicyCounts().entrySet()) {
+            sample("xacml_pdp_policies", entry.getValue(), APPLICATION, entry.getKey());
+        }
+
+        header("xacml_pdp_decision_latency_seconds", SUMMARY,
+                "Decision latency over the recent window, by application and stage.");
+        for (Entry<String, Map<String, StdLatencyHistogram>> application
+                : applications.getLatencyHistograms().entrySet()) {
+            for (Entry<String, StdLatencyHistogram> stage : application.getValue().entrySet()) {
+                latency(application.getKey(), stage.getKey(), stage.getValue());
+            }
+        }
+
+        header("xacml_pdp_engine_build_seconds", SUMMARY, "Time building the engines took, by application.");
+        for (StdXacmlApplicationServiceProvider application : applications.getStdApplications()) {
+            sample("xacml_pdp_engine_build_seconds_sum", toSeconds(application.getEngineBuildNanos()),
+                    APPLICATION, application.applicationName());
+            sample("xacml_pdp_engine_build_seconds_count", application.getEngineBuildCount(),
+                    APPLICATION, application.applicationName());
+        }
+        header("xacml_pdp_engine_last_build_seconds", GAUGE, "Time building the current engine took.");
+        for (StdXacmlApplicationServiceProvider application : applications.getStdApplications()) {
+            sample("xacml_pdp_engine_last_build_seconds", toSeconds(application.getLastEngineBuildNanos()),
+                    APPLICATION, application.applicationName());
+        }
+
+        Map<String, StdConcurrencyLimiter> limiters = applications.getConcurrencyLimiters();
+        header("xacml_pdp_admission_limit", GAUGE, "Decisions allowed at the same time, by application.");
+        for (Entry<String, StdConcurrencyLimiter> entry : limiters.entrySet()) {
+            sample("xacml_pdp_admission_limit", entry.getValue().getLimit(), APPLICATION, entry.getKey());
+        }
+        header("xacml_pdp_admission_in_flight", GAUGE, "Decisions being made, by application.");
+        for (Entry<String, StdConcurrencyLimiter> entry : limiters.entrySet()) {
+            sample("xacml_pdp_admission_in_flight", entry.getValue().getInFlight(), APPLICATION, entry.getKey());
+        }
+
+        header("xacml_pdp_audit_records_total", COUNTER,
+                "Decisions sampled for the audit logs, by application and whether they were written or dropped.");
+        for (StdXacmlApplicationServiceProvider application : applications.getStdApplications()) {
+            StdDecisionAudit audit = application.getDecisionAudit();
+            if (audit != null) {
+                sample("xacml_pdp_audit_records_total", audit.getWrittenCount(), APPLICATION,
+                        application.applicationName(), "result", "written");
+                sample("xacml_pdp_audit_records_total", audit.getDroppedCount(), APPLICATION,
+                        application.applicationName(), "result", "dropped");
+            }
+        }
+
+        header("xacml_pdp_decision_cache_hits_total", COUNTER, "Decisions served from the decision caches.");
+        sample("xacml_pdp_decision_cache_hits_total", applications.getDecisionCacheHitCount());
+        header("xacml_pdp_decision_cache_misses_total", COUNTER, "Cacheable decisions not in the decision caches.");
+        sample("xacml_pdp_decision_cache_misses_total", applications.getDecisionCacheMissCount());
+    }
+
+    private void latency(String application, String stage, StdLatencyHistogram histogram) {
+        Summary summary = histogram.getSummary();
+        String name = "xacml_pdp_decision_latency_seconds";
+        sample(name, toSeconds(summary.getP50Nanos()), APPLICATION, application, "stage", stage, "quantile", "0.5");
+        sample(name, toSeconds(summary.getP90Nanos()), APPLICATION, application, "stage", stage, "quantile", "0.9");
+        sample(name, toSeconds(summary.getP99Nanos()), APPLICATION, application, "stage", stage, "quantile", "0.99");
+        sample(name, toSeconds(summary.getP999Nanos()), APPLICATION, application, "stage", stage,
+                "quantile", "0.999");
+        sample(name, toSeconds(summary.getMaxNanos()), APPLICATION, application, "stage", stage, "quantile", "1");
+        sample(name + "_sum", toSeconds(histogram.getTotalNanos()), APPLICATION, application, "stage", stage);
+        sample(name + "_count", histogram.getTotalCount(), APPLICATION, application, "stage", stage);
+    }
+
+    private void fetchPips() {
+        Map<String, StdCircuitBreaker> breakers = StdCircuitBreaker.getBreakers();
+        header("xacml_pdp_pip_query_seconds", SUMMARY, "Time the PIP database queries took, by PIP.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_query_seconds_sum", breaker.getTotalMillis() / 1000, PIP, breaker.getName());
+            sample("xacml_pdp_pip_query_seconds_count", breaker.getQueryCount(), PIP, breaker.getName());
+        }
+        header("xacml_pdp_pip_query_max_seconds", GAUGE, "Longest time a PIP database query took, by PIP.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_query_max_seconds", breaker.getMaxMillis() / 1000, PIP, breaker.getName());
+        }
+        header("xacml_pdp_pip_query_failures_total", COUNTER, "PIP database queries that failed, by PIP.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_query_failures_total", breaker.getFailureCount(), PIP, breaker.getName());
+        }
+        header("xacml_pdp_pip_query_slow_total", COUNTER, "PIP database queries that were slow, by PIP.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_query_slow_total", breaker.getSlowCount(), PIP, breaker.getName());
+        }
+        header("xacml_pdp_pip_query_rejected_total", COUNTER,
+                "PIP database queries rejected by the circuit breaker, by PIP.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_query_rejected_total", breaker.getRejectedCount(), PIP, breaker.getName());
+        }
+        header("xacml_pdp_pip_breaker_open", GAUGE, "1 if the circuit breaker of the PIP is not closed.");
+        for (StdCircuitBreaker breaker : breakers.values()) {
+            sample("xacml_pdp_pip_breaker_open", breaker.getState() == StdCircuitBreaker.State.CLOSED ? 0 : 1,
+                    PIP, breaker.getName());
+        }
+
+        header("xacml_pdp_operations_history_cache_hits_total", COUNTER,
+                "Operation counts found in the operations history caches.");
+        sample("xacml_pdp_operations_history_cache_hits_total", CountRecentOperationsPip.getCacheHits());
+        header("xacml_pdp_operations_history_cache_misses_total", COUNTER,
+                "Operation counts not found in the operations history caches.");
+        sample("xacml_pdp_operations_history_cache_misses_total", CountRecentOperationsPip.getCacheMisses());
+    }
+
+    private void fetchThreads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        header("jvm_threads_current", GAUGE, "Current thread count of the JVM.");
+        sample("jvm_threads_current", threads.getThreadCount());
+        header("jvm_threads_daemon", GAUGE, "Daemon thread count of the JVM.");
+        sample("jvm_threads_daemon", threads.getDaemonThreadCount());
+        header("jvm_threads_peak", GAUGE, "Peak thread count of the JVM.");
+        sample("jvm_threads_peak", threads.getPeakThreadCount());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header("jvm_memory_bytes_used", GAUGE, "Used bytes of the JVM heap.");
+        sample("jvm_memory_bytes_used", heap.getUsed(), "area", "heap");
+        header("jvm_memory_bytes_max", GAUGE, "Max bytes of the JVM heap.");
+        sample("jvm_memory_bytes_max", heap.getMax(), "area", "heap");
+        //
+        // The server threads waiting for work are idle, the rest are
+        // handling requests or watching the connections.
+        //
+        Map<Thread.State, Integer> states = new EnumMap<>(Thread.State.class);
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith(SERVER_THREAD_PREFIX)) {
+                states.merge(info.getThreadState(), 1, Integer::sum);
+            }
+        }
+        header("xacml_pdp_server_threads", GAUGE, "Threads of the REST server pools, by state.");
+        for (Entry<Thread.State, Integer> entry : states.entrySet()) {
+            sample("xacml_pdp_server_threads", entry.getValue(), "state", entry.getKey().name().toLowerCase());
+        }
+
+        header("xacml_pdp_decision_pool_threads", GAUGE, "Threads of the pool deciding batch requests.");
+        sample("xacml_pdp_decision_pool_threads", StdXacmlApplicationServiceProvider.getDecisionPoolSize());
+        header("xacml_pdp_decision_pool_active_threads", GAUGE, "Threads of the decision pool deciding a request.");
+        sample("xacml_pdp_decision_pool_active_threads",
+                StdXacmlApplicationServiceProvider.getDecisionPoolActiveCount());
+        header("xacml_pdp_decision_pool_queued", GAUGE, "Batch requests waiting for a thread of the decision pool.");
+        sample("xacml_pdp_decision_pool_queued", StdXacmlApplicationServiceProvider.getDecisionPoolQueueSize());
+    }
+
+    private void header(String name, String type, String help) {
+        metrics.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        metrics.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, long value, String... labels) {
+        labels(name, labels);
+        metrics.append(' ').append(value).append('\n');
+    }
+
+    private void sample(String name, double value, String... labels) {
+        labels(name, labels);
+        metrics.append(' ').append(value).append('\n');
+    }
+
+    private void labels(String name, String... labels) {
+        metrics.append(name);
+        if (labels.length == 0) {
+            return;
+        }
+        metrics.append('{');
+        for (int index = 0; index < labels.length; index += 2) {
+            if (index > 0) {
+                metrics.append(',');
+            }
+            metrics.append(labels[index]).append("=\"");
+            //
+            // Label values escape backslashes, quotes and line feeds
+            //
+            for (char character : labels[index + 1].toCharArray()) {
+                if (character == '\\' || character == '"') {
+                    metrics.append('\\').append(character);
+                } else if (character == '\n') {
+                    metrics.append("\\n");
+                } else {
+                    metrics.append(character);
+                }
+            }
+            metrics.append('"');
+        }
+        metrics.append('}');
+    }
+
+    private static double toSeconds(long nanos) {
+        return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -20,7 +20,24 @@
 
 package org.onap.policy.pdpx.main.rest.provider;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.onap.policy.pdp.xacml.application.common.operationshistory.CountRecentOperationsPip;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdp.xacml.application.common.std.StdConcurrencyLimiter;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram;
+import org.onap.policy.pdp.xacml.application.common.std.StdLatencyHistogram.Summary;
+import org.onap.policy.pdpx.main.rest.XacmlPdpApplicationManager;
 import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot.DecisionCounts;
+import org.onap.policy.pdpx.main.rest.model.AdmissionReport;
+import org.onap.policy.pdpx.main.rest.model.CircuitBreakerReport;
+import org.onap.policy.pdpx.main.rest.model.DecisionStatisticsReport;
+import org.onap.policy.pdpx.main.rest.model.LatencyReport;
 import org.onap.policy.pdpx.main.rest.model.StatisticsReport;
 import org.onap.policy.pdpx.main.startstop.XacmlPdpActivator;
 
@@ -39,14 +56,95 @@ public class StatisticsProvider {
         final StatisticsReport report = new StatisticsReport();
         report.setCode(XacmlPdpActivator.getCurrent().isAlive() ? 200 : 500);
 
-        XacmlPdpStatisticsManager stats = XacmlPdpStatisticsManager.getCurrent();
+        XacmlPdpStatisticsSnapshot stats = XacmlPdpStatisticsManager.getCurrent().snapshot();
         report.setTotalPolicyTypesCount(stats.getTotalPolicyTypesCount());
         report.setTotalPoliciesCount(stats.getTotalPoliciesCount());
         report.setTotalErrorCount(stats.getErrorCount());
-        report.setPermitDecisionsCount(stats.getPermitDecisionsCount());
-        report.setDenyDecisionsCount(stats.getDenyDecisionsCount());
-        report.setIndeterminantDecisionsCount(stats.getIndeterminantDecisionsCount());
-        report.setNotApplicableDecisionsCount(stats.getNotApplicableDecisionsCount());
+        report.setTotalRejectedCount(stats.getRejectedCount());
+        report.setPermitDecisionsCount(stats.getTotals().getPermitDecisionsCount());
+        report.setDenyDecisionsCount(stats.getTotals().getDenyDecisionsCount());
+        report.setIndeterminantDecisionsCount(stats.getTotals().getIndeterminantDecisionsCount());
+        report.setNotApplicableDecisionsCount(stats.getTotals().getNotApplicableDecisionsCount());
+        report.setApplicationDecisions(fetchDecisions(stats.getApplications()));
+        report.setActionDecisions(fetchDecisions(stats.getActions()));
+
+        XacmlPdpApplicationManager applications = XacmlPdpApplicationManager.getCurrent();
+        if (applications != null) {
+            report.setDecisionCacheHitCount(applications.getDecisionCacheHitCount());
+            report.setDecisionCacheMissCount(applications.getDecisionCacheMissCount());
+            report.setDecisionLatencies(fetchLatencies(applications.getLatencyHistograms()));
+            report.setDecisionAdmission(fetchAdmission(applications.getConcurrencyLimiters()));
+        }
+        report.setOperationsHistoryCacheHitCount(CountRecentOperationsPip.getCacheHits());
+        report.setOperationsHistoryCacheMissCount(CountRecentOperationsPip.getCacheMisses());
+        report.setOperationsHistoryBreakers(fetchBreakers());
         return report;
     }
+
+    private Map<String, DecisionStatisticsReport> fetchDecisions(Map<String, DecisionCounts> counts) {
+        Map<String, DecisionStatisticsReport> decisions = new LinkedHashMap<>();
+        for (Entry<String, DecisionCounts> entry : counts.entrySet()) {
+            DecisionStatisticsReport decisionReport = new DecisionStatisticsReport();
+            decisionReport.setPermitDecisionsCount(entry.getValue().getPermitDecisionsCount());
+            decisionReport.setDenyDecisionsCount(entry.getValue().getDenyDecisionsCount());
+            decisionReport.setIndeterminantDecisionsCount(entry.getValue().getIndeterminantDecisionsCount());
+            decisionReport.setNotApplicableDecisionsCount(entry.getValue().getNotApplicableDecisionsCount());
+            decisions.put(entry.getKey(), decisionReport);
+        }
+        return decisions;
+    }
+
+    private Map<String, Map<String, LatencyReport>> fetchLatencies(
+            Map<String, Map<String, StdLatencyHistogram>> histograms) {
+        Map<String, Map<String, LatencyReport>> latencies = new LinkedHashMap<>();
+        for (Entry<String, Map<String, StdLatencyHistogram>> application : histograms.entrySet()) {
+            Map<String, LatencyReport> stages = new LinkedHashMap<>();
+            for (Entry<String, StdLatencyHistogram> stage : application.getValue().entrySet()) {
+                Summary summary = stage.getValue().getSummary();
+                LatencyReport latencyReport = new LatencyReport();
+                latencyReport.setCount(summary.getCount());
+                latencyReport.setP50Millis(toMillis(summary.getP50Nanos()));
+                latencyReport.setP90Millis(toMillis(summary.getP90Nanos()));
+                latencyReport.setP99Millis(toMillis(summary.getP99Nanos()));
+                latencyReport.setP999Millis(toMillis(summary.getP999Nanos()));
+                latencyReport.setMaxMillis(toMillis(summary.getMaxNanos()));
+                stages.put(stage.getKey(), latencyReport);
+            }
+            latencies.put(application.getKey(), stages);
+        }
+        return latencies;
+    }
+
+    private Map<String, AdmissionReport> fetchAdmission(Map<String, StdConcurrencyLimiter> limiters) {
+        Map<String, AdmissionReport> admission = new LinkedHashMap<>();
+        for (Entry<String, StdConcurrencyLimiter> entry : limiters.entrySet()) {
+            AdmissionReport admissionReport = new AdmissionReport();
+            admissionReport.setLimit(entry.getValue().getLimit());
+            admissionReport.setInFlight(entry.getValue().getInFlight());
+            admissionReport.setAdmittedCount(entry.getValue().getAdmittedCount());
+            admissionReport.setRejectedCount(entry.getValue().getRejectedCount());
+            admission.put(entry.getKey(), admissionReport);
+        }
+        return admission;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private Map<String, CircuitBreakerReport> fetchBreakers() {
+        Map<String, CircuitBreakerReport> breakers = new LinkedHashMap<>();
+        for (StdCircuitBreaker breaker : StdCircuitBreaker.getBreakers().values()) {
+            CircuitBreakerReport breakerReport = new CircuitBreakerReport();
+            breakerReport.setState(breaker.getState().name());
+            breakerReport.setQueryCount(breaker.getQueryCount());
+            breakerReport.setFailureCount(breaker.getFailureCount());
+            breakerReport.setSlowQueryCount(breaker.getSlowCount());
+            breakerReport.setRejectedCount(breaker.getRejectedCount());
+            breakerReport.setAverageQueryMillis(breaker.getAverageMillis());
+            breakerReport.setMaxQueryMillis(breaker.getMaxMillis());
+            breakers.put(breaker.getName(), breakerReport);
+        }
+        return breakers;
+    }
 }
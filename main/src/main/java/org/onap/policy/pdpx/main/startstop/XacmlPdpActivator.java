@@ -91,10 +91,10 @@ public class XacmlPdpActivator extends ServiceManagerContainer {
         final XacmlPdpHearbeatPublisher heartbeat;
         final TopicSinkClient sinkClient;
         final XacmlState state;
+        final XacmlPdpApplicationManager appmgr;
 
         try {
-            XacmlPdpApplicationManager appmgr =
-                            new XacmlPdpApplicationManager(Paths.get(xacmlPdpParameterGroup.getApplicationPath()));
+            appmgr = new XacmlPdpApplicationManager(Paths.get(xacmlPdpParameterGroup.getApplicationPath()));
             XacmlPdpApplicationManager.setCurrent(appmgr);
 
             XacmlPdpStatisticsManager stats = new XacmlPdpStatisticsManager();
@@ -130,6 +130,10 @@ public class XacmlPdpActivator extends ServiceManagerContainer {
             () -> ParameterService.register(xacmlPdpParameterGroup),
             () -> ParameterService.deregister(xacmlPdpParameterGroup.getName()));
 
+        addAction("Applications",
+            () -> { },
+            appmgr::shutdown);
+
         addAction("Message Dispatcher",
             this::registerMsgDispatcher,
             this::unregisterMsgDispatcher);
@@ -0,0 +1,128 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.api.Decision;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onap.policy.models.pdp.concepts.PdpStatistics;
+import org.onap.policy.models.pdp.concepts.PdpStatus;
+import org.onap.policy.models.pdp.concepts.PdpUpdate;
+import org.onap.policy.models.pdp.enums.PdpResponseStatus;
+import org.onap.policy.pdpx.main.rest.XacmlPdpApplicationManager;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+
+/**
+ * Class to perform unit testing of {@link XacmlState}.
+ *
+ */
+public class XacmlStateTest {
+    private static final String GROUP = "xacmlGroup";
+    private static final String SUBGROUP = "xacml";
+
+    @ClassRule
+    public static final TemporaryFolder appsFolder = new TemporaryFolder();
+
+    private static XacmlPdpApplicationManager appManager;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        appManager = new XacmlPdpApplicationManager(appsFolder.newFolder("apps").toPath());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        appManager.shutdown();
+    }
+
+    @Test
+    public void testUpdateInternalStateSuccess() {
+        XacmlState state = new XacmlState(appManager);
+        PdpUpdate message = createUpdate();
+
+        PdpStatus status = state.updateInternalState(message);
+        assertThat(status.getPdpGroup()).isEqualTo(GROUP);
+        assertThat(status.getPdpSubgroup()).isEqualTo(SUBGROUP);
+        assertThat(status.getResponse().getResponseTo()).isEqualTo(message.getRequestId());
+        assertThat(status.getResponse().getResponseStatus()).isEqualTo(PdpResponseStatus.SUCCESS);
+        assertThat(status.getResponse().getResponseMessage()).isNull();
+    }
+
+    @Test
+    public void testUpdateInternalStateFail() {
+        XacmlState state = new XacmlState(appManager);
+        PdpUpdate message = createUpdate();
+        //
+        // A failed update still records the group, and tells PAP what went wrong
+        //
+        PdpStatus status = state.updateInternalState(message, false, "deployed 1 of 2, undeployed 0 of 0 policies");
+        assertThat(status.getPdpGroup()).isEqualTo(GROUP);
+        assertThat(status.getPdpSubgroup()).isEqualTo(SUBGROUP);
+        assertThat(status.getPolicies()).isEmpty();
+        assertThat(status.getResponse().getResponseTo()).isEqualTo(message.getRequestId());
+        assertThat(status.getResponse().getResponseStatus()).isEqualTo(PdpResponseStatus.FAIL);
+        assertThat(status.getResponse().getResponseMessage())
+                .isEqualTo("deployed 1 of 2, undeployed 0 of 0 policies");
+    }
+
+    @Test
+    public void testGenStatistics() {
+        XacmlPdpStatisticsManager saved = XacmlPdpStatisticsManager.getCurrent();
+        XacmlPdpStatisticsManager stats = new XacmlPdpStatisticsManager();
+        XacmlPdpStatisticsManager.setCurrent(stats);
+        try {
+            //
+            // The deploy counts come from the updates, not from the policies loaded
+            //
+            stats.setTotalPolicyCount(5);
+            stats.updateDeployCounts(3, 0);
+            stats.updateDeployCounts(2, 1);
+            stats.updateErrorCount();
+            stats.updateDecisionCount("guard", "guard", Decision.PERMIT);
+            stats.updateDecisionCount("guard", "guard", Decision.INDETERMINATE);
+
+            PdpStatistics statistics = new XacmlState(appManager).genStatistics();
+            assertThat(statistics.getPolicyDeployCount()).isEqualTo(6);
+            assertThat(statistics.getPolicyDeploySuccessCount()).isEqualTo(5);
+            assertThat(statistics.getPolicyDeployFailCount()).isEqualTo(1);
+            assertThat(statistics.getPolicyExecutedCount()).isEqualTo(3);
+            assertThat(statistics.getPolicyExecutedSuccessCount()).isEqualTo(1);
+            assertThat(statistics.getPolicyExecutedFailCount()).isEqualTo(2);
+        } finally {
+            XacmlPdpStatisticsManager.setCurrent(saved);
+        }
+    }
+
+    private static PdpUpdate createUpdate() {
+        PdpUpdate message = new PdpUpdate();
+        message.setPdpGroup(GROUP);
+        message.setPdpSubgroup(SUBGROUP);
+        return message;
+    }
+}
@@ -71,6 +71,28 @@ public class TestXacmlPdpParameterGroup {
         assertEquals(CommonTestData.PDPX_GROUP_NAME, pdpxParameters.getName());
         assertFalse(pdpxParameters.getRestServerParameters().isHttps());
         assertFalse(pdpxParameters.getRestServerParameters().isAaf());
+        assertEquals(XacmlPdpParameterGroup.DEFAULT_MAX_BATCH_SIZE, pdpxParameters.getMaxBatchSize());
+    }
+
+    @Test
+    public void testXacmlPdpParameterGroup_MaxBatchSize() {
+        final RestServerParameters restServerParameters =
+            testData.toObject(testData.getRestServerParametersMap(false), RestServerParameters.class);
+        final TopicParameterGroup topicParameterGroup =
+            testData.toObject(testData.getTopicParametersMap(false), TopicParameterGroup.class);
+        final XacmlPdpParameterGroup pdpxParameters =
+                new XacmlPdpParameterGroup(CommonTestData.PDPX_GROUP_NAME,
+                        restServerParameters, topicParameterGroup, applicationPath.getAbsolutePath());
+        pdpxParameters.setMaxBatchSize(10);
+        assertTrue(pdpxParameters.validate().isValid());
+        assertEquals(10, pdpxParameters.getMaxBatchSize());
+
+        pdpxParameters.setMaxBatchSize(0);
+        final GroupValidationResult validationResult = pdpxParameters.validate();
+        assertFalse(validationResult.isValid());
+        assertTrue(validationResult.getResult().contains(
+                "field \"maxBatchSize\" type \"java.lang.Integer\" value \"0\" INVALID, "
+                + "must be a positive number of decision requests"));
     }
 
     @Test
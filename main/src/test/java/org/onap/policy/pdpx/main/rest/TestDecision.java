@@ -34,8 +34,10 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
@@ -71,6 +73,7 @@ public class TestDecision {
     private static int port;
     private static Main main;
     private static HttpClient client;
+    private static HttpClient batchClient;
     private static CommonTestData testData = new CommonTestData();
 
     @ClassRule
@@ -123,7 +126,8 @@ public class TestDecision {
         //
         // Create a client
         //
-        client = getNoAuthHttpClient();
+        client = getNoAuthHttpClient("testDecisionClient", "policy/pdpx/v1/decision");
+        batchClient = getNoAuthHttpClient("testDecisionsClient", "policy/pdpx/v1/decisions");
     }
 
     @AfterClass
@@ -173,6 +177,57 @@ public class TestDecision {
         assertThat(response.getStatus()).isEqualTo("Permit");
     }
 
+    @Test
+    public void testDecisions_Batch() {
+
+        LOGGER.info("Running test testDecisions_Batch");
+
+        DecisionRequest guard = new DecisionRequest();
+        guard.setOnapName("DROOLS");
+        guard.setAction("guard");
+        Map<String, Object> resource = new HashMap<String, Object>();
+        resource.put("actor", "foo");
+        resource.put("recipe", "bar");
+        resource.put("target", "somevnf");
+        resource.put("clname", "phoneyloop");
+        guard.setResource(resource);
+
+        DecisionRequest unsupported = new DecisionRequest();
+        unsupported.setOnapName("DROOLS");
+        unsupported.setAction("foo");
+        unsupported.setResource(resource);
+        //
+        // One response per request, in order
+        //
+        Entity<List<DecisionRequest>> entityRequest =
+            Entity.entity(Arrays.asList(guard, guard), MediaType.APPLICATION_JSON);
+        Response response = batchClient.post("", entityRequest, Collections.emptyMap());
+        assertEquals(200, response.getStatus());
+        DecisionResponse[] responses = HttpClient.getBody(response, DecisionResponse[].class);
+        LOGGER.info("Responses {}", Arrays.asList(responses));
+        assertThat(responses).hasSize(2);
+        assertThat(responses[0].getStatus()).isEqualTo("Permit");
+        assertThat(responses[1].getStatus()).isEqualTo("Permit");
+        //
+        // The whole batch is rejected if one request has no application
+        //
+        entityRequest = Entity.entity(Arrays.asList(guard, unsupported), MediaType.APPLICATION_JSON);
+        response = batchClient.post("", entityRequest, Collections.emptyMap());
+        assertEquals(400, response.getStatus());
+        ErrorResponse error = HttpClient.getBody(response, ErrorResponse.class);
+        assertThat(error.getErrorMessage()).isEqualToIgnoringCase("No application for action foo");
+        //
+        // And if it has more requests than the configured maximum
+        //
+        entityRequest = Entity.entity(Collections.nCopies(XacmlPdpParameterGroup.DEFAULT_MAX_BATCH_SIZE + 1, guard),
+                MediaType.APPLICATION_JSON);
+        response = batchClient.post("", entityRequest, Collections.emptyMap());
+        assertEquals(400, response.getStatus());
+        error = HttpClient.getBody(response, ErrorResponse.class);
+        assertThat(error.getErrorMessage()).isEqualTo("Too many decision requests, a batch may have at most "
+                + XacmlPdpParameterGroup.DEFAULT_MAX_BATCH_SIZE);
+    }
+
     private static Main startXacmlPdpService(File params) throws PolicyXacmlPdpException {
         final String[] XacmlPdpConfigParameters = {"-c", params.getAbsolutePath()};
         return new Main(XacmlPdpConfigParameters);
@@ -202,12 +257,13 @@ public class TestDecision {
         return HttpClient.getBody(response, ErrorResponse.class);
     }
 
-    private static HttpClient getNoAuthHttpClient() throws HttpClientConfigException {
+    private static HttpClient getNoAuthHttpClient(String clientName, String basePath)
+            throws HttpClientConfigException {
         return HttpClientFactoryInstance.getClientFactory().build(BusTopicParams.builder()
-                .clientName("testDecisionClient")
+                .clientName(clientName)
                 .serializationProvider(GsonMessageBodyHandler.class.getName())
                 .useHttps(false).allowSelfSignedCerts(false).hostname("localhost").port(port)
-                .basePath("policy/pdpx/v1/decision")
+                .basePath(basePath)
                 .userName("healthcheck").password("zb!XztG34").managed(true).build());
     }
 
@@ -0,0 +1,114 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
+
+/**
+ * Class to perform unit testing of {@link XacmlPdpApplicationManager}.
+ *
+ */
+public class TestXacmlPdpApplicationManager {
+
+    @ClassRule
+    public static final TemporaryFolder appsFolder = new TemporaryFolder();
+
+    private static XacmlPdpApplicationManager manager;
+
+    /**
+     * Copies the test application directories and initializes the applications in them.
+     *
+     * @throws Exception if the applications cannot be copied
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Path src = Paths.get("src/test/resources/apps");
+        Path apps = appsFolder.newFolder("apps").toPath();
+        try (Stream<Path> sources = Files.walk(src)) {
+            for (Path source : sources.collect(Collectors.toList())) {
+                Files.copy(source, apps.resolve(src.relativize(source)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        manager = new XacmlPdpApplicationManager(apps);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void testPartialBatch() {
+        ToscaPolicy good = createPolicy("onap.policies.monitoring.cdap.tca.hi.lo.app", "onap.scaleout.tca", true);
+        ToscaPolicy unconvertible = createPolicy("onap.policies.monitoring.cdap.tca.hi.lo.app",
+                "onap.scaleout.tca.bad", false);
+        ToscaPolicy unsupported = createPolicy("onap.policies.Unknown", "onap.unknown", true);
+        //
+        // Only the policy that converts is loaded, the rest of the batch is left out
+        //
+        assertThat(manager.loadDeployedPolicies(Arrays.asList(unconvertible, good, unsupported))).isEqualTo(1);
+        assertThat(manager.getPolicyCount()).isEqualTo(1);
+        assertThat(manager.getToscaPolicies()).containsOnlyKeys(good);
+        assertThat(manager.getPolicyCounts()).containsEntry("monitoring", 1);
+        //
+        // Only the loaded policy can be removed
+        //
+        assertThat(manager.removeUndeployedPolicies(Arrays.asList(unconvertible, good, unsupported)))
+                .isEqualTo(1);
+        assertThat(manager.getPolicyCount()).isZero();
+        assertThat(manager.removeUndeployedPolicies(Collections.singletonList(good))).isZero();
+    }
+
+    private static ToscaPolicy createPolicy(String type, String name, boolean withVersion) {
+        ToscaPolicy policy = new ToscaPolicy();
+        policy.setName(name);
+        policy.setVersion("1.0.0");
+        policy.setType(type);
+        policy.setTypeVersion("1.0.0");
+        policy.setProperties(Collections.singletonMap("tca_policy", Collections.singletonMap("domain", "test")));
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("policy-id", name);
+        if (withVersion) {
+            metadata.put("policy-version", "1");
+        }
+        policy.setMetadata(metadata);
+        return policy;
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.gson.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
+import org.junit.Test;
+import org.onap.policy.common.gson.GsonMessageBodyHandler;
+import org.onap.policy.models.decisions.concepts.DecisionResponse;
+import org.onap.policy.pdp.xacml.application.common.std.StdEncodedPolicy;
+
+/**
+ * Class to perform unit testing of {@link XacmlPdpResponseOutput}.
+ *
+ */
+public class TestXacmlPdpResponseOutput {
+
+    @Test
+    public void testWrite() throws Exception {
+        String json = "{\"type\":\"onap.policies.monitoring.cdap.tca.hi.lo.app\","
+                + "\"metadata\":{\"policy-id\":\"onap.scaleout.tca\"},\"properties\":{\"count\":3}}";
+        StdEncodedPolicy policy = StdEncodedPolicy.parse(json);
+        assertThat(policy).containsKey("metadata");
+
+        DecisionResponse response = new DecisionResponse();
+        response.setStatus("Permit");
+        response.setPolicies(new HashMap<>());
+        response.getPolicies().put("onap.scaleout.tca", policy);
+        response.getPolicies().put("plain", Collections.singletonMap("key", "value"));
+        //
+        // The same Json as the rest server's message body handler writes
+        //
+        assertThat(new JsonParser().parse(write(response)))
+                .isEqualTo(new JsonParser().parse(writeWithHandler(response)));
+    }
+
+    @Test
+    public void testEncodedReused() throws Exception {
+        StdEncodedPolicy policy = StdEncodedPolicy.parse("{\"metadata\": {\"policy-id\": \"onap.scaleout.tca\"},"
+                + " \"properties\": {\"count\": 3}}");
+        //
+        // Encoded once when parsed, the map would have turned the count into 3.0
+        //
+        String encoded = policy.getEncoded();
+        assertThat(encoded).isEqualTo("{\"metadata\":{\"policy-id\":\"onap.scaleout.tca\"},"
+                + "\"properties\":{\"count\":3}}");
+        assertThat(policy.getEncoded()).isSameAs(encoded);
+
+        DecisionResponse response = new DecisionResponse();
+        response.setStatus("Permit");
+        response.setPolicies(Collections.singletonMap("onap.scaleout.tca", policy));
+        //
+        // Every response copies out the same encoded contents
+        //
+        String expected = "{\"status\":\"Permit\",\"policies\":{\"onap.scaleout.tca\":" + encoded + "}}";
+        assertThat(write(response)).isEqualTo(expected);
+        assertThat(write(response)).isEqualTo(expected);
+        assertThat(policy.getEncoded()).isSameAs(encoded);
+    }
+
+    @Test
+    public void testWriteNotEncoded() throws Exception {
+        Map<String, Object> contents = new HashMap<>();
+        contents.put("count", 3);
+        contents.put("ratio", 0.5);
+        contents.put("text", "<a & b>");
+        contents.put("nothing", null);
+
+        DecisionResponse response = new DecisionResponse();
+        response.setStatus("Permit");
+        response.setPolicies(Collections.singletonMap("plain", contents));
+        //
+        // Anything not pre-encoded is written exactly as the handler writes it
+        //
+        assertThat(write(response)).isEqualTo(writeWithHandler(response));
+    }
+
+    @Test
+    public void testParseFailure() {
+        assertThat(StdEncodedPolicy.parse("not json {")).isNull();
+        assertThat(StdEncodedPolicy.parse("")).isNull();
+        assertThat(StdEncodedPolicy.parse("[1, 2]")).isNull();
+    }
+
+    private String write(Object entity) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new XacmlPdpResponseOutput(entity).write(output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String writeWithHandler(Object entity) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new GsonMessageBodyHandler().writeTo(entity, entity.getClass(), entity.getClass(), null,
+                MediaType.APPLICATION_JSON_TYPE, null, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -21,12 +21,26 @@
 package org.onap.policy.pdpx.main.rest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import com.att.research.xacml.api.Decision;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import org.junit.Test;
 import org.onap.policy.common.endpoints.report.HealthCheckReport;
+import org.onap.policy.common.utils.coder.StandardCoder;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.std.StdConcurrencyLimiter;
+import org.onap.policy.pdp.xacml.application.common.std.StdXacmlApplicationServiceProvider;
 import org.onap.policy.pdpx.main.CommonRest;
 import org.onap.policy.pdpx.main.rest.model.StatisticsReport;
+import org.powermock.reflect.Whitebox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +57,10 @@ public class TestXacmlPdpRestServer extends CommonRest {
     private static final String NAME = "Policy Xacml PDP";
     private static final String HEALTHCHECK_ENDPOINT = "healthcheck";
     private static final String STATISTICS_ENDPOINT = "statistics";
+    private static final String METRICS_ENDPOINT = "metrics";
+    private static final String DECISION_ENDPOINT = "decision";
+    private static final String DECISIONS_ENDPOINT = "decisions";
+    private static final String LIMITER_FIELD = "concurrencyLimiter";
 
     private int nupdates = 0;
 
@@ -111,15 +129,80 @@ public class TestXacmlPdpRestServer extends CommonRest {
         validateStatisticsReport(report, 0, 200);
     }
 
+    @Test
+    public void testMetrics() throws Exception {
+        LOGGER.info("***************************** Running testMetrics *****************************");
+        updateXacmlPdpStatistics();
+        final String metrics = sendHttpsRequest(METRICS_ENDPOINT).accept(MediaType.TEXT_PLAIN).get(String.class);
+        LOGGER.info("testMetrics metrics {}", metrics);
+        assertTrue(metrics.contains("# TYPE xacml_pdp_decisions_total counter\n"));
+        assertTrue(metrics.contains("xacml_pdp_decisions_total{application=\"test\",decision=\"permit\"} 1\n"));
+        assertTrue(metrics.contains("# TYPE xacml_pdp_decision_latency_seconds summary\n"));
+        assertTrue(metrics.contains("jvm_threads_current "));
+    }
+
+    @Test
+    public void testDecisionRejected() throws Exception {
+        LOGGER.info("***************************** Running testDecisionRejected *****************************");
+        final DecisionRequest request = createGuardRequest();
+        final StdXacmlApplicationServiceProvider application = (StdXacmlApplicationServiceProvider)
+                XacmlPdpApplicationManager.getCurrent().findApplication(request);
+        //
+        // Occupy the only permit so that every guard decision is shed
+        //
+        final StdConcurrencyLimiter limiter = new StdConcurrencyLimiter("guard", 1, 1, 1, 0, 0.9, 3);
+        Whitebox.setInternalState(application, LIMITER_FIELD, limiter);
+        try {
+            assertTrue(limiter.tryAcquire());
+            final String body = new StandardCoder().encode(request);
+            validateRejected(sendHttpsRequest(DECISION_ENDPOINT)
+                    .post(Entity.entity(body, MediaType.APPLICATION_JSON)));
+
+            final String batch = new StandardCoder().encode(Arrays.asList(request, request));
+            validateRejected(sendHttpsRequest(DECISIONS_ENDPOINT)
+                    .post(Entity.entity(batch, MediaType.APPLICATION_JSON)));
+            assertEquals(3, limiter.getRejectedCount());
+            //
+            // Releasing the permit lets decisions through again
+            //
+            limiter.cancel();
+            final Response response = sendHttpsRequest(DECISION_ENDPOINT)
+                    .post(Entity.entity(body, MediaType.APPLICATION_JSON));
+            assertEquals(200, response.getStatus());
+        } finally {
+            Whitebox.setInternalState(application, LIMITER_FIELD, (Object) null);
+        }
+    }
+
+    private DecisionRequest createGuardRequest() {
+        DecisionRequest request = new DecisionRequest();
+        request.setOnapName("DROOLS");
+        request.setAction("guard");
+        Map<String, Object> guard = new HashMap<>();
+        guard.put("actor", "foo");
+        guard.put("recipe", "bar");
+        guard.put("target", "somevnf");
+        guard.put("clname", "phoneyloop");
+        request.setResource(guard);
+        return request;
+    }
+
+    private void validateRejected(final Response response) {
+        LOGGER.info("validateRejected response {}", response);
+        assertEquals(429, response.getStatus());
+        assertEquals("3", response.getHeaderString(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.readEntity(String.class).contains("Too many decisions for application guard"));
+    }
+
     private void updateXacmlPdpStatistics() {
         XacmlPdpStatisticsManager stats = XacmlPdpStatisticsManager.getCurrent();
         ++nupdates;
         stats.setTotalPolicyCount(nupdates);
         stats.setTotalPolicyTypesCount(nupdates);
-        stats.updatePermitDecisionsCount();
-        stats.updateDenyDecisionsCount();
-        stats.updateIndeterminantDecisionsCount();
-        stats.updateNotApplicableDecisionsCount();
+        stats.updateDecisionCount("test", "test", Decision.PERMIT);
+        stats.updateDecisionCount("test", "test", Decision.DENY);
+        stats.updateDecisionCount("test", "test", Decision.INDETERMINATE);
+        stats.updateDecisionCount("test", "test", Decision.NOTAPPLICABLE);
     }
 
     private void validateStatisticsReport(final StatisticsReport report, final int count, final int code) {
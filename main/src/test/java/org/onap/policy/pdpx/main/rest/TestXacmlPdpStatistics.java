@@ -23,6 +23,7 @@ package org.onap.policy.pdpx.main.rest;
 
 import static org.junit.Assert.assertEquals;
 
+import com.att.research.xacml.api.Decision;
 import org.junit.Test;
 import org.onap.policy.pdpx.main.CommonRest;
 import org.onap.policy.pdpx.main.rest.model.StatisticsReport;
@@ -69,10 +70,10 @@ public class TestXacmlPdpStatistics extends CommonRest {
         ++nupdates;
         stats.setTotalPolicyCount(nupdates);
         stats.setTotalPolicyTypesCount(nupdates);
-        stats.updatePermitDecisionsCount();
-        stats.updateDenyDecisionsCount();
-        stats.updateIndeterminantDecisionsCount();
-        stats.updateNotApplicableDecisionsCount();
+        stats.updateDecisionCount("test", "test", Decision.PERMIT);
+        stats.updateDecisionCount("test", "test", Decision.DENY);
+        stats.updateDecisionCount("test", "test", Decision.INDETERMINATE);
+        stats.updateDecisionCount("test", "test", Decision.NOTAPPLICABLE);
     }
 
     private void validateReport(final StatisticsReport report, final int count, final int code) {
@@ -0,0 +1,117 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.api.Decision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsSnapshot.DecisionCounts;
+
+/**
+ * Class to perform unit testing of {@link XacmlPdpStatisticsManager}.
+ *
+ */
+public class TestXacmlPdpStatisticsManager {
+
+    @Test
+    public void testSnapshot() {
+        XacmlPdpStatisticsManager stats = new XacmlPdpStatisticsManager();
+        stats.setTotalPolicyTypesCount(2);
+        stats.setTotalPolicyCount(3);
+        stats.updateErrorCount();
+        stats.updateDeployCounts(3, 0);
+        stats.updateDeployCounts(1, 2);
+        stats.updateDecisionCount("guard", "guard", Decision.PERMIT);
+        stats.updateDecisionCount("guard", "guard", Decision.DENY);
+        stats.updateDecisionCount("guard", "guard", Decision.INDETERMINATE_DENY);
+        stats.updateDecisionCount("monitoring", "configure", Decision.PERMIT);
+        stats.updateDecisionCount("optimization", "optimize", Decision.NOTAPPLICABLE);
+        stats.updateDecisionCount(null, null, Decision.PERMIT);
+        stats.updateRejectedCount("guard");
+        stats.updateRejectedCount("guard");
+        stats.updateRejectedCount(null);
+
+        XacmlPdpStatisticsSnapshot snapshot = stats.snapshot();
+        assertThat(snapshot.getTotalPolicyTypesCount()).isEqualTo(2);
+        assertThat(snapshot.getTotalPoliciesCount()).isEqualTo(3);
+        assertThat(snapshot.getDeploySuccessCount()).isEqualTo(4);
+        assertThat(snapshot.getDeployFailCount()).isEqualTo(2);
+        assertThat(snapshot.getErrorCount()).isEqualTo(1);
+        assertThat(snapshot.getRejectedCount()).isEqualTo(3);
+        assertThat(snapshot.getRejections()).containsEntry("guard", 2L)
+                .containsEntry(XacmlPdpStatisticsManager.UNKNOWN, 1L);
+        assertCounts(snapshot.getTotals(), 3, 1, 1, 1);
+        assertThat(snapshot.getApplications()).containsOnlyKeys("guard", "monitoring", "optimization",
+                XacmlPdpStatisticsManager.UNKNOWN);
+        assertCounts(snapshot.getApplications().get("guard"), 1, 1, 1, 0);
+        assertThat(snapshot.getActions()).containsOnlyKeys("guard", "configure", "optimize",
+                XacmlPdpStatisticsManager.UNKNOWN);
+        assertCounts(snapshot.getActions().get("optimize"), 0, 0, 0, 1);
+
+        stats.resetAllStatistics();
+        snapshot = stats.snapshot();
+        assertThat(snapshot.getDeploySuccessCount()).isZero();
+        assertThat(snapshot.getDeployFailCount()).isZero();
+        assertThat(snapshot.getErrorCount()).isZero();
+        assertThat(snapshot.getRejectedCount()).isZero();
+        assertThat(snapshot.getTotals().getDecisionsCount()).isZero();
+        assertThat(snapshot.getApplications()).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        XacmlPdpStatisticsManager stats = new XacmlPdpStatisticsManager();
+        List<Thread> threads = new ArrayList<>();
+        for (int count = 0; count < 4; count++) {
+            threads.add(new Thread(() -> {
+                for (int index = 0; index < 10000; index++) {
+                    stats.updateDecisionCount("guard", "guard", Decision.PERMIT);
+                    stats.updateDecisionCount("monitoring", "configure", Decision.DENY);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        XacmlPdpStatisticsSnapshot snapshot = stats.snapshot();
+        assertCounts(snapshot.getTotals(), 40000, 40000, 0, 0);
+        assertCounts(snapshot.getApplications().get("guard"), 40000, 0, 0, 0);
+        assertCounts(snapshot.getActions().get("configure"), 0, 40000, 0, 0);
+    }
+
+    private void assertCounts(DecisionCounts counts, long permit, long deny, long indeterminant,
+            long notApplicable) {
+        assertThat(counts.getPermitDecisionsCount()).isEqualTo(permit);
+        assertThat(counts.getDenyDecisionsCount()).isEqualTo(deny);
+        assertThat(counts.getIndeterminantDecisionsCount()).isEqualTo(indeterminant);
+        assertThat(counts.getNotApplicableDecisionsCount()).isEqualTo(notApplicable);
+    }
+}
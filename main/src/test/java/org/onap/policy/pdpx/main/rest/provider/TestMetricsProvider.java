@@ -0,0 +1,71 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.pdpx.main.rest.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.att.research.xacml.api.Decision;
+
+import org.junit.Test;
+import org.onap.policy.pdp.xacml.application.common.std.StdCircuitBreaker;
+import org.onap.policy.pdpx.main.rest.XacmlPdpStatisticsManager;
+
+/**
+ * Class to perform unit testing of {@link MetricsProvider}.
+ *
+ */
+public class TestMetricsProvider {
+
+    @Test
+    public void testFetchMetrics() {
+        XacmlPdpStatisticsManager stats = new XacmlPdpStatisticsManager();
+        XacmlPdpStatisticsManager.setCurrent(stats);
+        stats.setTotalPolicyTypesCount(4);
+        stats.updateErrorCount();
+        stats.updateDecisionCount("guard", "guard", Decision.PERMIT);
+        stats.updateDecisionCount("guard", "guard", Decision.PERMIT);
+        stats.updateDecisionCount("monitoring \"cdap\"", "configure", Decision.DENY);
+        stats.updateRejectedCount("guard");
+        StdCircuitBreaker.getInstance("testFetchMetrics", 2, 100, 0).recordSuccess(2000000);
+
+        String metrics = new MetricsProvider().fetchMetrics();
+        assertThat(metrics).contains("# HELP xacml_pdp_decisions_total ")
+            .contains("# TYPE xacml_pdp_decisions_total counter\n")
+            .contains("xacml_pdp_decisions_total{application=\"guard\",decision=\"permit\"} 2\n")
+            .contains("xacml_pdp_decisions_total{application=\"monitoring \\\"cdap\\\"\",decision=\"deny\"} 1\n")
+            .contains("xacml_pdp_decision_errors_total 1\n")
+            .contains("xacml_pdp_decisions_rejected_total{application=\"guard\"} 1\n")
+            .contains("xacml_pdp_policy_types 4\n")
+            .contains("xacml_pdp_pip_query_seconds_count{pip=\"testFetchMetrics\"} 1\n")
+            .contains("xacml_pdp_pip_query_max_seconds{pip=\"testFetchMetrics\"} 0.002\n")
+            .contains("xacml_pdp_pip_breaker_open{pip=\"testFetchMetrics\"} 0\n")
+            .contains("# TYPE jvm_threads_current gauge\n")
+            .contains("# TYPE xacml_pdp_decision_pool_queued gauge\n");
+        //
+        // Every line is a comment or a sample
+        //
+        for (String line : metrics.split("\n")) {
+            assertThat(line).matches("# (HELP|TYPE) .*|[a-z_]+(\\{.*\\})? [-0-9.E]+");
+        }
+    }
+}
@@ -29,4 +29,34 @@ create table if not exists operationshistory (
     subrequestId varchar(50),
     endtime timestamp not null default current_timestamp,
     PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+
+--
+-- Composite indexes for the guard PIP queries, they match the
+-- indexes declared on the operations history entity. MySQL has no
+-- "create index if not exists", so each index is only created when
+-- information_schema does not list it yet.
+--
+set @ddl = (select if(count(*) > 0, 'do 0',
+    'create index operationshistory_target_idx on operationshistory (target, operation, actor, endtime, outcome)')
+    from information_schema.statistics where table_schema = database()
+    and table_name = 'operationshistory' and index_name = 'operationshistory_target_idx');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) > 0, 'do 0',
+    'create index operationshistory_clname_idx on operationshistory (closedLoopName, target, endtime, outcome)')
+    from information_schema.statistics where table_schema = database()
+    and table_name = 'operationshistory' and index_name = 'operationshistory_clname_idx');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) > 0, 'do 0',
+    'create index operationshistory_endtime_idx on operationshistory (endtime)')
+    from information_schema.statistics where table_schema = database()
+    and table_name = 'operationshistory' and index_name = 'operationshistory_endtime_idx');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
@@ -0,0 +1,256 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.benchmarks;
+
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.api.Response;
+import com.att.research.xacml.api.pdp.PDPEngine;
+import com.att.research.xacml.api.pdp.PDPEngineFactory;
+import com.att.research.xacml.api.pdp.PDPException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.onap.policy.common.utils.coder.StandardCoder;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.models.decisions.concepts.DecisionResponse;
+import org.onap.policy.models.tosca.authorative.concepts.ToscaPolicy;
+import org.onap.policy.models.tosca.authorative.concepts.ToscaServiceTemplate;
+import org.onap.policy.pdp.xacml.application.common.ToscaPolicyTranslator;
+import org.onap.policy.pdp.xacml.application.common.XacmlApplicationServiceProvider;
+import org.onap.policy.pdp.xacml.application.common.XacmlPolicyUtils;
+import org.onap.policy.pdp.xacml.application.common.std.StdCombinedPolicyResultsTranslator;
+import org.onap.policy.pdp.xacml.application.common.std.StdMatchableTranslator;
+import org.onap.policy.xacml.pdp.application.guard.GuardPdpApplication;
+import org.onap.policy.xacml.pdp.application.guard.LegacyGuardTranslator;
+import org.onap.policy.xacml.pdp.application.monitoring.MonitoringPdpApplication;
+import org.onap.policy.xacml.pdp.application.optimization.OptimizationPdpApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Benchmarks each stage of a decision, and the whole of it, for the guard, monitoring and
+ * optimization applications with an increasing number of deployed policies. The deployed
+ * policies are copies of the test policies bundled with the applications, and the requests
+ * are the test decision requests of the main module.
+ *
+ * <p>The test resources are found relative to the directory given by the system property
+ * xacml.benchmarks.root, which defaults to the root of the repository when run from this
+ * module's directory: java -jar target/benchmarks.jar
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecisionPipelineBenchmark {
+
+    private static final StandardCoder CODER = new StandardCoder();
+    private static final String POLICY_ID = "policy-id";
+
+    @Param({"guard", "monitoring", "optimization"})
+    private String application;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int policyCount;
+
+    private Path dataPath;
+    private XacmlApplicationServiceProvider service;
+    private ToscaPolicyTranslator translator;
+    private PDPEngine engine;
+    private DecisionRequest decisionRequest;
+    private Request xacmlRequest;
+    private Response xacmlResponse;
+
+    /**
+     * Deploys the policies into the application and prepares the input of each stage.
+     *
+     * @throws Exception if the application or the policies cannot be loaded
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkApplication benchmark = BenchmarkApplication.valueOf(application.toUpperCase());
+        Path root = Paths.get(System.getProperty("xacml.benchmarks.root", "../.."));
+        //
+        // Initialize the application in its own data directory
+        //
+        dataPath = Files.createTempDirectory("xacml-benchmark-" + application);
+        try (InputStream is = DecisionPipelineBenchmark.class
+                .getResourceAsStream("/" + application + "/xacml.properties")) {
+            Files.copy(is, XacmlPolicyUtils.getPropertiesPath(dataPath));
+        }
+        service = benchmark.application.get();
+        service.initialize(dataPath);
+        translator = benchmark.translator.get();
+        //
+        // Deploy the policies all at once
+        //
+        List<ToscaPolicy> policies = copyPolicies(decodePolicies(root.resolve(benchmark.policies)), benchmark);
+        if (service.loadPolicies(policies).size() != policyCount) {
+            throw new IllegalStateException("failed to load the " + policyCount + " policies");
+        }
+        //
+        // Our own engine over the same policies, the application's is not accessible
+        //
+        engine = PDPEngineFactory.newInstance().newEngine(
+                XacmlPolicyUtils.loadXacmlProperties(XacmlPolicyUtils.getPropertiesPath(dataPath)));
+        //
+        // Inputs of each stage
+        //
+        decisionRequest = CODER.decode(new String(Files.readAllBytes(root.resolve(benchmark.request))),
+                DecisionRequest.class);
+        xacmlRequest = translator.convertRequest(decisionRequest);
+        xacmlResponse = engine.decide(xacmlRequest);
+    }
+
+    /**
+     * Removes the data directory.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dataPath)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Request convertRequest() {
+        return translator.convertRequest(decisionRequest);
+    }
+
+    @Benchmark
+    public Response decide() throws PDPException {
+        return engine.decide(xacmlRequest);
+    }
+
+    @Benchmark
+    public DecisionResponse convertResponse() {
+        return translator.convertResponse(xacmlResponse);
+    }
+
+    @Benchmark
+    public Pair<DecisionResponse, Response> makeDecision() {
+        return service.makeDecision(decisionRequest);
+    }
+
+    private static List<ToscaPolicy> decodePolicies(Path policyFile) throws Exception {
+        Object yamlObject = new Yaml().load(new String(Files.readAllBytes(policyFile)));
+        ToscaServiceTemplate serviceTemplate =
+                CODER.decode(CODER.encode(yamlObject), ToscaServiceTemplate.class);
+        List<ToscaPolicy> policies = new ArrayList<>();
+        for (Map<String, ToscaPolicy> map : serviceTemplate.getToscaTopologyTemplate().getPolicies()) {
+            policies.addAll(map.values());
+        }
+        return policies;
+    }
+
+    private List<ToscaPolicy> copyPolicies(List<ToscaPolicy> templates, BenchmarkApplication benchmark)
+            throws Exception {
+        //
+        // The first copy of each policy is the original, so the request still finds it
+        //
+        List<ToscaPolicy> policies = new ArrayList<>();
+        for (int index = 0; policies.size() < policyCount; index++) {
+            ToscaPolicy template = templates.get(index % templates.size());
+            int copy = index / templates.size();
+            ToscaPolicy policy = CODER.decode(CODER.encode(template), ToscaPolicy.class);
+            if (copy > 0) {
+                String policyId = template.getMetadata().get(POLICY_ID) + "." + copy;
+                policy.setName(policyId);
+                policy.setMetadata(new HashMap<>(template.getMetadata()));
+                policy.getMetadata().put(POLICY_ID, policyId);
+                benchmark.differentiate(policy, copy);
+            }
+            policies.add(policy);
+        }
+        return policies;
+    }
+
+    private enum BenchmarkApplication {
+        GUARD(GuardPdpApplication::new, LegacyGuardTranslator::new,
+                "applications/guard/src/test/resources/vDNS.policy.guard.minmax.output.tosca.yaml",
+                "main/src/test/resources/decisions/decision.guard.shouldpermit.input.json") {
+            @Override
+            void differentiate(ToscaPolicy policy, int copy) {
+                //
+                // Otherwise every copy would apply to the request
+                //
+                policy.setProperties(new HashMap<>(policy.getProperties()));
+                policy.getProperties().put("clname", policy.getProperties().get("clname") + "-" + copy);
+            }
+        },
+        MONITORING(MonitoringPdpApplication::new, StdCombinedPolicyResultsTranslator::new,
+                "applications/monitoring/src/test/resources/vDNS.policy.input.yaml",
+                "main/src/test/resources/decisions/decision.single.input.json"),
+        OPTIMIZATION(OptimizationPdpApplication::new, StdMatchableTranslator::new,
+                "applications/optimization/src/test/resources/vCPE.policies.optimization.input.tosca.yaml",
+                "main/src/test/resources/decisions/decision.optimization.affinity.input.json");
+
+        private final Supplier<XacmlApplicationServiceProvider> application;
+        private final Supplier<ToscaPolicyTranslator> translator;
+        private final String policies;
+        private final String request;
+
+        BenchmarkApplication(Supplier<XacmlApplicationServiceProvider> application,
+                Supplier<ToscaPolicyTranslator> translator, String policies, String request) {
+            this.application = application;
+            this.translator = translator;
+            this.policies = policies;
+            this.request = request;
+        }
+
+        void differentiate(ToscaPolicy policy, int copy) {
+            //
+            // Unique policy ids are enough
+            //
+        }
+    }
+}
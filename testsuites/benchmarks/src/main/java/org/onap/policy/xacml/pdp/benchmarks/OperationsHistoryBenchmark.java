@@ -0,0 +1,152 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.policy.xacml.pdp.benchmarks;
+
+import com.att.research.xacml.api.pip.PIPException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.CountRecentOperationsPip;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.GetOperationOutcomePip;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.GuardHistory;
+import org.onap.policy.pdp.xacml.application.common.operationshistory.OperationsHistoryPip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the guard lookups of the operations history PIPs over a large synthetic history
+ * in an in-memory database, one target after another so each lookup reads other rows.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationsHistoryBenchmark {
+
+    private static final int TARGETS = 10000;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private EntityManagerFactory emf;
+    private CountRecentOperationsPip countPip;
+    private GetOperationOutcomePip outcomePip;
+    private OperationsHistoryPip historyPip;
+    private int lookup;
+
+    /**
+     * Loads the history and configures the PIPs over it.
+     *
+     * @throws PIPException if a PIP cannot be configured
+     */
+    @Setup(Level.Trial)
+    public void setup() throws PIPException {
+        Properties properties = new Properties();
+        properties.setProperty(CountRecentOperationsPip.ISSUER_NAME + ".persistenceunit", "OperationsHistoryBenchmark");
+        properties.setProperty(GetOperationOutcomePip.ISSUER_NAME + ".persistenceunit", "OperationsHistoryBenchmark");
+        properties.setProperty(OperationsHistoryPip.ISSUER_NAME + ".persistenceunit", "OperationsHistoryBenchmark");
+        properties.setProperty("javax.persistence.jdbc.driver", "org.h2.Driver");
+        //
+        // The page store loads a million rows into the indexed table a lot faster than the MVStore
+        //
+        properties.setProperty("javax.persistence.jdbc.url",
+                "jdbc:h2:mem:history" + rows + ";DATABASE_TO_UPPER=FALSE;MV_STORE=FALSE");
+        properties.setProperty("javax.persistence.jdbc.user", "policy");
+        properties.setProperty("javax.persistence.jdbc.password", "P01icY");
+        emf = Persistence.createEntityManagerFactory("OperationsHistoryBenchmark", properties);
+        //
+        // Operations end over the last day, one in seven is a guard failure.
+        // X is the row number system_range generates.
+        //
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery("insert into operationshistory (id, closedLoopName, requestId, actor, operation,"
+                    + " target, starttime, outcome, endtime)"
+                    + " select X, concat('cl-', mod(X, 100)), concat('request-', X),"
+                    + " concat('actor-', mod(X, 3)), concat('operation-', mod(X, 5)), concat('vnf-', mod(X, "
+                    + TARGETS + ")), dateadd('SECOND', -mod(X, 86400) - 60, current_timestamp),"
+                    + " case when mod(X, 7) = 0 then 'Failure_Guard' else 'SUCCESS' end,"
+                    + " dateadd('SECOND', -mod(X, 86400), current_timestamp)"
+                    + " from system_range(1, " + rows + ")").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+
+        countPip = new CountRecentOperationsPip();
+        countPip.configure("count", properties);
+        outcomePip = new GetOperationOutcomePip();
+        outcomePip.configure("outcome", properties);
+        historyPip = new OperationsHistoryPip();
+        historyPip.configure("history", properties);
+    }
+
+    /**
+     * Closes the entity manager factory.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public long countRecentOperations() {
+        int target = nextTarget();
+        return countPip.getOperationCount("actor-" + target % 3, "operation-" + target % 5, "vnf-" + target,
+                1, "day");
+    }
+
+    @Benchmark
+    public String getOperationOutcome() {
+        int target = nextTarget();
+        return outcomePip.getOperationOutcome("cl-" + target % 100, "vnf-" + target);
+    }
+
+    @Benchmark
+    public GuardHistory getGuardHistory() {
+        int target = nextTarget();
+        return historyPip.getGuardHistory("actor-" + target % 3, "operation-" + target % 5, "vnf-" + target,
+                1, "day", "cl-" + target % 100);
+    }
+
+    private int nextTarget() {
+        lookup = (lookup + 37) % TARGETS;
+        return lookup;
+    }
+}
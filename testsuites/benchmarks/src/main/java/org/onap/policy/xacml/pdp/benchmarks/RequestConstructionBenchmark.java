@@ -0,0 +1,131 @@
+/*-
+ * ============LICENSE_START=======================================================
+ * ONAP
+ * ================================================================================
+ * Copyright (C) 2019 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.policy.xacml.pdp.benchmarks;
+
+import com.att.research.xacml.api.DataTypeException;
+import com.att.research.xacml.api.Request;
+import com.att.research.xacml.std.annotations.RequestParser;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.onap.policy.models.decisions.concepts.DecisionRequest;
+import org.onap.policy.pdp.xacml.application.common.std.StdCombinedPolicyRequest;
+import org.onap.policy.pdp.xacml.application.common.std.StdMatchablePolicyRequest;
+import org.onap.policy.xacml.pdp.application.guard.LegacyGuardPolicyRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building the XACML requests through RequestParser, which scans the annotations
+ * of the request classes, against building them directly.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestConstructionBenchmark {
+
+    private DecisionRequest monitoringRequest;
+    private DecisionRequest optimizationRequest;
+    private DecisionRequest guardRequest;
+
+    /**
+     * Creates the decision requests.
+     */
+    @Setup
+    public void setup() {
+        monitoringRequest = newDecisionRequest("configure");
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("policy-id", Arrays.asList("onap.scaleout.tca", "onap.restart.tca"));
+        monitoringRequest.setResource(resources);
+
+        optimizationRequest = newDecisionRequest("optimize");
+        resources = new HashMap<>();
+        resources.put("policyScope", Arrays.asList("us", "vcpe"));
+        resources.put("policyType", "onap.policies.optimization.AffinityPolicy");
+        optimizationRequest.setResource(resources);
+
+        guardRequest = newDecisionRequest("guard");
+        guardRequest.setRequestId("unique-request-id-1");
+        Map<String, Object> guard = new HashMap<>();
+        guard.put("actor", "SO");
+        guard.put("recipe", "VF Module Create");
+        guard.put("clname", "ControlLoop-vDNS-6f37f56d-a87d-4b85-b6a9-cc953cf779b3");
+        guard.put("target", "vLoadBalancer-00");
+        guard.put("vfCount", "1");
+        resources = new HashMap<>();
+        resources.put("guard", guard);
+        guardRequest.setResource(resources);
+    }
+
+    @Benchmark
+    public Request monitoringRequestParser() throws IllegalAccessException, DataTypeException {
+        return RequestParser.parseRequest(StdCombinedPolicyRequest.createInstance(monitoringRequest));
+    }
+
+    @Benchmark
+    public Request monitoringRequestBuilder() {
+        return StdCombinedPolicyRequest.createInstance(monitoringRequest).toXacmlRequest();
+    }
+
+    @Benchmark
+    public Request optimizationRequestParser() throws IllegalAccessException, DataTypeException {
+        return RequestParser.parseRequest(StdMatchablePolicyRequest.createInstance(optimizationRequest));
+    }
+
+    @Benchmark
+    public Request optimizationRequestBuilder() {
+        return StdMatchablePolicyRequest.createInstance(optimizationRequest).toXacmlRequest();
+    }
+
+    @Benchmark
+    public Request guardRequestParser() throws IllegalAccessException, DataTypeException {
+        return RequestParser.parseRequest(LegacyGuardPolicyRequest.createInstance(guardRequest));
+    }
+
+    @Benchmark
+    public Request guardRequestBuilder() {
+        return LegacyGuardPolicyRequest.createInstance(guardRequest).toXacmlRequest();
+    }
+
+    private static DecisionRequest newDecisionRequest(String action) {
+        DecisionRequest decisionRequest = new DecisionRequest();
+        decisionRequest.setOnapName("benchmark");
+        decisionRequest.setOnapComponent("benchmark-component");
+        decisionRequest.setOnapInstance("benchmark-instance");
+        decisionRequest.setAction(action);
+        return decisionRequest;
+    }
+}